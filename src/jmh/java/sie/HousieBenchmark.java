@@ -0,0 +1,187 @@
+package sie;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for setting up a game and calling numbers, swept over the number of players. The shape
+ * is given as rows:columns:numbersPerRow:range.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class HousieBenchmark {
+
+  @Param({"10", "1000", "100000", "1000000"})
+  public int players;
+
+  @Param({"3:10:5:90", "6:20:10:500"})
+  public String shape;
+
+  private int rows;
+  private int columns;
+  private int numbersPerRow;
+  private int range;
+  private SplittableRandom random;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    String[] parts = shape.split(":");
+    rows = Integer.parseInt(parts[0]);
+    columns = Integer.parseInt(parts[1]);
+    numbersPerRow = Integer.parseInt(parts[2]);
+    range = Integer.parseInt(parts[3]);
+    random = new SplittableRandom(1);
+  }
+
+  /**
+   * Cost of generating every ticket and building the number index
+   */
+  @Benchmark
+  public Housie construct() {
+    return newGame();
+  }
+
+  /**
+   * Cost of the draws of a whole game, rewound in place with {@link Housie#reset()} first. The score is
+   * per game, the draws it took are returned.
+   */
+  @Benchmark
+  public int callNumber(RunningGame state) {
+    Housie housie = state.housie;
+    housie.reset();
+    while (!housie.callNumber()) {
+      // play to the end
+    }
+    return housie.getTotalNumbersCalled();
+  }
+
+  /**
+   * Cost of the draws of a whole game in claim mode, which only records each number whatever the number
+   * of players. The game always calls every number of the range, on tickets dealt once per iteration.
+   */
+  @Benchmark
+  public int claimCallNumber(RunningClaimGame state) {
+    state.draws.reset();
+    ClaimGame game = new ClaimGame(state.tickets, state.players, state.draws, Prize.CLASSIC, 0,
+        GameListener.NONE);
+    while (!game.callNumber()) {
+      // play to the end
+    }
+    return game.getTotalNumbersCalled();
+  }
+
+  /**
+   * Cost of recomputing the status of every ticket against half the range being called
+   */
+  @Benchmark
+  public int evaluateBitmaps(Bitmaps state) {
+    state.bitmaps.evaluate(state.called);
+    return state.bitmaps.hits(0);
+  }
+
+  /**
+   * Cost of a whole game on a pooled instance, tickets regenerated in place. The gc profiler should
+   * report no allocation once the pool is warm.
+   */
+  @Benchmark
+  public int pooledGame(Pooled state) {
+    Housie housie = state.shape.acquire(random);
+    while (!housie.callNumber()) {
+      // play to the end
+    }
+    state.shape.release(housie);
+    return housie.getTotalNumbersCalled();
+  }
+
+  /**
+   * Private helper that builds a quiet game
+   */
+  private Housie newGame() {
+    TicketStore tickets = TicketStore.generate(players, rows, columns, numbersPerRow, range, random);
+    return new Housie(tickets, new ShuffledDrawSequence(range, random.split()), false);
+  }
+
+  /**
+   * Pool of games of the benchmark's shape
+   */
+  @State(Scope.Thread)
+  public static class Pooled {
+
+    private HousiePool.Shape shape;
+
+    @Setup(Level.Trial)
+    public void setUp(HousieBenchmark benchmark) {
+      shape = new HousiePool(1).shape(benchmark.range, benchmark.players, benchmark.rows, benchmark.columns,
+          benchmark.numbersPerRow);
+    }
+  }
+
+  /**
+   * Tickets of the benchmark's shape laid out as bitmaps, with half the range called
+   */
+  @State(Scope.Thread)
+  public static class Bitmaps {
+
+    private TicketBitmaps bitmaps;
+    private long[] called;
+
+    @Setup(Level.Trial)
+    public void setUp(HousieBenchmark benchmark) {
+      TicketStore tickets = TicketStore.generate(benchmark.players, benchmark.rows, benchmark.columns,
+          benchmark.numbersPerRow, benchmark.range, benchmark.random);
+      bitmaps = TicketBitmaps.of(tickets);
+      int[] order = ShuffledDrawSequence.drawOrder(benchmark.range, 1);
+      called = TicketBitmaps.calledBitmap(benchmark.range, Arrays.copyOf(order, benchmark.range / 2));
+    }
+  }
+
+  /**
+   * Tickets and draw order of a claim mode game, dealt again for every iteration
+   */
+  @State(Scope.Thread)
+  public static class RunningClaimGame {
+
+    private TicketStore tickets;
+    private PlayerTickets players;
+    private DrawSequence draws;
+
+    @Setup(Level.Iteration)
+    public void setUp(HousieBenchmark benchmark) {
+      tickets = TicketStore.generate(benchmark.players, benchmark.rows, benchmark.columns,
+          benchmark.numbersPerRow, benchmark.range, benchmark.random);
+      players = PlayerTickets.oneEach(tickets.size());
+      draws = new ShuffledDrawSequence(benchmark.range, benchmark.random.split());
+    }
+  }
+
+  /**
+   * Game replayed by every invocation, dealt again for every iteration
+   */
+  @State(Scope.Thread)
+  public static class RunningGame {
+
+    private Housie housie;
+
+    @Setup(Level.Iteration)
+    public void setUp(HousieBenchmark benchmark) {
+      housie = benchmark.newGame();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package sie;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for generating a ticket and marking numbers on it. The shape is given as
+ * rows:columns:numbersPerRow:range.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TicketBenchmark {
+
+  @Param({"3:10:5:90", "3:9:5:90", "6:20:10:500"})
+  public String shape;
+
+  private int rows;
+  private int columns;
+  private int numbersPerRow;
+  private int range;
+  private SplittableRandom random;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    String[] parts = shape.split(":");
+    rows = Integer.parseInt(parts[0]);
+    columns = Integer.parseInt(parts[1]);
+    numbersPerRow = Integer.parseInt(parts[2]);
+    range = Integer.parseInt(parts[3]);
+    random = new SplittableRandom(1);
+  }
+
+  /**
+   * Cost of building a standalone ticket, including its store and fillTicket
+   */
+  @Benchmark
+  public Ticket newTicket() {
+    return new Ticket(rows, columns, numbersPerRow, range);
+  }
+
+  /**
+   * Cost of filling a batch of tickets in one store, reported per batch of 1000 tickets
+   */
+  @Benchmark
+  public TicketStore generateThousandTickets() {
+    return TicketStore.generate(1000, rows, columns, numbersPerRow, range, random);
+  }
+
+  /**
+   * Cost of calling selectNumber for every number in the range, on a ticket cleared in place with
+   * {@link Ticket#reset()} first
+   */
+  @Benchmark
+  public int selectEveryNumber(FreshTicket state) {
+    state.ticket.reset();
+    int hits = 0;
+    for (int number = 1; number <= range; number++) {
+      if (state.ticket.selectNumber(number)) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Ticket replayed by every invocation, generated again for every iteration
+   */
+  @State(Scope.Thread)
+  public static class FreshTicket {
+
+    private Ticket ticket;
+
+    @Setup(Level.Iteration)
+    public void setUp(TicketBenchmark benchmark) {
+      ticket = new Ticket(benchmark.rows, benchmark.columns, benchmark.numbersPerRow, benchmark.range);
+    }
+  }
+}
@@ -0,0 +1,234 @@
+package sie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Listener that hands events to a bounded queue and delivers them to another listener on a background
+ * writer thread. Events are drained in batches and the delegate is flushed once per batch. A drawn
+ * number never blocks the game thread: when the capacity is taken up by drawn numbers still waiting to
+ * be written, it is dropped and counted instead. Tickets dealt, prizes won and game over are rare
+ * and have room of their own in the queue, so they are never lost and keep their order with the draws.
+ * Only once that room is used up as well does a rare event wait for the writer.
+ */
+public class AsyncGameListener implements GameListener, AutoCloseable {
+
+  // most events delivered between two flushes of the delegate
+  private static final int BATCH_SIZE = 256;
+  // room in the queue kept for events other than drawn numbers
+  private static final int RESERVED = 1024;
+
+  private final GameListener delegate;
+  private final BlockingQueue<Event> queue;
+  private final Thread writer;
+  private final int capacity;
+  // drawn numbers queued and not written yet
+  private final AtomicInteger pendingDraws = new AtomicInteger();
+  private final AtomicLong dropped = new AtomicLong();
+  // held while queueing so nothing is queued after the writer was told to stop
+  private final Object lock = new Object();
+  private boolean closed = false;
+
+  /**
+   * Starts the writer thread
+   *
+   * @param delegate listener the events are delivered to, only ever called from the writer thread
+   * @param capacity most drawn numbers waiting to be written at once
+   */
+  public AsyncGameListener(GameListener delegate, int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.delegate = delegate;
+    this.capacity = capacity;
+    // one more for the event that stops the writer
+    this.queue = new ArrayBlockingQueue<>(capacity + RESERVED + 1);
+    this.writer = new Thread(this::writeEvents, "housie-listener");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @Override
+  public void onGeneratingTickets(int tickets) {
+    queue(new Event(Event.GENERATING_TICKETS, tickets, 0, null));
+  }
+
+  @Override
+  public void onTicketsGenerated(int tickets) {
+    queue(new Event(Event.TICKETS_GENERATED, tickets, 0, null));
+  }
+
+  @Override
+  public void onNumberDrawn(int number, int draw) {
+    // games sharing the listener race for the last slots
+    int pending;
+    do {
+      pending = pendingDraws.get();
+      if (pending >= capacity) {
+        dropped.incrementAndGet();
+        return;
+      }
+    } while (!pendingDraws.compareAndSet(pending, pending + 1));
+    boolean queued;
+    synchronized (lock) {
+      queued = !closed && queue.offer(new Event(Event.NUMBER_DRAWN, number, draw, null));
+    }
+    if (!queued) {
+      pendingDraws.decrementAndGet();
+      dropped.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void onPrizeWon(Prize prize, int playerId, int draw) {
+    queue(new Event(Event.PRIZE_WON, playerId, draw, prize));
+  }
+
+  @Override
+  public void onGameOver(int draws) {
+    queue(new Event(Event.GAME_OVER, draws, 0, null));
+  }
+
+  /**
+   * @return drawn numbers dropped because the queue was full, and events sent after closing
+   */
+  public long getDroppedEvents() {
+    return dropped.get();
+  }
+
+  /**
+   * Writes out every queued event and stops the writer thread. The writer is stopped by queueing a
+   * final event rather than interrupting it, since an interrupt would close an interruptible channel
+   * the delegate may be writing to. If interrupted while waiting for the writer, the interrupt is kept
+   * on the calling thread and the writer finishes on its own.
+   */
+  @Override
+  public void close() {
+    synchronized (lock) {
+      if (!closed) {
+        closed = true;
+        put(Event.STOP);
+      }
+    }
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Private helper that queues a rare event, waiting for the writer only if the reserved room is used
+   * up. An event sent after closing is counted as dropped.
+   */
+  private void queue(Event event) {
+    synchronized (lock) {
+      if (closed) {
+        dropped.incrementAndGet();
+      } else if (!queue.offer(event)) {
+        put(event);
+      }
+    }
+  }
+
+  /**
+   * Private helper that waits for room in the queue, keeping an interrupt for after the event is queued
+   */
+  private void put(Event event) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        queue.put(event);
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Body of the writer thread, runs until it takes the event queued by close
+   */
+  private void writeEvents() {
+    List<Event> batch = new ArrayList<>(BATCH_SIZE);
+    boolean stopped = false;
+    while (!stopped) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        // only close stops the writer
+        continue;
+      }
+      queue.drainTo(batch, BATCH_SIZE - 1);
+      int delivered = 0;
+      for (Event event : batch) {
+        if (event == Event.STOP) {
+          stopped = true;
+          break;
+        }
+        event.deliver(delegate);
+        delivered++;
+        if (event.type == Event.NUMBER_DRAWN) {
+          pendingDraws.decrementAndGet();
+        }
+      }
+      if (delivered > 0) {
+        delegate.flush();
+      }
+      batch.clear();
+    }
+  }
+
+  /**
+   * Queued event, the meaning of the two values depends on the type
+   */
+  private static final class Event {
+
+    private static final int TICKETS_GENERATED = 0;
+    private static final int NUMBER_DRAWN = 1;
+    private static final int PRIZE_WON = 2;
+    private static final int GAME_OVER = 3;
+    private static final int GENERATING_TICKETS = 4;
+    // queued by close after every other event
+    private static final Event STOP = new Event(-1, 0, 0, null);
+
+    private final int type;
+    private final int first;
+    private final int second;
+    private final Prize prize;
+
+    private Event(int type, int first, int second, Prize prize) {
+      this.type = type;
+      this.first = first;
+      this.second = second;
+      this.prize = prize;
+    }
+
+    private void deliver(GameListener listener) {
+      switch (type) {
+        case TICKETS_GENERATED:
+          listener.onTicketsGenerated(first);
+          break;
+        case NUMBER_DRAWN:
+          listener.onNumberDrawn(first, second);
+          break;
+        case PRIZE_WON:
+          listener.onPrizeWon(prize, first, second);
+          break;
+        case GENERATING_TICKETS:
+          listener.onGeneratingTickets(first);
+          break;
+        default:
+          listener.onGameOver(first);
+          break;
+      }
+    }
+  }
+}
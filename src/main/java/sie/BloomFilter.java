@@ -0,0 +1,54 @@
+package sie;
+
+/**
+ * Bloom filter over long fingerprints. A miss proves the value was never added, so most lookups are
+ * answered from a bitmap a fraction of the size of the set behind it.
+ */
+final class BloomFilter {
+
+  private static final int BITS_PER_VALUE = 16;
+  private static final int HASHES = 7;
+
+  private final long[] bits;
+  private final long mask;
+
+  /**
+   * @param expected number of values the filter is sized for
+   */
+  BloomFilter(int expected) {
+    long wanted = Math.max(Long.SIZE, (long) expected * BITS_PER_VALUE);
+    long size = Long.highestOneBit(wanted - 1) << 1;
+    this.bits = new long[(int) Math.min(size >>> 6, 1 << 30)];
+    this.mask = ((long) bits.length << 6) - 1;
+  }
+
+  /**
+   * Adds a value
+   *
+   * @param value value to add
+   */
+  void add(long value) {
+    long first = Fingerprints.mix(value);
+    long second = (first >>> 32) | 1;
+    for (int k = 0; k < HASHES; k++) {
+      long bit = (first + k * second) & mask;
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  /**
+   * @param value value to look up
+   * @return false if the value was never added, true if it may have been
+   */
+  boolean mightContain(long value) {
+    long first = Fingerprints.mix(value);
+    long second = (first >>> 32) | 1;
+    for (int k = 0; k < HASHES; k++) {
+      long bit = (first + k * second) & mask;
+      if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,324 @@
+package sie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Housie played on claims. Instead of checking every ticket after every draw, a draw only records the
+ * number in the called number set and the draw it was called on, so calling a number costs the same
+ * whatever the number of players. Players claim prizes themselves and {@link #claim} verifies the claim
+ * against the player's tickets and the order of the draws, in time proportional to the size of the
+ * tickets.
+ * <p>
+ * A claim must be made within the late claim window: a ticket that completed the pattern more than
+ * that many draws before the claim was slept on and the claim is rejected. A window of 0 only accepts
+ * claims made before the next number is called. A prize goes to the first valid claim, and a prize of
+ * rank 2 or more can only be claimed once the lower ranks of its pattern have been won.
+ */
+public final class ClaimGame {
+
+  /**
+   * Outcome of a claim
+   */
+  public enum Verdict {
+    // the prize was awarded to the player
+    ACCEPTED,
+    // none of the player's tickets has completed the pattern
+    NOT_COMPLETE,
+    // the pattern was completed before the late claim window
+    TOO_LATE,
+    // the prize has already been won
+    ALREADY_WON,
+    // a lower rank of the pattern is still open, or the ticket has already won a rank of it
+    NOT_OPEN
+  }
+
+  // a number that has not been called yet, and an alternative that is not complete yet
+  private static final int NOT_CALLED = Integer.MAX_VALUE;
+
+  private final TicketStore tickets;
+  private final PlayerTickets players;
+  private final DrawSequence draws;
+  private final List<Prize> prizes;
+  private final GameListener listener;
+  private final int lateClaimWindow;
+  // numbers called so far and the draw each was called on, sized by the draws rather than the range
+  private final CompressedBitmap calledNumbers = new CompressedBitmap();
+  private final IntIntHashMap drawOf = new IntIntHashMap(Long.SIZE);
+  // alternatives of each prize's pattern that can be completed on the tickets' shape, and the hits
+  // each one needs
+  private final int[][][] alternatives;
+  private final int[][] required;
+  // ticket that won each prize and the draw it was claimed on, -1 and 0 while it is still open
+  private final int[] prizeWinner;
+  private final int[] prizeDraw;
+  // draws of the numbers of one alternative, sorted to find when it was completed
+  private final int[] scratch;
+  private int totalNumbersCalled = 0;
+  private int prizesLeft;
+  private boolean gameOver = false;
+
+  /**
+   * Constructor for a game where each player holds one ticket. Player i holds ticket i - 1.
+   *
+   * @param tickets         store holding one ticket per player
+   * @param draws           order in which the numbers are called
+   * @param prizes          prizes of the game, at most {@link Housie#MAXIMUM_PRIZES}
+   * @param lateClaimWindow draws a completed pattern can still be claimed for
+   */
+  public ClaimGame(TicketStore tickets, DrawSequence draws, List<Prize> prizes, int lateClaimWindow) {
+    this(tickets, PlayerTickets.oneEach(tickets.size()), draws, prizes, lateClaimWindow, GameListener.NONE);
+  }
+
+  /**
+   * Constructor for a game where players hold books of tickets. A claim is valid if any ticket of the
+   * player completed the pattern.
+   *
+   * @param tickets         store holding the tickets of every player
+   * @param players         tickets held by each player
+   * @param draws           order in which the numbers are called
+   * @param prizes          prizes of the game, at most {@link Housie#MAXIMUM_PRIZES}
+   * @param lateClaimWindow draws a completed pattern can still be claimed for
+   * @param listener        receives the draws, the accepted claims and the end of the game
+   */
+  public ClaimGame(TicketStore tickets, PlayerTickets players, DrawSequence draws, List<Prize> prizes,
+      int lateClaimWindow, GameListener listener) {
+    if (players.getTicketCount() != tickets.size()) {
+      throw new IllegalArgumentException("Players must hold exactly the " + tickets.size() + " tickets of the store");
+    }
+    if (draws.getRange() != tickets.getRange()) {
+      throw new IllegalArgumentException("Draw sequence and tickets must cover the same range");
+    }
+    if (prizes.isEmpty() || prizes.size() > Housie.MAXIMUM_PRIZES) {
+      throw new IllegalArgumentException("A game needs between 1 and " + Housie.MAXIMUM_PRIZES + " prizes");
+    }
+    if (lateClaimWindow < 0) {
+      throw new IllegalArgumentException("Late claim window cannot be negative");
+    }
+    this.tickets = tickets;
+    this.players = players;
+    this.draws = draws;
+    this.prizes = List.copyOf(prizes);
+    this.listener = listener;
+    this.lateClaimWindow = lateClaimWindow;
+    this.scratch = new int[tickets.getNumbersPerTicket()];
+    this.prizeWinner = new int[prizes.size()];
+    this.prizeDraw = new int[prizes.size()];
+    Arrays.fill(prizeWinner, -1);
+
+    this.alternatives = new int[prizes.size()][][];
+    this.required = new int[prizes.size()][];
+    int achievable = 0;
+    for (int k = 0; k < prizes.size(); k++) {
+      PrizePattern pattern = prizes.get(k).getPattern();
+      List<int[]> kept = new ArrayList<>();
+      for (int[] alternative : pattern.positions(tickets.getRows(), tickets.getNumbersPerRow())) {
+        int needed = pattern.required(alternative);
+        if (needed >= 1 && needed <= alternative.length
+            && PatternEngine.onTicket(alternative, tickets.getNumbersPerTicket())) {
+          kept.add(alternative);
+        }
+      }
+      alternatives[k] = kept.toArray(new int[0][]);
+      required[k] = new int[kept.size()];
+      for (int a = 0; a < kept.size(); a++) {
+        required[k][a] = pattern.required(kept.get(a));
+      }
+      if (!kept.isEmpty() && prizes.get(k).getRank() <= tickets.size()) {
+        achievable++;
+      }
+    }
+    this.prizesLeft = achievable;
+    listener.onTicketsGenerated(tickets.size());
+  }
+
+  /**
+   * Calls the next number. Only the called number bitmap and the draw of the number are updated, no
+   * ticket is looked at.
+   *
+   * @return if the game is over
+   * @throws IllegalStateException if every number has been called
+   */
+  public boolean callNumber() {
+    if (!draws.hasNext()) {
+      throw new IllegalStateException("Every number has been called");
+    }
+    int number = draws.next();
+    calledNumbers.add(number);
+    drawOf.put(number, ++totalNumbersCalled);
+    listener.onNumberDrawn(number, totalNumbersCalled);
+    if (!draws.hasNext()) {
+      endGame();
+    }
+    return gameOver;
+  }
+
+  /**
+   * Verifies a player's claim to a prize and awards the prize if the claim is valid. Each ticket of the
+   * player is checked in ticket order and the first one that completed the pattern within the late
+   * claim window wins.
+   *
+   * @param playerId id of the player, starting at 1
+   * @param prize    index of the prize claimed
+   * @return outcome of the claim
+   */
+  public Verdict claim(int playerId, int prize) {
+    if (playerId < 1 || playerId > players.size()) {
+      throw new IllegalArgumentException("No player " + playerId);
+    }
+    if (prize < 0 || prize >= prizes.size()) {
+      throw new IllegalArgumentException("No prize " + prize);
+    }
+    if (prizeWinner[prize] >= 0) {
+      return Verdict.ALREADY_WON;
+    }
+    int player = playerId - 1;
+    int first = players.firstTicket(player);
+    Verdict verdict = Verdict.NOT_COMPLETE;
+    for (int ticket = first; ticket < first + players.ticketCount(player); ticket++) {
+      int completed = completionDraw(ticket, prize);
+      if (completed == NOT_CALLED) {
+        continue;
+      }
+      if (totalNumbersCalled - completed > lateClaimWindow) {
+        verdict = Verdict.TOO_LATE;
+      } else if (!isOpen(ticket, prize)) {
+        verdict = verdict == Verdict.TOO_LATE ? verdict : Verdict.NOT_OPEN;
+      } else {
+        award(prize, ticket);
+        return Verdict.ACCEPTED;
+      }
+    }
+    return verdict;
+  }
+
+  /**
+   * Returns the draw on which a ticket completed the pattern of a prize. An alternative needing r hits
+   * is completed on the draw of its r-th number to be called, and the pattern on its earliest
+   * alternative.
+   *
+   * @param ticket index of the ticket in the store
+   * @param prize  index of the prize
+   * @return draw on which the pattern was completed, Integer.MAX_VALUE if it has not been
+   */
+  int completionDraw(int ticket, int prize) {
+    int base = ticket * tickets.getNumbersPerTicket();
+    int earliest = NOT_CALLED;
+    for (int a = 0; a < alternatives[prize].length; a++) {
+      int[] alternative = alternatives[prize][a];
+      int called = 0;
+      for (int position : alternative) {
+        int draw = drawOf.get(tickets.number(base + position), NOT_CALLED);
+        if (draw != NOT_CALLED) {
+          scratch[called++] = draw;
+        }
+      }
+      int needed = required[prize][a];
+      if (called >= needed) {
+        Arrays.sort(scratch, 0, called);
+        earliest = Math.min(earliest, scratch[needed - 1]);
+      }
+    }
+    return earliest;
+  }
+
+  /**
+   * @return true once every prize has been won or every number has been called
+   */
+  public boolean isOver() {
+    return gameOver;
+  }
+
+  /**
+   * @param number number to look up
+   * @return true if the number has been called
+   */
+  public boolean isCalled(int number) {
+    return calledNumbers.contains(number);
+  }
+
+  /**
+   * @param number number to look up
+   * @return draw on which the number was called, 0 if it has not been
+   */
+  public int getDrawOf(int number) {
+    return drawOf.get(number, 0);
+  }
+
+  /**
+   * @return how many numbers have been called so far
+   */
+  public int getTotalNumbersCalled() {
+    return totalNumbersCalled;
+  }
+
+  /**
+   * @return draws a completed pattern can still be claimed for
+   */
+  public int getLateClaimWindow() {
+    return lateClaimWindow;
+  }
+
+  /**
+   * @return prizes of the game
+   */
+  public List<Prize> getPrizes() {
+    return prizes;
+  }
+
+  /**
+   * @param prize index of the prize
+   * @return id of the player who won the prize, 0 if it has not been won
+   */
+  public int getPrizeWinner(int prize) {
+    return prizeWinner[prize] < 0 ? 0 : players.playerOf(prizeWinner[prize]) + 1;
+  }
+
+  /**
+   * @param prize index of the prize
+   * @return draw on which the prize was claimed, 0 if it has not been won
+   */
+  public int getPrizeDraw(int prize) {
+    return prizeDraw[prize];
+  }
+
+  /**
+   * Private helper that checks the lower ranks of the prize's pattern have been won, none of them by
+   * the claiming ticket
+   */
+  private boolean isOpen(int ticket, int prize) {
+    Prize claimed = prizes.get(prize);
+    for (int k = 0; k < prizes.size(); k++) {
+      Prize other = prizes.get(k);
+      if (other.getPattern() == claimed.getPattern() && k != prize
+          && ((other.getRank() < claimed.getRank() && prizeWinner[k] < 0) || prizeWinner[k] == ticket)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Private helper that records the winner of a prize and announces it to the listener
+   */
+  private void award(int prize, int ticket) {
+    prizeWinner[prize] = ticket;
+    prizeDraw[prize] = totalNumbersCalled;
+    tickets.setPrize(ticket, 1 << prize, true);
+    listener.onPrizeWon(prizes.get(prize), players.playerOf(ticket) + 1, totalNumbersCalled);
+    if (--prizesLeft == 0) {
+      endGame();
+    }
+  }
+
+  /**
+   * Private helper that ends the game once, telling the listener
+   */
+  private void endGame() {
+    if (!gameOver) {
+      gameOver = true;
+      listener.onGameOver(totalNumbersCalled);
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package sie;
+
+import java.util.Arrays;
+
+/**
+ * Set of non-negative ints compressed in the manner of a roaring bitmap. Values are split on their
+ * high 16 bits into chunks of 65536, and each chunk that holds a value gets a container of its own: a
+ * sorted array of the low 16 bits while the chunk holds at most {@link #ARRAY_MAX} values, and a 65536
+ * bit bitmap once it holds more. Memory therefore grows with the values actually held rather than
+ * with the largest one, so a huge range costs nothing for the numbers that are never used.
+ * <p>
+ * Run containers are left out, the numbers of a game are random and hardly ever form runs.
+ */
+final class CompressedBitmap {
+
+  // an array container holding more values than this is turned into a bitmap, which is then smaller
+  static final int ARRAY_MAX = 1 << 12;
+
+  private static final int BITMAP_WORDS = (1 << 16) / Long.SIZE;
+
+  // high 16 bits of each chunk in use, sorted, with its container at the same index
+  private char[] keys = new char[4];
+  private Container[] containers = new Container[4];
+  private int chunks = 0;
+  private int size = 0;
+  // before[i] is the number of values held by the containers ahead of container i, rebuilt on rank
+  private int[] before = new int[1];
+  private boolean ranked = true;
+
+  /**
+   * Adds a value
+   *
+   * @param value value to add, at least 0
+   * @return true if the value was not in the set yet
+   */
+  boolean add(int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Only non-negative values can be held, not " + value);
+    }
+    char key = (char) (value >>> 16);
+    int i = Arrays.binarySearch(keys, 0, chunks, key);
+    if (i < 0) {
+      i = -i - 1;
+      insertChunk(i, key);
+    }
+    if (containers[i].add((char) value)) {
+      size++;
+      ranked = false;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @param value value to look up
+   * @return true if the value is in the set
+   */
+  boolean contains(int value) {
+    if (value < 0) {
+      return false;
+    }
+    int i = Arrays.binarySearch(keys, 0, chunks, (char) (value >>> 16));
+    return i >= 0 && containers[i].contains((char) value);
+  }
+
+  /**
+   * @param value value to look up
+   * @return number of values held that are less than or equal to the value
+   */
+  int rank(int value) {
+    if (value < 0) {
+      return 0;
+    }
+    if (!ranked) {
+      if (before.length < chunks + 1) {
+        before = new int[keys.length + 1];
+      }
+      for (int i = 0; i < chunks; i++) {
+        before[i + 1] = before[i] + containers[i].cardinality;
+      }
+      ranked = true;
+    }
+    int i = Arrays.binarySearch(keys, 0, chunks, (char) (value >>> 16));
+    return i < 0 ? before[-i - 1] : before[i] + containers[i].rank((char) value);
+  }
+
+  /**
+   * @return number of values held
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Removes every value. The containers are emptied in place and kept for the chunks they served, so a
+   * set filled again with values of the same chunks allocates nothing.
+   */
+  void clear() {
+    for (int i = 0; i < chunks; i++) {
+      containers[i].clear();
+    }
+    size = 0;
+    ranked = false;
+  }
+
+  /**
+   * @return approximate bytes held by the keys and containers
+   */
+  long getSizeInBytes() {
+    long bytes = (long) keys.length * Character.BYTES + (long) before.length * Integer.BYTES;
+    for (int i = 0; i < chunks; i++) {
+      Container container = containers[i];
+      bytes += container.words != null ? (long) container.words.length * Long.BYTES
+          : (long) container.values.length * Character.BYTES;
+    }
+    return bytes;
+  }
+
+  /**
+   * Private helper that opens an empty container for a chunk at a position of the sorted keys
+   */
+  private void insertChunk(int i, char key) {
+    if (chunks == keys.length) {
+      keys = Arrays.copyOf(keys, chunks * 2);
+      containers = Arrays.copyOf(containers, chunks * 2);
+    }
+    System.arraycopy(keys, i, keys, i + 1, chunks - i);
+    System.arraycopy(containers, i, containers, i + 1, chunks - i);
+    keys[i] = key;
+    containers[i] = new Container();
+    chunks++;
+    ranked = false;
+  }
+
+  /**
+   * Low 16 bits of the values of one chunk, a sorted array until it holds more than
+   * {@link #ARRAY_MAX} values and a bitmap after that
+   */
+  private static final class Container {
+
+    private char[] values = new char[4];
+    private long[] words;
+    private int cardinality = 0;
+
+    private boolean add(char low) {
+      if (words != null) {
+        long bit = 1L << low;
+        if ((words[low >>> 6] & bit) != 0) {
+          return false;
+        }
+        words[low >>> 6] |= bit;
+        cardinality++;
+        return true;
+      }
+      int i = Arrays.binarySearch(values, 0, cardinality, low);
+      if (i >= 0) {
+        return false;
+      }
+      if (cardinality == ARRAY_MAX) {
+        toBitmap();
+        return add(low);
+      }
+      i = -i - 1;
+      if (cardinality == values.length) {
+        values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+      }
+      System.arraycopy(values, i, values, i + 1, cardinality - i);
+      values[i] = low;
+      cardinality++;
+      return true;
+    }
+
+    private boolean contains(char low) {
+      return words != null ? (words[low >>> 6] & (1L << low)) != 0
+          : Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+    }
+
+    /**
+     * @return values held that are less than or equal to low
+     */
+    private int rank(char low) {
+      if (words == null) {
+        int i = Arrays.binarySearch(values, 0, cardinality, low);
+        return i >= 0 ? i + 1 : -i - 1;
+      }
+      int rank = 0;
+      for (int w = 0; w < low >>> 6; w++) {
+        rank += Long.bitCount(words[w]);
+      }
+      return rank + Long.bitCount(words[low >>> 6] & (-1L >>> (63 - (low & 63))));
+    }
+
+    private void clear() {
+      if (words != null) {
+        Arrays.fill(words, 0L);
+      }
+      cardinality = 0;
+    }
+
+    /**
+     * Private helper that moves a full array into a bitmap
+     */
+    private void toBitmap() {
+      words = new long[BITMAP_WORDS];
+      for (int i = 0; i < cardinality; i++) {
+        words[values[i] >>> 6] |= 1L << values[i];
+      }
+      values = null;
+    }
+  }
+}
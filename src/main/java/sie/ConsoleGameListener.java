@@ -0,0 +1,65 @@
+package sie;
+
+import java.io.PrintStream;
+
+/**
+ * Listener that prints the game to the console, or to any other stream
+ */
+public class ConsoleGameListener implements GameListener {
+
+  private final PrintStream out;
+
+  /**
+   * Listener printing to standard out
+   */
+  public ConsoleGameListener() {
+    this(System.out);
+  }
+
+  /**
+   * @param out stream the game is printed to
+   */
+  public ConsoleGameListener(PrintStream out) {
+    this.out = out;
+  }
+
+  @Override
+  public void onGeneratingTickets(int tickets) {
+    out.println("   *** Generating Players and Tickets ***");
+  }
+
+  @Override
+  public void onTicketsGenerated(int tickets) {
+    out.println("   *** Players and Tickets Generated ***");
+  }
+
+  @Override
+  public void onNumberDrawn(int number, int draw) {
+    out.println("Next number is: " + number);
+  }
+
+  @Override
+  public void onPrizeWon(Prize prize, int playerId, int draw) {
+    out.print("\nWe have a winner! ");
+    out.println("Player " + playerId + " has the '" + displayName(prize) + "' winning combination\n");
+  }
+
+  @Override
+  public void onGameOver(int draws) {
+    out.println("***** Game Over *****");
+  }
+
+  @Override
+  public void flush() {
+    out.flush();
+  }
+
+  /**
+   * @return name of the prize as the console has always announced it, where Early Five is First Five
+   */
+  private static String displayName(Prize prize) {
+    return prize.getPattern() == PrizePattern.EARLY_FIVE
+        ? prize.getName().replace(PrizePattern.EARLY_FIVE.getName(), "First Five")
+        : prize.getName();
+  }
+}
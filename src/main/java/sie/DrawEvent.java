@@ -0,0 +1,35 @@
+package sie;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering one call of {@link Housie#callNumber()}, its duration is the draw
+ * latency
+ */
+@Name("sie.Draw")
+@Label("Housie Draw")
+@Category("Housie")
+@Description("A number drawn and checked against every ticket holding it")
+final class DrawEvent extends Event {
+
+  @Label("Number")
+  int number;
+
+  @Label("Draw")
+  int draw;
+
+  @Label("Hits")
+  @Description("Tickets holding the number")
+  int hits;
+
+  @Label("Completions")
+  @Description("Patterns completed by the draw")
+  int completions;
+
+  @Label("Prizes Won")
+  int prizesWon;
+}
@@ -0,0 +1,149 @@
+package sie;
+
+/**
+ * Histogram of the draw on which something happened in a game, one bucket per draw. Histograms built
+ * on different threads can be merged, so a simulation never has to keep the result of each game.
+ */
+public final class DrawHistogram {
+
+  // counts[d] is how many games recorded draw d
+  private final long[] counts;
+  private long total = 0;
+  private long sum = 0;
+  private long sumOfSquares = 0;
+
+  /**
+   * @param maxDraw highest draw that can be recorded, normally the range of the game, at most
+   *                {@link Housie#HUGE_RANGE}
+   */
+  public DrawHistogram(int maxDraw) {
+    if (maxDraw < 0 || maxDraw > Housie.HUGE_RANGE) {
+      throw new IllegalArgumentException("A histogram covers between 0 and " + Housie.HUGE_RANGE + " draws");
+    }
+    this.counts = new long[maxDraw + 1];
+  }
+
+  /**
+   * Records one game
+   *
+   * @param draw draw on which the event happened, starting at 1
+   */
+  public void record(int draw) {
+    counts[draw]++;
+    total++;
+    sum += draw;
+    sumOfSquares += (long) draw * draw;
+  }
+
+  /**
+   * Adds every game recorded by another histogram of the same size to this one
+   *
+   * @param other histogram to merge in
+   */
+  public void merge(DrawHistogram other) {
+    if (other.counts.length != counts.length) {
+      throw new IllegalArgumentException("Histograms must cover the same draws");
+    }
+    for (int d = 0; d < counts.length; d++) {
+      counts[d] += other.counts[d];
+    }
+    total += other.total;
+    sum += other.sum;
+    sumOfSquares += other.sumOfSquares;
+  }
+
+  /**
+   * @return number of games recorded
+   */
+  public long getCount() {
+    return total;
+  }
+
+  /**
+   * @param draw draw to look up
+   * @return number of games that recorded exactly this draw
+   */
+  public long getCount(int draw) {
+    return counts[draw];
+  }
+
+  /**
+   * @return highest draw that can be recorded
+   */
+  public int getMaxDraw() {
+    return counts.length - 1;
+  }
+
+  /**
+   * @return average draw, 0 when nothing was recorded
+   */
+  public double getMean() {
+    return total == 0 ? 0 : (double) sum / total;
+  }
+
+  /**
+   * @return sample standard deviation of the draw, 0 with fewer than two games recorded
+   */
+  public double getStandardDeviation() {
+    if (total < 2) {
+      return 0;
+    }
+    double mean = getMean();
+    return Math.sqrt(Math.max(0, (sumOfSquares - total * mean * mean) / (total - 1)));
+  }
+
+  /**
+   * @return lowest draw recorded, 0 when nothing was recorded
+   */
+  public int getMin() {
+    for (int d = 0; d < counts.length; d++) {
+      if (counts[d] > 0) {
+        return d;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @return highest draw recorded, 0 when nothing was recorded
+   */
+  public int getMax() {
+    for (int d = counts.length - 1; d >= 0; d--) {
+      if (counts[d] > 0) {
+        return d;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @param percentile value between 0 and 100
+   * @return lowest draw by which at least that percentage of the games had recorded, 0 when empty
+   */
+  public int getPercentile(double percentile) {
+    long needed = (long) Math.ceil(total * percentile / 100.0);
+    long seen = 0;
+    for (int d = 0; d < counts.length; d++) {
+      seen += counts[d];
+      if (seen >= needed && seen > 0) {
+        return d;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @param draw draw to look up
+   * @return fraction of the games that recorded on or before the draw
+   */
+  public double getProbabilityBy(int draw) {
+    if (total == 0) {
+      return 0;
+    }
+    long seen = 0;
+    for (int d = 0; d <= Math.min(draw, counts.length - 1); d++) {
+      seen += counts[d];
+    }
+    return (double) seen / total;
+  }
+}
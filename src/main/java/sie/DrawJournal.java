@@ -0,0 +1,315 @@
+package sie;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only journal of the draws and prize awards of a game, so a game interrupted by a crash can be
+ * recovered rather than voided. The journal listens to the game like any other listener and must see
+ * events on the calling thread, not through an {@link AsyncGameListener}. Every value is a little-endian
+ * 32 bit int:
+ * <pre>
+ * header   magic, version, range, tickets, prizes, reserved...
+ * records  type, then three values: DRAW number draw, PRIZE prize playerId draw, OVER draws
+ * </pre>
+ * Records are buffered and written in batches. How often they are forced to the disk is set by the
+ * {@link Sync} policy. A record torn by a crash is dropped when the journal is opened again.
+ */
+public final class DrawJournal implements GameListener, Closeable {
+
+  /**
+   * When journal writes are forced to the storage device
+   */
+  public enum Sync {
+    // batches are written when the buffer fills, on flush, game over and close, the OS decides
+    // when they reach the disk
+    NONE,
+    // as NONE, and every batch is forced to the disk as it is written
+    BATCH,
+    // each draw is written and forced before its tickets are marked, with the prizes of the draw
+    // before it
+    EVERY_DRAW
+  }
+
+  // "HDJ1" read as a little-endian int
+  static final int MAGIC = 0x314A4448;
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 8 * Integer.BYTES;
+  static final int RECORD_BYTES = 4 * Integer.BYTES;
+
+  private static final int DRAW = 1;
+  private static final int PRIZE = 2;
+  private static final int OVER = 3;
+  private static final int BUFFER_BYTES = 256 * RECORD_BYTES;
+
+  private final FileChannel channel;
+  private final Sync sync;
+  private final int range;
+  private final int tickets;
+  private final int prizeCount;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+  // end of the journal in the file, records are written from here
+  private long position;
+  private List<Prize> prizes;
+  // what the journal held when it was opened
+  private final int[] journaledDraws;
+  private final int[] journaledPrizes;
+  private final boolean journaledOver;
+
+  /**
+   * Private constructor, use {@link #create} or {@link #open}
+   */
+  private DrawJournal(FileChannel channel, Sync sync, int range, int tickets, int prizeCount, long position,
+      int[] journaledDraws, int[] journaledPrizes, boolean journaledOver) {
+    this.channel = channel;
+    this.sync = sync;
+    this.range = range;
+    this.tickets = tickets;
+    this.prizeCount = prizeCount;
+    this.position = position;
+    this.journaledDraws = journaledDraws;
+    this.journaledPrizes = journaledPrizes;
+    this.journaledOver = journaledOver;
+  }
+
+  /**
+   * Starts the journal of a new game, pass it to the game as its listener or one of them
+   *
+   * @param path    journal to create, replaced if it exists
+   * @param tickets tickets of the game
+   * @param prizes  prizes of the game, in the order the game is given them
+   * @param sync    when writes are forced to the disk
+   * @return empty journal
+   * @throws IOException if the file cannot be written
+   */
+  public static DrawJournal create(Path path, TicketStore tickets, List<Prize> prizes, Sync sync) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+    DrawJournal journal = new DrawJournal(channel, sync, tickets.getRange(), tickets.size(), prizes.size(),
+        HEADER_BYTES, new int[0], new int[0], false);
+    journal.prizes = List.copyOf(prizes);
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    // the reserved values are left as zeros
+    header.putInt(MAGIC).putInt(VERSION).putInt(journal.range).putInt(journal.tickets).putInt(journal.prizeCount)
+        .rewind();
+    try {
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+      if (sync != Sync.NONE) {
+        channel.force(true);
+      }
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    return journal;
+  }
+
+  /**
+   * Opens the journal of an interrupted game. A torn record at the end is cut off so new records
+   * follow the last complete one.
+   *
+   * @param path journal to open
+   * @param sync when writes are forced to the disk from now on
+   * @return journal holding what was recorded before the game was interrupted
+   * @throws IOException if the file cannot be read or is not a draw journal
+   */
+  public static DrawJournal open(Path path, Sync sync) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(path + " is not a draw journal");
+      }
+      ByteBuffer content = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+      while (content.hasRemaining() && channel.read(content, content.position()) >= 0) {
+        // read the whole journal, it is at most a few records per number in the range
+      }
+      content.flip();
+      if (content.getInt() != MAGIC) {
+        throw new IOException(path + " is not a draw journal");
+      }
+      int version = content.getInt();
+      if (version != VERSION) {
+        throw new IOException(path + " has unsupported version " + version);
+      }
+      int range = content.getInt();
+      int tickets = content.getInt();
+      int prizeCount = content.getInt();
+      if (range < 1 || tickets < 0 || prizeCount < 1 || prizeCount > Housie.MAXIMUM_PRIZES) {
+        throw new IOException(path + " has an invalid header");
+      }
+      content.position(HEADER_BYTES);
+
+      // a huge range is not read ahead of the records actually in the journal
+      int[] draws = new int[Math.min(range, content.remaining() / RECORD_BYTES)];
+      int drawCount = 0;
+      int[] prizes = new int[3 * prizeCount];
+      int prizeRecords = 0;
+      boolean over = false;
+      while (content.remaining() >= RECORD_BYTES) {
+        int type = content.getInt(content.position());
+        int first = content.getInt(content.position() + Integer.BYTES);
+        int second = content.getInt(content.position() + 2 * Integer.BYTES);
+        int third = content.getInt(content.position() + 3 * Integer.BYTES);
+        if (type == DRAW && drawCount < draws.length && second == drawCount + 1) {
+          draws[drawCount++] = first;
+        } else if (type == PRIZE && prizeRecords < prizeCount && first >= 0 && first < prizeCount) {
+          prizes[3 * prizeRecords] = first;
+          prizes[3 * prizeRecords + 1] = second;
+          prizes[3 * prizeRecords + 2] = third;
+          prizeRecords++;
+        } else if (type == OVER && !over) {
+          over = true;
+        } else {
+          // anything else was torn by the crash
+          break;
+        }
+        content.position(content.position() + RECORD_BYTES);
+      }
+      long end = content.position();
+      if (end < channel.size()) {
+        channel.truncate(end);
+      }
+      return new DrawJournal(channel, sync, range, tickets, prizeCount, end, Arrays.copyOf(draws, drawCount),
+          Arrays.copyOf(prizes, 3 * prizeRecords), over);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * @return numbers the journal held when it was opened, in the order they were called
+   */
+  public int[] getDraws() {
+    return journaledDraws.clone();
+  }
+
+  /**
+   * Rebuilds the interrupted game. The journaled numbers are replayed through the game's bulk marking
+   * path without reaching the listener, the prizes that come out are checked against the journaled
+   * ones, and the journal records the game from there on.
+   *
+   * @param tickets  tickets of the game, as they were when it started
+   * @param draws    draw sequence calling the journaled numbers first, such as the original seeded
+   *                 sequence or a {@link ShuffledDrawSequence} started from {@link #getDraws()}
+   * @param prizes   prizes of the game, in the order it was given them
+   * @param listener receives the events of the game after the recovered draws
+   * @return game positioned after the last journaled draw
+   * @throws IOException if the journal does not belong to these tickets and prizes or cannot be written
+   * @throws IllegalStateException if the draw sequence does not call the journaled numbers first
+   */
+  public Housie recover(TicketStore tickets, DrawSequence draws, List<Prize> prizes, GameListener listener)
+      throws IOException {
+    if (tickets.getRange() != range || tickets.size() != this.tickets || prizes.size() != prizeCount) {
+      throw new IOException("Journal was written for " + this.tickets + " tickets up to " + range + " and "
+          + prizeCount + " prizes");
+    }
+    this.prizes = List.copyOf(prizes);
+    Housie housie = new Housie(tickets, draws, prizes, GameListener.all(this, listener));
+    housie.replay(journaledDraws);
+
+    boolean[] journaled = new boolean[prizeCount];
+    for (int i = 0; i < journaledPrizes.length; i += 3) {
+      int prize = journaledPrizes[i];
+      if (housie.getPrizeWinner(prize) != journaledPrizes[i + 1] || housie.getPrizeDraw(prize) != journaledPrizes[i + 2]) {
+        throw new IOException("Journal gives " + prizes.get(prize).getName() + " to player " + journaledPrizes[i + 1]
+            + " but the tickets give it to player " + housie.getPrizeWinner(prize));
+      }
+      journaled[prize] = true;
+    }
+    // only the records of the last draw can have been lost, write them again
+    for (int prize = 0; prize < prizeCount; prize++) {
+      if (!journaled[prize] && housie.getPrizeWinner(prize) > 0) {
+        append(PRIZE, prize, housie.getPrizeWinner(prize), housie.getPrizeDraw(prize));
+      }
+    }
+    if (housie.isOver() && !journaledOver) {
+      append(OVER, housie.getTotalNumbersCalled(), 0, 0);
+    }
+    writeBatch();
+    return housie;
+  }
+
+  @Override
+  public void onNumberDrawn(int number, int draw) {
+    append(DRAW, number, draw, 0);
+    if (sync == Sync.EVERY_DRAW) {
+      writeBatch();
+    }
+  }
+
+  @Override
+  public void onPrizeWon(Prize prize, int playerId, int draw) {
+    append(PRIZE, prizes.indexOf(prize), playerId, draw);
+  }
+
+  @Override
+  public void onGameOver(int draws) {
+    append(OVER, draws, 0, 0);
+    writeBatch();
+  }
+
+  @Override
+  public void flush() {
+    writeBatch();
+  }
+
+  /**
+   * Writes what is left and closes the file
+   *
+   * @throws IOException if the file cannot be written
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      writeBatch();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Private helper that buffers one record
+   */
+  private void append(int type, int first, int second, int third) {
+    if (buffer.remaining() < RECORD_BYTES) {
+      writeBatch();
+    }
+    buffer.putInt(type).putInt(first).putInt(second).putInt(third);
+  }
+
+  /**
+   * Private helper that writes the buffered records at the end of the journal, a failure stops the
+   * game since draws that are not journaled could not be recovered
+   */
+  private void writeBatch() {
+    if (buffer.position() == 0) {
+      return;
+    }
+    buffer.flip();
+    try {
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer, position);
+      }
+      if (sync != Sync.NONE) {
+        channel.force(false);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write the draw journal", e);
+    } finally {
+      buffer.clear();
+    }
+  }
+}
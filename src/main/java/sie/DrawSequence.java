@@ -0,0 +1,54 @@
+package sie;
+
+import java.util.SplittableRandom;
+
+/**
+ * Order in which the numbers of a game are called. Every number in the range is returned exactly once.
+ */
+public interface DrawSequence {
+
+  /**
+   * Shuffled order of a range, kept as a full deck up to {@link Housie#HUGE_RANGE} and sparse above it
+   * so a huge range only costs memory for the numbers called
+   *
+   * @param range  top end of the numbers to call
+   * @param random source of randomness, owned by the sequence from now on
+   * @return {@link ShuffledDrawSequence} or {@link SparseDrawSequence}
+   */
+  static DrawSequence shuffled(int range, SplittableRandom random) {
+    return range <= Housie.HUGE_RANGE ? new ShuffledDrawSequence(range, random) : new SparseDrawSequence(range, random);
+  }
+
+  /**
+   * @return top end of the numbers in the sequence
+   */
+  int getRange();
+
+  /**
+   * @return true if there are numbers left to call
+   */
+  boolean hasNext();
+
+  /**
+   * Calls the next number
+   *
+   * @return next number, between 1 and the range
+   * @throws IllegalStateException if every number has been called
+   */
+  int next();
+
+  /**
+   * @return the numbers called so far, in the order they were called
+   */
+  int[] getCalledNumbers();
+
+  /**
+   * Starts the sequence again from its first draw so it can be reused for another game without
+   * allocating
+   *
+   * @throws UnsupportedOperationException if the sequence cannot be restarted
+   */
+  default void reset() {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be restarted");
+  }
+}
@@ -0,0 +1,48 @@
+package sie;
+
+/**
+ * Canonical 64 bit fingerprints of tickets. Two tickets holding the same numbers in the same rows get
+ * the same fingerprint whatever columns the numbers sit in, since the grid does not change what a
+ * ticket can win.
+ */
+final class Fingerprints {
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private Fingerprints() {
+  }
+
+  /**
+   * Fingerprints a ticket. Each row is hashed as a set, so the order of its slots does not matter,
+   * then the rows are combined in order.
+   *
+   * @param store  store holding the ticket
+   * @param ticket ticket index
+   * @return fingerprint of the ticket
+   */
+  static long of(TicketStore store, int ticket) {
+    int numbersPerRow = store.getNumbersPerRow();
+    int slot = ticket * store.getNumbersPerTicket();
+    long hash = 0;
+    for (int i = 0; i < store.getRows(); i++) {
+      long row = 0;
+      for (int j = 0; j < numbersPerRow; j++, slot++) {
+        row += mix(store.number(slot));
+      }
+      hash = mix(hash * GOLDEN_GAMMA + row);
+    }
+    return hash;
+  }
+
+  /**
+   * Scrambles the bits of a value, the finalizer of SplitMix64
+   *
+   * @param value value to scramble
+   * @return scrambled value
+   */
+  static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+    value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+    return value ^ (value >>> 31);
+  }
+}
@@ -0,0 +1,60 @@
+package sie;
+
+/**
+ * Draw sequence that replays a known order, such as one exported from {@link ShuffledDrawSequence}
+ */
+public class FixedDrawSequence implements DrawSequence {
+
+  private final int[] order;
+  private final int range;
+  private int drawn = 0;
+
+  /**
+   * @param range top end of the numbers in the order
+   * @param order numbers to call, each between 1 and the range and none repeated
+   */
+  public FixedDrawSequence(int range, int[] order) {
+    // sized by the order rather than the range, which may be huge
+    CompressedBitmap seen = new CompressedBitmap();
+    for (int number : order) {
+      if (number < 1 || number > range || !seen.add(number)) {
+        throw new IllegalArgumentException("Draw order must hold unique numbers between 1 and " + range);
+      }
+    }
+    this.order = order.clone();
+    this.range = range;
+  }
+
+  @Override
+  public int getRange() {
+    return range;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return drawn < order.length;
+  }
+
+  @Override
+  public int next() {
+    if (!hasNext()) {
+      throw new IllegalStateException("Every number in the draw order has been called");
+    }
+    return order[drawn++];
+  }
+
+  /**
+   * Calls the same order again from the start
+   */
+  @Override
+  public void reset() {
+    drawn = 0;
+  }
+
+  @Override
+  public int[] getCalledNumbers() {
+    int[] called = new int[drawn];
+    System.arraycopy(order, 0, called, 0, drawn);
+    return called;
+  }
+}
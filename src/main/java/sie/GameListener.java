@@ -0,0 +1,119 @@
+package sie;
+
+/**
+ * Receives the events of a game. Events are delivered on the thread calling {@link Housie#callNumber()}
+ * so implementations should return quickly, {@link AsyncGameListener} moves slow work to a thread of
+ * its own. Every method does nothing by default.
+ */
+public interface GameListener {
+
+  /**
+   * Listener that ignores every event
+   */
+  GameListener NONE = new GameListener() {
+  };
+
+  /**
+   * Combines listeners into one
+   *
+   * @param listeners listeners to send every event to, in order
+   * @return listener forwarding each event to every listener
+   */
+  static GameListener all(GameListener... listeners) {
+    GameListener[] targets = listeners.clone();
+    return new GameListener() {
+
+      @Override
+      public void onGeneratingTickets(int tickets) {
+        for (GameListener target : targets) {
+          target.onGeneratingTickets(tickets);
+        }
+      }
+
+      @Override
+      public void onTicketsGenerated(int tickets) {
+        for (GameListener target : targets) {
+          target.onTicketsGenerated(tickets);
+        }
+      }
+
+      @Override
+      public void onNumberDrawn(int number, int draw) {
+        for (GameListener target : targets) {
+          target.onNumberDrawn(number, draw);
+        }
+      }
+
+      @Override
+      public void onPrizeWon(Prize prize, int playerId, int draw) {
+        for (GameListener target : targets) {
+          target.onPrizeWon(prize, playerId, draw);
+        }
+      }
+
+      @Override
+      public void onGameOver(int draws) {
+        for (GameListener target : targets) {
+          target.onGameOver(draws);
+        }
+      }
+
+      @Override
+      public void flush() {
+        for (GameListener target : targets) {
+          target.flush();
+        }
+      }
+    };
+  }
+
+  /**
+   * Called before the tickets of a game are dealt, by whoever deals them. Games started with tickets
+   * that already exist skip it.
+   *
+   * @param tickets number of tickets about to be dealt
+   */
+  default void onGeneratingTickets(int tickets) {
+  }
+
+  /**
+   * Called once the tickets of the game are ready
+   *
+   * @param tickets number of tickets in the game
+   */
+  default void onTicketsGenerated(int tickets) {
+  }
+
+  /**
+   * Called when a number is drawn, before any ticket is marked
+   *
+   * @param number number that was drawn
+   * @param draw   how many numbers have been drawn including this one
+   */
+  default void onNumberDrawn(int number, int draw) {
+  }
+
+  /**
+   * Called when a prize is won
+   *
+   * @param prize    prize that was won
+   * @param playerId id of the winning player
+   * @param draw     draw on which the prize was won
+   */
+  default void onPrizeWon(Prize prize, int playerId, int draw) {
+  }
+
+  /**
+   * Called once when the game is over
+   *
+   * @param draws how many numbers were drawn in the game
+   */
+  default void onGameOver(int draws) {
+  }
+
+  /**
+   * Called after a batch of events so buffered output can be written out
+   */
+  default void flush() {
+  }
+}
@@ -0,0 +1,119 @@
+package sie;
+
+import java.util.Arrays;
+
+/**
+ * Resolves a whole game in one pass when the draw order is known up front. Instead of stepping through
+ * the draws, the position of every number in the order is looked up once. For each ticket the draw on
+ * which it reaches five hits is the fifth smallest position of its numbers, the draw on which it
+ * completes its top line is the largest position in the top row, and the draw on which it completes
+ * the ticket is the largest position overall. The winner of each prize is the ticket with the smallest
+ * such draw, ties going to the lowest player id just like {@link Housie#callNumber()}.
+ * <p>
+ * Above {@link Housie#HUGE_RANGE} the positions are kept in a hash map of the numbers drawn, so the
+ * lookup is sized by the draw order rather than by the range.
+ */
+public final class GameResolver {
+
+  // position of a number that is never called
+  private static final int NEVER = Integer.MAX_VALUE;
+
+  private GameResolver() {
+  }
+
+  /**
+   * Resolves a game without marking anything on the tickets
+   *
+   * @param tickets   store holding one ticket per player, player i holds ticket i - 1
+   * @param drawOrder numbers in the order they are called, may stop before the end of the range
+   * @return winners of the game
+   */
+  public static GameResult resolve(TicketStore tickets, int[] drawOrder) {
+    // position[n] is the draw on which n is called, starting at 1
+    int range = tickets.getRange();
+    int[] position = range > Housie.HUGE_RANGE ? null : new int[range + 1];
+    IntIntHashMap drawn = position == null ? new IntIntHashMap(drawOrder.length) : null;
+    if (position != null) {
+      Arrays.fill(position, NEVER);
+    }
+    for (int draw = 0; draw < drawOrder.length; draw++) {
+      if (position != null) {
+        position[drawOrder[draw]] = draw + 1;
+      } else {
+        drawn.put(drawOrder[draw], draw + 1);
+      }
+    }
+
+    int perTicket = tickets.getNumbersPerTicket();
+    int perRow = tickets.getNumbersPerRow();
+    boolean earlyFivePossible = perTicket >= Housie.EARLY_FIVE;
+    // the five smallest positions seen on the current ticket, kept sorted
+    int[] smallest = new int[Housie.EARLY_FIVE];
+    int[] best = {NEVER, NEVER, NEVER};
+    int[] winner = new int[3];
+    int[] ties = new int[3];
+
+    int slot = 0;
+    for (int ticket = 0; ticket < tickets.size(); ticket++) {
+      int topLine = 0;
+      int fullHouse = 0;
+      int kept = 0;
+      for (int k = 0; k < perTicket; k++, slot++) {
+        int number = tickets.number(slot);
+        int p = position != null ? position[number] : drawn.get(number, NEVER);
+        fullHouse = Math.max(fullHouse, p);
+        if (k < perRow) {
+          topLine = Math.max(topLine, p);
+        }
+        if (earlyFivePossible && (kept < smallest.length || p < smallest[kept - 1])) {
+          // insertion into the sorted five smallest positions
+          int i = Math.min(kept, smallest.length - 1);
+          for (; i > 0 && smallest[i - 1] > p; i--) {
+            smallest[i] = smallest[i - 1];
+          }
+          smallest[i] = p;
+          kept = Math.min(kept + 1, smallest.length);
+        }
+      }
+      int earlyFive = earlyFivePossible ? smallest[Housie.EARLY_FIVE - 1] : NEVER;
+      consider(0, earlyFive, ticket, best, winner, ties);
+      consider(1, topLine, ticket, best, winner, ties);
+      consider(2, fullHouse, ticket, best, winner, ties);
+    }
+
+    return new GameResult(drawOf(best[0]), playerOf(best[0], winner[0]), ties[0],
+        drawOf(best[1]), playerOf(best[1], winner[1]), ties[1],
+        drawOf(best[2]), playerOf(best[2], winner[2]), ties[2]);
+  }
+
+  /**
+   * Private helper that keeps the earliest draw for a prize, the first ticket to reach it and the
+   * number of tickets that reached it on that draw
+   */
+  private static void consider(int prize, int draw, int ticket, int[] best, int[] winner, int[] ties) {
+    if (draw == NEVER) {
+      return;
+    }
+    if (draw < best[prize]) {
+      best[prize] = draw;
+      winner[prize] = ticket;
+      ties[prize] = 1;
+    } else if (draw == best[prize]) {
+      ties[prize]++;
+    }
+  }
+
+  /**
+   * @return draw of a prize, 0 if it was never reached
+   */
+  private static int drawOf(int best) {
+    return best == NEVER ? 0 : best;
+  }
+
+  /**
+   * @return player id of a winning ticket, 0 if the prize was never reached
+   */
+  private static int playerOf(int best, int ticket) {
+    return best == NEVER ? 0 : ticket + 1;
+  }
+}
@@ -0,0 +1,108 @@
+package sie;
+
+/**
+ * Final outcome of a game: for each prize the draw on which it was won, the player who won it and how
+ * many players completed it on that same draw. A prize that was never won has draw 0 and player 0.
+ */
+public final class GameResult {
+
+  private final int earlyFiveDraw;
+  private final int earlyFiveWinner;
+  private final int earlyFiveTies;
+  private final int topLineDraw;
+  private final int topLineWinner;
+  private final int topLineTies;
+  private final int fullHouseDraw;
+  private final int fullHouseWinner;
+  private final int fullHouseTies;
+
+  /**
+   * Parameterized constructor, winners are player ids and ties count every player that completed the
+   * prize on the winning draw, the winner included
+   */
+  GameResult(int earlyFiveDraw, int earlyFiveWinner, int earlyFiveTies, int topLineDraw, int topLineWinner,
+      int topLineTies, int fullHouseDraw, int fullHouseWinner, int fullHouseTies) {
+    this.earlyFiveDraw = earlyFiveDraw;
+    this.earlyFiveWinner = earlyFiveWinner;
+    this.earlyFiveTies = earlyFiveTies;
+    this.topLineDraw = topLineDraw;
+    this.topLineWinner = topLineWinner;
+    this.topLineTies = topLineTies;
+    this.fullHouseDraw = fullHouseDraw;
+    this.fullHouseWinner = fullHouseWinner;
+    this.fullHouseTies = fullHouseTies;
+  }
+
+  /**
+   * @return draw on which early five was won, 0 if it was not won
+   */
+  public int getEarlyFiveDraw() {
+    return earlyFiveDraw;
+  }
+
+  /**
+   * @return id of the player who won early five, 0 if it was not won
+   */
+  public int getEarlyFiveWinner() {
+    return earlyFiveWinner;
+  }
+
+  /**
+   * @return number of players that reached five hits on the winning draw
+   */
+  public int getEarlyFiveTies() {
+    return earlyFiveTies;
+  }
+
+  /**
+   * @return draw on which top line was won, 0 if it was not won
+   */
+  public int getTopLineDraw() {
+    return topLineDraw;
+  }
+
+  /**
+   * @return id of the player who won top line, 0 if it was not won
+   */
+  public int getTopLineWinner() {
+    return topLineWinner;
+  }
+
+  /**
+   * @return number of players that completed their top line on the winning draw
+   */
+  public int getTopLineTies() {
+    return topLineTies;
+  }
+
+  /**
+   * @return draw on which full house was won, 0 if it was not won
+   */
+  public int getFullHouseDraw() {
+    return fullHouseDraw;
+  }
+
+  /**
+   * @return id of the player who won full house, 0 if it was not won
+   */
+  public int getFullHouseWinner() {
+    return fullHouseWinner;
+  }
+
+  /**
+   * @return number of players that completed their ticket on the winning draw
+   */
+  public int getFullHouseTies() {
+    return fullHouseTies;
+  }
+
+  /**
+   * @return draw on which the game ended, 0 if it could not end with the draws given
+   */
+  public int getGameOverDraw() {
+    if (topLineDraw == 0 || fullHouseDraw == 0) {
+      return 0;
+    }
+    return Math.max(earlyFiveDraw, Math.max(topLineDraw, fullHouseDraw));
+  }
+}
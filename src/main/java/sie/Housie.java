@@ -1,27 +1,59 @@
 package sie;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
-import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
- * Class for the Housie game
+ * Class for the Housie game. The prizes of a game are configurable, by default they are Early Five,
+ * Top Line and Full House.
  */
 public class Housie {
 
   public static final int EARLY_FIVE = 5;
+  // draws hitting fewer slots than this are always checked on the calling thread
+  public static final int PARALLEL_THRESHOLD = 1 << 14;
 
-  private final List<Player> players;
-  private final Random random;
-  private final Set<Integer> calledNumbers = new HashSet<>();
+  // prize flags are kept in an int for each ticket
+  public static final int MAXIMUM_PRIZES = Integer.SIZE;
+  // above this range the draws and the number index only keep the numbers in use, not the whole range
+  public static final int HUGE_RANGE = 1 << 16;
+
+  private static final int NO_WINNER = -1;
+  // smallest number of postings worth handing to a separate fork join task
+  private static final int MINIMUM_SHARD = 1 << 10;
+
+  private final TicketStore tickets;
+  private final PlayerTickets players;
+  private final NumberIndex numberIndex;
+  private final DrawSequence draws;
+  // numbers called so far, compressed so a huge range only costs the numbers called
+  private final CompressedBitmap calledNumbers = new CompressedBitmap();
   private final int range;
-  private final int numbersOnBoard;
   private int totalNumbersCalled = 0;
-  private boolean topLineWinner = false;
-  private boolean earlyFiveWinner = false;
-  private boolean fullHouseWinner = false;
+  private final List<Prize> prizes;
+  private final PatternEngine patterns;
+  // pattern evaluated for each prize
+  private final int[] patternOfPrize;
+  // ticket that won each prize and the draw it was won on, NO_WINNER and 0 while it is still open
+  private final int[] prizeWinner;
+  private final int[] prizeDraw;
+  // tickets that have completed each pattern so far, used to rank second and third winners
+  private final int[] completionsOfPattern;
+  private int prizesLeft;
+  // prizes that can be won on the tickets' shape, what prizesLeft starts from
+  private final int achievablePrizes;
+  private final PatternEngine.Completions completions = new PatternEngine.Completions();
+  // swapped for GameListener.NONE while a recovered game replays its draws
+  private GameListener listener;
+  private boolean gameOver = false;
+  private ForkJoinPool pool;
+  private int parallelThreshold = PARALLEL_THRESHOLD;
+  private HousieMetrics metrics;
 
   /**
    * Parameterized constructor
@@ -33,117 +65,556 @@ public class Housie {
    * @param numbersPerRow numbers contained in each row
    */
   public Housie(int range, int numOfPlayers, int rows, int columns, int numbersPerRow) {
-    this.players = new ArrayList<>();
-    this.random = new Random();
-    this.range = range;
-    this.numbersOnBoard = rows * numbersPerRow;
+    this(range, numOfPlayers, rows, columns, numbersPerRow, new ConsoleGameListener());
+  }
+
+  /**
+   * Private constructor that deals the tickets with the listener told first
+   */
+  private Housie(int range, int numOfPlayers, int rows, int columns, int numbersPerRow, GameListener listener) {
+    this(deal(listener, numOfPlayers, rows, columns, numbersPerRow, range),
+        DrawSequence.shuffled(range, new SplittableRandom()), Prize.CLASSIC, listener);
+  }
+
+  /**
+   * Constructor for a game played with tickets that already exist. Player i holds ticket i - 1.
+   *
+   * @param tickets store holding one ticket per player
+   * @param draws   order in which the numbers are called
+   */
+  public Housie(TicketStore tickets, DrawSequence draws) {
+    this(tickets, draws, true);
+  }
+
+  /**
+   * Constructor for a game played with tickets that already exist. Player i holds ticket i - 1.
+   *
+   * @param tickets store holding one ticket per player
+   * @param draws   order in which the numbers are called
+   * @param verbose false to play the game without printing the draws and winners
+   */
+  public Housie(TicketStore tickets, DrawSequence draws, boolean verbose) {
+    this(tickets, draws, Prize.CLASSIC, verbose ? new ConsoleGameListener() : GameListener.NONE);
+  }
+
+  /**
+   * Constructor for a game with its own prizes. Prizes that can never be won on the tickets' shape,
+   * such as early five on a ticket with fewer than five numbers, are left out of the game.
+   *
+   * @param tickets store holding one ticket per player
+   * @param draws   order in which the numbers are called
+   * @param prizes  prizes of the game, at most {@link #MAXIMUM_PRIZES}
+   * @param verbose false to play the game without printing the draws and winners
+   */
+  public Housie(TicketStore tickets, DrawSequence draws, List<Prize> prizes, boolean verbose) {
+    this(tickets, draws, prizes, verbose ? new ConsoleGameListener() : GameListener.NONE);
+  }
+
+  /**
+   * Constructor for a game with its own prizes that reports its events to a listener. Prizes that can
+   * never be won on the tickets' shape are left out of the game.
+   *
+   * @param tickets  store holding one ticket per player
+   * @param draws    order in which the numbers are called
+   * @param prizes   prizes of the game, at most {@link #MAXIMUM_PRIZES}
+   * @param listener receives the events of the game
+   */
+  public Housie(TicketStore tickets, DrawSequence draws, List<Prize> prizes, GameListener listener) {
+    this(tickets, PlayerTickets.oneEach(tickets.size()), draws, prizes, listener);
+  }
+
+  /**
+   * Constructor for a game where players hold books of tickets. A drawn number only reaches the
+   * tickets holding it through the number index, so a player holding many tickets costs no more per
+   * draw than the tickets actually hit. Each ticket competes for the prizes on its own and the prize
+   * goes to the player holding it.
+   *
+   * @param tickets  store holding the tickets of every player
+   * @param players  tickets held by each player
+   * @param draws    order in which the numbers are called
+   * @param prizes   prizes of the game, at most {@link #MAXIMUM_PRIZES}
+   * @param listener receives the events of the game
+   */
+  public Housie(TicketStore tickets, PlayerTickets players, DrawSequence draws, List<Prize> prizes,
+      GameListener listener) {
+    if (players.getTicketCount() != tickets.size()) {
+      throw new IllegalArgumentException("Players must hold exactly the " + tickets.size() + " tickets of the store");
+    }
+    if (draws.getRange() != tickets.getRange()) {
+      throw new IllegalArgumentException("Draw sequence and tickets must cover the same range");
+    }
+    if (prizes.isEmpty() || prizes.size() > MAXIMUM_PRIZES) {
+      throw new IllegalArgumentException("A game needs between 1 and " + MAXIMUM_PRIZES + " prizes");
+    }
+    this.tickets = tickets;
+    this.players = players;
+    this.draws = draws;
+    this.listener = listener;
+    this.range = tickets.getRange();
+    this.numberIndex = new NumberIndex(tickets);
+    this.prizes = List.copyOf(prizes);
+
+    // prizes sharing a pattern share its counters
+    List<PrizePattern> distinct = new ArrayList<>();
+    this.patternOfPrize = new int[prizes.size()];
+    for (int k = 0; k < prizes.size(); k++) {
+      PrizePattern pattern = prizes.get(k).getPattern();
+      if (!distinct.contains(pattern)) {
+        distinct.add(pattern);
+      }
+      patternOfPrize[k] = distinct.indexOf(pattern);
+    }
+    this.patterns = new PatternEngine(distinct, tickets);
+    this.completionsOfPattern = new int[distinct.size()];
+    this.prizeWinner = new int[prizes.size()];
+    this.prizeDraw = new int[prizes.size()];
+    Arrays.fill(prizeWinner, NO_WINNER);
+    int achievable = 0;
+    for (int k = 0; k < prizes.size(); k++) {
+      if (patterns.isAchievable(patternOfPrize[k]) && prizes.get(k).getRank() <= tickets.size()) {
+        achievable++;
+      }
+    }
+    this.achievablePrizes = achievable;
+    this.prizesLeft = achievable;
+    listener.onTicketsGenerated(tickets.size());
+  }
+
+  /**
+   * Starts the game again on the same tickets. Marks, winners and called numbers are cleared in place
+   * and the draw sequence is restarted, so nothing is allocated.
+   *
+   * @throws UnsupportedOperationException if the draw sequence cannot be restarted
+   */
+  public void reset() {
+    draws.reset();
+    tickets.resetCounters();
+    restart();
+  }
 
-    System.out.println("   *** Generating Players and Tickets ***");
-    // create the amount of requested players and their ticket
-    for (int i = 0; i < numOfPlayers; i++) {
-      Ticket ticket = new Ticket(rows, columns, numbersPerRow, range);
-      // adding a player, player id id increased by 1 since i is 0 indexed
-      this.players.add(new Player(ticket, i + 1));
+  /**
+   * Starts a new game on freshly generated tickets of the same shape. The numbers are regenerated and
+   * the number index rebuilt in place, so a pooled game can be reused without allocating.
+   *
+   * @param random source of randomness for the new tickets
+   * @throws UnsupportedOperationException if the draw sequence cannot be restarted
+   * @throws java.nio.ReadOnlyBufferException if the tickets were mapped from a ticket book
+   */
+  public void reset(SplittableRandom random) {
+    draws.reset();
+    for (int ticket = 0; ticket < tickets.size(); ticket++) {
+      tickets.fillTicket(ticket, random);
     }
-    System.out.println("   *** Players and Tickets Generated ***");
+    numberIndex.rebuild(tickets);
+    restart();
   }
 
   /**
-   * Public method to call a random number. After the number is called, each player is checked
-   * for a hit. If the number is found on the players ticket it is marked and then the ticket
-   * is checked for a winning scenario.
+   * Sends the events of the game to another listener, typically when a pooled game is handed out
+   *
+   * @param listener receives the events of the game from now on
+   */
+  public void setListener(GameListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Private helper that clears the state of the game itself once the tickets are ready
+   */
+  private void restart() {
+    patterns.reset();
+    calledNumbers.clear();
+    Arrays.fill(prizeWinner, NO_WINNER);
+    Arrays.fill(prizeDraw, 0);
+    Arrays.fill(completionsOfPattern, 0);
+    totalNumbersCalled = 0;
+    prizesLeft = achievablePrizes;
+    gameOver = false;
+    listener.onTicketsGenerated(tickets.size());
+  }
+
+  /**
+   * Checks the tickets hit by each draw on a fork join pool when the draw hits at least threshold
+   * slots. Winners are the same as when checking on the calling thread.
+   *
+   * @param pool      pool running the checks, null to always check on the calling thread
+   * @param threshold fewest slots hit by a draw before the check is split across the pool
+   */
+  public void setParallelEvaluation(ForkJoinPool pool, int threshold) {
+    this.pool = pool;
+    this.parallelThreshold = threshold;
+  }
+
+  /**
+   * Records the latency and the hits of every draw
+   *
+   * @param metrics metrics to record into, possibly shared with other games, null for none
+   */
+  public void setMetrics(HousieMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Public method to call a random number. After the number is called, only the ticket slots holding
+   * the number are looked up through the number index. Each slot is marked and the pattern counters
+   * it touches are updated, then the patterns completed on this draw are awarded their prizes.
    *
    * @return if the game is over
    */
   public boolean callNumber() {
+    DrawEvent event = new DrawEvent();
+    event.begin();
+    long start = metrics == null ? 0 : System.nanoTime();
     int nextNumber = getNextNumber();
-    System.out.println("Next number is: " + nextNumber);
-    for (Player player : players) {
-      // if the number is a hit for the player, check to see if they won
-      if (player.checkNumber(nextNumber)) {
-        // check to see if at least five numbers have been called in order to be the early five winner
-        if (!earlyFiveWinner && totalNumbersCalled >= EARLY_FIVE && player.totalTicketHits() == EARLY_FIVE) {
-          player.setEarlyFiveWinner(true);
-          announceWinner(player, false, true, false);
-        }
-        // check to see if there hasnt already been a top line winner. If there hasnt been check the current player
-        if (!topLineWinner && player.isTopLineWinner()) {
-          announceWinner(player, true, false, false);
+    listener.onNumberDrawn(nextNumber, totalNumbersCalled);
+    int prizesWon = markNumber(nextNumber);
+    // check to see if the game is over
+    if (!gameOver && isGameOver()) {
+      gameOver = true;
+      listener.onGameOver(totalNumbersCalled);
+    }
+    if (metrics != null) {
+      metrics.recordDraw(System.nanoTime() - start, numberIndex.end(nextNumber) - numberIndex.start(nextNumber),
+          completions.size(), prizesWon);
+    }
+    if (event.shouldCommit()) {
+      event.number = nextNumber;
+      event.draw = totalNumbersCalled;
+      event.hits = numberIndex.end(nextNumber) - numberIndex.start(nextNumber);
+      event.completions = completions.size();
+      event.prizesWon = prizesWon;
+      event.commit();
+    }
+    return gameOver;
+  }
+
+  /**
+   * @return true once the game is over
+   */
+  public boolean isOver() {
+    return gameOver;
+  }
+
+  /**
+   * Replays the numbers called before a game was recovered. Each number is marked through the same
+   * index and counters as a live draw, so the winners come out the same, but no events reach the
+   * listener.
+   *
+   * @param numbers numbers called before the game was recovered, in order
+   * @throws IllegalStateException if the draw sequence does not call the same numbers
+   */
+  void replay(int[] numbers) {
+    GameListener live = listener;
+    listener = GameListener.NONE;
+    try {
+      for (int number : numbers) {
+        if (gameOver) {
+          throw new IllegalStateException("Game was over before every number was replayed");
         }
-        // check to see if there hasnt been a full house winner. If there hasnt, check the current player
-        if (!fullHouseWinner && player.isFullHouseWinner()) {
-          announceWinner(player, false, false, true);
+        int nextNumber = getNextNumber();
+        if (nextNumber != number) {
+          throw new IllegalStateException("Draw sequence called " + nextNumber + " where " + number + " was recorded");
         }
+        markNumber(nextNumber);
+        gameOver = isGameOver();
       }
+    } finally {
+      listener = live;
     }
-    // check to see if the game is over
-    return isGameOver();
+  }
+
+  /**
+   * Returns a view of a player in the game
+   *
+   * @param playerId id of the player, starting at 1
+   * @return player holding the tickets
+   */
+  public Player getPlayer(int playerId) {
+    int player = playerId - 1;
+    return new Player(tickets, players.firstTicket(player), players.ticketCount(player), playerId, prizes);
+  }
+
+  /**
+   * @return prizes of the game, prize k is flag {@code 1 << k} in the ticket store
+   */
+  public List<Prize> getPrizes() {
+    return prizes;
+  }
+
+  /**
+   * @param prize index of the prize
+   * @return id of the player who won the prize, 0 if it has not been won
+   */
+  public int getPrizeWinner(int prize) {
+    return prizeWinner[prize] == NO_WINNER ? 0 : players.playerOf(prizeWinner[prize]) + 1;
+  }
+
+  /**
+   * @param prize index of the prize
+   * @return index in the ticket store of the ticket that won the prize, -1 if it has not been won
+   */
+  public int getPrizeTicket(int prize) {
+    return prizeWinner[prize];
+  }
+
+  /**
+   * @param prize index of the prize
+   * @return draw on which the prize was won, 0 if it has not been won
+   */
+  public int getPrizeDraw(int prize) {
+    return prizeDraw[prize];
+  }
+
+  /**
+   * @param number number to look up
+   * @return true if the number has been called
+   */
+  public boolean isCalled(int number) {
+    return number >= 1 && number <= range && calledNumbers.contains(number);
+  }
+
+  /**
+   * @return the numbers called so far, in the order they were called
+   */
+  public int[] getCalledNumbers() {
+    return draws.getCalledNumbers();
+  }
+
+  /**
+   * @return how many numbers have been called so far
+   */
+  public int getTotalNumbersCalled() {
+    return totalNumbersCalled;
+  }
+
+  /**
+   * @return draw on which the early five prize was won, 0 if it has not been won
+   */
+  public int getEarlyFiveDraw() {
+    return getFirstPrizeDraw(PrizePattern.EARLY_FIVE);
+  }
+
+  /**
+   * @return draw on which the top line prize was won, 0 if it has not been won
+   */
+  public int getTopLineDraw() {
+    return getFirstPrizeDraw(PrizePattern.TOP_LINE);
+  }
+
+  /**
+   * @return draw on which the full house prize was won, 0 if it has not been won
+   */
+  public int getFullHouseDraw() {
+    return getFirstPrizeDraw(PrizePattern.FULL_HOUSE);
+  }
+
+  /**
+   * @return top end of available numbers for the game
+   */
+  public int getRange() {
+    return range;
+  }
+
+  /**
+   * @return number of players in the game
+   */
+  public int getNumberOfPlayers() {
+    return players.size();
+  }
+
+  /**
+   * @return store holding the tickets of the game
+   */
+  TicketStore getTickets() {
+    return tickets;
   }
 
   /**
    * Helper method that prints the summary after the game is over
    */
   public void printSummary() {
-    System.out.println("====================");
-    System.out.println("     Summary:");
-    for (Player player : players) {
-      player.printPlayerSummary();
+    printSummary(System.out);
+  }
+
+  /**
+   * Prints the summary after the game is over
+   *
+   * @param out stream the summary is printed to
+   */
+  public void printSummary(PrintStream out) {
+    out.println("====================");
+    out.println("     Summary:");
+    for (int playerId = 1; playerId <= players.size(); playerId++) {
+      getPlayer(playerId).printPlayerSummary(out);
     }
-    System.out.println("====================");
+    out.println("====================");
 
   }
 
   /**
-   * Check to see if the game is over. First checks to see if there is an early five winner OR the total
-   * numbers on each board is less than 5. Then it checks to see if there is a top line winner and a full
-   * house winner. If all three conditions evaluate to true, return that the game is over and exit
+   * Check to see if the game is over. The game is over once every prize that can be won on the tickets'
+   * shape has been won, or when there are no numbers left to call.
    *
-   * @return
+   * @return true if the game is over
    */
   private boolean isGameOver() {
-    return (earlyFiveWinner || numbersOnBoard < EARLY_FIVE) && topLineWinner && fullHouseWinner;
+    return prizesLeft == 0 || !draws.hasNext();
+  }
+
+  /**
+   * @return draw on which the first ticket to complete the pattern won, 0 if no such prize was won
+   */
+  private int getFirstPrizeDraw(PrizePattern pattern) {
+    for (int k = 0; k < prizes.size(); k++) {
+      if (prizes.get(k).getPattern() == pattern && prizes.get(k).getRank() == 1) {
+        return prizeDraw[k];
+      }
+    }
+    return 0;
   }
 
   /**
-   * Private helper function that randomly generates a random number in the range provided. 1 is added
-   * since the nextInt function is inclusive of 0 but exclusive of the top of the range. If the number
-   * has already been called, a new random number is generated until it is unique.
+   * Private helper function that takes the next number from the draw sequence and records it in the
+   * called number set. The sequence never repeats a number so there is nothing to retry.
    *
    * @return next number to be called
    */
   private int getNextNumber() {
-    int nextNumber = random.nextInt(range) + 1;
-    while (calledNumbers.contains(nextNumber)) {
-      nextNumber = random.nextInt(range) + 1;
-    }
+    int nextNumber = draws.next();
     calledNumbers.add(nextNumber);
     totalNumbersCalled++;
     return nextNumber;
   }
 
   /**
-   * Private helper function that announces the winner of a scenario and sets the boolean to true
-   * so that scenario is not considered anymore
+   * Private helper function that marks every slot holding a called number, only the slots listed in
+   * the number index are visited, and awards the prizes completed by those hits
    *
-   * @param player          Player that has won a scenario
-   * @param topLineWinner   true if winning 'Top Line'
-   * @param earlyFiveWinner true if winning 'Early Five'
-   * @param fullHouseWinner true if winning 'Full House'
+   * @param number number that was called
+   * @return number of prizes awarded
    */
-  private void announceWinner(Player player, boolean topLineWinner, boolean earlyFiveWinner, boolean fullHouseWinner) {
-    this.topLineWinner |= topLineWinner;
-    this.earlyFiveWinner |= earlyFiveWinner;
-    this.fullHouseWinner |= fullHouseWinner;
+  private int markNumber(int number) {
+    int start = numberIndex.start(number);
+    int end = numberIndex.end(number);
+    completions.clear();
+    if (pool != null && end - start >= parallelThreshold) {
+      completions.addAll(pool.invoke(new EvaluationTask(start, end)));
+    } else {
+      evaluate(start, end, completions);
+    }
+    return awardWinners(completions);
+  }
 
-    System.out.print("\nWe have a winner! ");
+  /**
+   * Private helper function that marks the slots between two posting positions and collects the
+   * patterns completed by those hits. Postings are sorted by slot so completions come out in order of
+   * player id.
+   *
+   * @param from first posting position, inclusive
+   * @param to   last posting position, exclusive
+   * @param out  receives the completed patterns
+   */
+  private void evaluate(int from, int to, PatternEngine.Completions out) {
+    int numbersPerTicket = tickets.getNumbersPerTicket();
+    for (int i = from; i < to; i++) {
+      int slot = numberIndex.posting(i);
+      // if the number is a hit for the ticket, update the counters it touches
+      if (tickets.markSlot(slot)) {
+        int ticket = tickets.ticketOf(slot);
+        patterns.onMark(ticket, slot - ticket * numbersPerTicket, out);
+      }
+    }
+  }
 
-    if (topLineWinner) {
-      System.out.println("Player " + player.getPlayerId() + " has the 'Top Line' winning combination\n");
-    } else if (earlyFiveWinner) {
-      System.out.println("Player " + player.getPlayerId() + " has the 'First Five' winning combination\n");
-    } else {
-      System.out.println("Player " + player.getPlayerId() + " has the 'Full House' winning combination\n");
+  /**
+   * Private helper function that awards prizes for the patterns completed on this draw. Completions
+   * are ranked in order, so the first ticket to complete a pattern wins the rank 1 prize, the next
+   * one the rank 2 prize and so on.
+   *
+   * @param completed patterns completed on this draw, in order of player id
+   * @return number of prizes awarded
+   */
+  private int awardWinners(PatternEngine.Completions completed) {
+    int awarded = 0;
+    for (int i = 0; i < completed.size(); i++) {
+      int pattern = completed.pattern(i);
+      int rank = ++completionsOfPattern[pattern];
+      for (int k = 0; k < prizes.size(); k++) {
+        if (patternOfPrize[k] == pattern && prizes.get(k).getRank() == rank && prizeWinner[k] == NO_WINNER) {
+          announceWinner(k, completed.ticket(i));
+          awarded++;
+        }
+      }
     }
+    return awarded;
   }
 
+  /**
+   * Private helper function that records the winner of a prize and announces it to the listener, so
+   * that prize is not considered anymore
+   *
+   * @param prize  index of the prize that was won
+   * @param ticket ticket that has won the prize
+   */
+  private void announceWinner(int prize, int ticket) {
+    prizeWinner[prize] = ticket;
+    prizeDraw[prize] = totalNumbersCalled;
+    prizesLeft--;
+    tickets.setPrize(ticket, 1 << prize, true);
+    listener.onPrizeWon(prizes.get(prize), players.playerOf(ticket) + 1, totalNumbersCalled);
+  }
+
+  /**
+   * Private helper that tells the listener tickets are about to be dealt and deals one per player
+   */
+  private static TicketStore deal(GameListener listener, int players, int rows, int columns, int numbersPerRow,
+      int range) {
+    listener.onGeneratingTickets(players);
+    return TicketStore.generate(players, rows, columns, numbersPerRow, range, new SplittableRandom());
+  }
+
+  /**
+   * Fork join task that checks a stretch of postings, splitting it in halves while it is large. The
+   * halves never share a word of the store's mark bitmap, and the completions of the right half are
+   * appended after those of the left half so they stay in order of player id.
+   */
+  private final class EvaluationTask extends RecursiveTask<PatternEngine.Completions> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+
+    private EvaluationTask(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected PatternEngine.Completions compute() {
+      int shard = Math.max(MINIMUM_SHARD, (to - from) / (pool.getParallelism() * 4));
+      if (to - from <= shard) {
+        return evaluateShard();
+      }
+      // move the split forward until both halves mark slots in different words
+      int mid = (from + to) >>> 1;
+      while (mid < to && (numberIndex.posting(mid) >>> 6) == (numberIndex.posting(mid - 1) >>> 6)) {
+        mid++;
+      }
+      if (mid == to) {
+        return evaluateShard();
+      }
+      EvaluationTask right = new EvaluationTask(mid, to);
+      right.fork();
+      PatternEngine.Completions completed = new EvaluationTask(from, mid).compute();
+      completed.addAll(right.join());
+      return completed;
+    }
+
+    private PatternEngine.Completions evaluateShard() {
+      PatternEngine.Completions completed = new PatternEngine.Completions();
+      evaluate(from, to, completed);
+      return completed;
+    }
+  }
 }
@@ -6,20 +6,28 @@ import java.io.InputStreamReader;
 
 public class HousieDriver {
 
-  private static final int COLUMNS_DEFAULT = 10;
+  static final int COLUMNS_DEFAULT = 10;
   private static final int COLUMNS_MINIMUM = 1;
   private static final String EMPTY_STRING = "";
   private static final String NUMBER_STRING = "N";
-  private static final int NUMBERS_PER_ROW_DEFAULT = 5;
+  static final int NUMBERS_PER_ROW_DEFAULT = 5;
   private static final int NUMBERS_PER_ROW_MINIMUM = 1;
-  private static final int PLAYERS_MINIMUM = 2;
-  private static final int RANGE_DEFAULT = 90;
+  static final int PLAYERS_MINIMUM = 2;
+  static final int RANGE_DEFAULT = 90;
   private static final int RANGE_MINIMUM = 1;
-  private static final int ROWS_DEFAULT = 3;
+  static final int ROWS_DEFAULT = 3;
   private static final int ROWS_MINIMUM = 1;
   private static final String QUIT_STRING = "Q";
 
   public static void main(String[] args) throws IOException {
+    // any flag switches to the scripted game, which reports its outcome as the exit code
+    if (args.length > 0) {
+      int status = HousieScript.run(args, System.in, System.out, System.err);
+      if (status != HousieScript.EXIT_OK) {
+        System.exit(status);
+      }
+      return;
+    }
 
     System.out.println(" **** Lets Play Housie ***** ");
     System.out.println();
@@ -54,7 +62,6 @@ public class HousieDriver {
     while (!(input = reader.readLine()).equalsIgnoreCase(QUIT_STRING)) {
       if (input.equalsIgnoreCase(NUMBER_STRING)) {
         if (housie.callNumber()) {
-          System.out.println("***** Game Over *****");
           housie.printSummary();
           break;
         }
@@ -202,6 +209,9 @@ public class HousieDriver {
         columns = Integer.parseInt(columnString);
         if (columns < COLUMNS_MINIMUM) {
           System.out.println("Please enter an integer greater than 0");
+        } else if (columns > TicketStore.MAX_COLUMNS) {
+          System.out.println("Please enter an integer no greater than " + TicketStore.MAX_COLUMNS);
+          columns = 0;
         }
       } catch (NumberFormatException e) {
         System.out.println("ERROR: Please enter a valid integer");
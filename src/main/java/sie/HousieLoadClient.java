@@ -0,0 +1,295 @@
+package sie;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator for {@link HousieServer}. Opens many non-blocking client connections from one
+ * selector thread, each joining and subscribing to one of the rooms, then plays every room to the end
+ * over a separate control connection and counts the lines pushed to the clients.
+ */
+public class HousieLoadClient {
+
+  private static final int RANGE = 90;
+  private static final int ROWS = 3;
+  private static final int COLUMNS = 10;
+  private static final int NUMBERS_PER_ROW = 5;
+  private static final long TIMEOUT_SECONDS = 60;
+
+  private final InetSocketAddress address;
+  private final int clients;
+  private final int rooms;
+  private final AtomicLong linesReceived = new AtomicLong();
+  // time from sending CALL to reading its DRAW, which the server sends after pushing the draw to every
+  // subscriber of the room
+  private final LatencyHistogram callLatency = new LatencyHistogram();
+  private long linesExpected = 0;
+  private long drawsCalled = 0;
+  private long elapsedNanos = 0;
+
+  /**
+   * Parameterized constructor
+   *
+   * @param host    host the server runs on
+   * @param port    port the server listens on
+   * @param clients number of client connections to open
+   * @param rooms   number of rooms the clients are spread over
+   */
+  public HousieLoadClient(String host, int port, int clients, int rooms) {
+    if (clients < 1 || rooms < 1) {
+      throw new IllegalArgumentException("Clients and rooms must be positive");
+    }
+    this.address = new InetSocketAddress(host, port);
+    this.clients = clients;
+    this.rooms = rooms;
+  }
+
+  /**
+   * Connects the clients, plays every room to the end and waits for the clients to receive every line
+   *
+   * @throws IOException          if the server cannot be reached
+   * @throws InterruptedException if interrupted while waiting for the clients
+   */
+  public void run() throws IOException, InterruptedException {
+    CountDownLatch subscribed = new CountDownLatch(clients);
+    try (Socket control = new Socket(address.getHostString(), address.getPort());
+        Selector selector = Selector.open()) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(control.getInputStream(), StandardCharsets.US_ASCII));
+      PrintWriter out = new PrintWriter(new OutputStreamWriter(control.getOutputStream(), StandardCharsets.US_ASCII), true);
+
+      int[] roomIds = new int[rooms];
+      int playersPerRoom = (clients + rooms - 1) / rooms;
+      for (int r = 0; r < rooms; r++) {
+        out.println("CREATE " + RANGE + " " + playersPerRoom + " " + ROWS + " " + COLUMNS + " " + NUMBERS_PER_ROW);
+        roomIds[r] = Integer.parseInt(expect(in, "ROOM")[1]);
+      }
+
+      for (int c = 0; c < clients; c++) {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(address);
+        channel.register(selector, SelectionKey.OP_CONNECT, new Client(roomIds[c % rooms]));
+      }
+      Thread reader = new Thread(() -> readClients(selector, subscribed), "housie-load-reader");
+      reader.start();
+      try {
+        if (!subscribed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+          throw new IOException("Clients did not subscribe in time, " + subscribed.getCount() + " left");
+        }
+
+        long start = System.nanoTime();
+        // every client receives its SUBSCRIBED and TICKET replies plus every line its room pushes
+        linesExpected = 2L * clients;
+        for (int r = 0; r < rooms; r++) {
+          int subscribers = clients / rooms + (r < clients % rooms ? 1 : 0);
+          linesExpected += (long) playRoom(in, out, roomIds[r]) * subscribers;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (linesReceived.get() < linesExpected && System.nanoTime() < deadline) {
+          Thread.sleep(1);
+        }
+        elapsedNanos = System.nanoTime() - start;
+        out.println("QUIT");
+      } finally {
+        reader.interrupt();
+        selector.wakeup();
+        reader.join();
+      }
+    }
+  }
+
+  /**
+   * Private helper that calls numbers in a room until the game is over
+   *
+   * @return number of lines the room pushed to its subscribers
+   */
+  private int playRoom(BufferedReader in, PrintWriter out, int room) throws IOException {
+    int lines = 0;
+    boolean over = false;
+    while (!over) {
+      long start = System.nanoTime();
+      out.println("CALL " + room);
+      // the WIN and OVER lines of a call arrive before the DRAW of the next one, a call after the
+      // game is over is answered with ERR
+      String line;
+      do {
+        line = in.readLine();
+        if (line == null) {
+          throw new IOException("Server closed the control connection");
+        }
+        if (line.startsWith("DRAW") || line.startsWith("WIN") || line.startsWith("OVER")) {
+          lines++;
+        }
+        over |= line.startsWith("OVER");
+      } while (!line.startsWith("DRAW") && !line.startsWith("ERR"));
+      if (line.startsWith("DRAW")) {
+        callLatency.record(System.nanoTime() - start);
+        drawsCalled++;
+      } else {
+        over = true;
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Body of the reader thread, finishes connecting the clients and counts the lines they receive
+   */
+  private void readClients(Selector selector, CountDownLatch subscribed) {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        selector.select();
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          SocketChannel channel = (SocketChannel) key.channel();
+          Client client = (Client) key.attachment();
+          if (key.isConnectable()) {
+            channel.finishConnect();
+            ByteBuffer hello = StandardCharsets.US_ASCII.encode("SUB " + client.room + "\nJOIN " + client.room + "\n");
+            while (hello.hasRemaining()) {
+              channel.write(hello);
+            }
+            key.interestOps(SelectionKey.OP_READ);
+          } else if (key.isReadable()) {
+            client.in.clear();
+            if (channel.read(client.in) < 0) {
+              key.cancel();
+              continue;
+            }
+            client.in.flip();
+            int lines = 0;
+            while (client.in.hasRemaining()) {
+              if (client.in.get() == '\n') {
+                lines++;
+              }
+            }
+            if (client.lines == 0 && lines > 0) {
+              // the first reply of a client is its SUBSCRIBED line
+              subscribed.countDown();
+            }
+            client.lines += lines;
+            linesReceived.addAndGet(lines);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Client connection failed", e);
+    } finally {
+      for (SelectionKey key : selector.keys()) {
+        try {
+          key.channel().close();
+        } catch (IOException e) {
+          // closing anyway
+        }
+      }
+    }
+  }
+
+  /**
+   * @return fields of the next line, which must start with the given word
+   */
+  private static String[] expect(BufferedReader in, String word) throws IOException {
+    String line = in.readLine();
+    if (line == null || !line.startsWith(word + " ")) {
+      throw new IOException("Expected " + word + " but got " + line);
+    }
+    return line.split(" ");
+  }
+
+  /**
+   * @return numbers called across every room
+   */
+  public long getDrawsCalled() {
+    return drawsCalled;
+  }
+
+  /**
+   * @return lines received by all the clients
+   */
+  public long getLinesReceived() {
+    return linesReceived.get();
+  }
+
+  /**
+   * @return lines the clients should have received
+   */
+  public long getLinesExpected() {
+    return linesExpected;
+  }
+
+  /**
+   * @return round trip of each CALL in nanoseconds, including the push to the room's subscribers
+   */
+  public LatencyHistogram getCallLatency() {
+    return callLatency;
+  }
+
+  /**
+   * @return time taken to play every room and deliver its lines in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * Prints what the run achieved
+   */
+  public void printReport() {
+    System.out.println("====================");
+    System.out.println("     Load:");
+    System.out.printf("Clients: %d in %d rooms%n", clients, rooms);
+    System.out.printf("Draws: %d, lines delivered %d of %d in %.3f s (%.1f lines/sec)%n", drawsCalled,
+        getLinesReceived(), linesExpected, elapsedNanos / 1e9,
+        elapsedNanos == 0 ? 0 : getLinesReceived() * 1e9 / elapsedNanos);
+    System.out.printf("CALL round trip: p50 %.1f us, p99 %.1f us, max %.1f us%n",
+        callLatency.getPercentile(50) / 1e3, callLatency.getPercentile(99) / 1e3, callLatency.getMax() / 1e3);
+    System.out.println("====================");
+  }
+
+  /**
+   * Runs a load test from the command line
+   *
+   * @param args host port clients rooms
+   * @throws Exception if the run fails
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 4) {
+      System.out.println("Usage: HousieLoadClient host port clients rooms");
+      return;
+    }
+    HousieLoadClient client = new HousieLoadClient(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+        Integer.parseInt(args[3]));
+    client.run();
+    client.printReport();
+  }
+
+  /**
+   * State kept for each client connection
+   */
+  private static final class Client {
+
+    private final int room;
+    private final ByteBuffer in = ByteBuffer.allocate(4096);
+    private long lines = 0;
+
+    private Client(int room) {
+      this.room = room;
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package sie;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the hot paths of the game: each draw of
+ * {@link Housie#callNumber()} and the ticket generation loop of {@link TicketStore}. One instance can be
+ * shared by many games and threads, every update is a striped counter or an atomic increment. The
+ * same points are also emitted as JDK Flight Recorder events, which cost nothing unless a recording
+ * enables them.
+ */
+public final class HousieMetrics {
+
+  private final LatencyHistogram drawLatency = new LatencyHistogram();
+  private final LongAdder draws = new LongAdder();
+  // every ticket holding a drawn number is checked, and is a hit since no number is drawn twice
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder completions = new LongAdder();
+  private final LongAdder prizesWon = new LongAdder();
+  private final LongAdder ticketsGenerated = new LongAdder();
+  private final LongAdder generationRetries = new LongAdder();
+  private final LongAdder generationNanos = new LongAdder();
+  private final LongAdder duplicateTickets = new LongAdder();
+
+  /**
+   * Records one draw
+   *
+   * @param nanos       time the draw took
+   * @param hits        tickets holding the drawn number
+   * @param completions patterns completed by the draw
+   * @param prizesWon   prizes awarded on the draw
+   */
+  void recordDraw(long nanos, int hits, int completions, int prizesWon) {
+    drawLatency.record(nanos);
+    draws.increment();
+    this.hits.add(hits);
+    this.completions.add(completions);
+    this.prizesWon.add(prizesWon);
+  }
+
+  /**
+   * Records a batch of generated tickets
+   *
+   * @param tickets tickets generated
+   * @param retries random picks rejected because the number was already on the ticket
+   * @param nanos   time the batch took
+   */
+  void recordGeneration(int tickets, long retries, long nanos) {
+    ticketsGenerated.add(tickets);
+    generationRetries.add(retries);
+    generationNanos.add(nanos);
+  }
+
+  /**
+   * Records tickets thrown away because they matched a ticket already in the game
+   *
+   * @param duplicates tickets generated again
+   */
+  void recordDuplicates(long duplicates) {
+    duplicateTickets.add(duplicates);
+  }
+
+  /**
+   * @return copy of every metric as it is now
+   */
+  public Snapshot snapshot() {
+    return new Snapshot(this);
+  }
+
+  /**
+   * Metrics at one point in time, detached from the live counters
+   */
+  public static final class Snapshot {
+
+    private final LatencyHistogram drawLatency;
+    private final long draws;
+    private final long hits;
+    private final long completions;
+    private final long prizesWon;
+    private final long ticketsGenerated;
+    private final long generationRetries;
+    private final long generationNanos;
+    private final long duplicateTickets;
+
+    private Snapshot(HousieMetrics metrics) {
+      this.drawLatency = metrics.drawLatency.copy();
+      this.draws = metrics.draws.sum();
+      this.hits = metrics.hits.sum();
+      this.completions = metrics.completions.sum();
+      this.prizesWon = metrics.prizesWon.sum();
+      this.ticketsGenerated = metrics.ticketsGenerated.sum();
+      this.generationRetries = metrics.generationRetries.sum();
+      this.generationNanos = metrics.generationNanos.sum();
+      this.duplicateTickets = metrics.duplicateTickets.sum();
+    }
+
+    /**
+     * @return distribution of the time each draw took in nanoseconds
+     */
+    public LatencyHistogram getDrawLatency() {
+      return drawLatency;
+    }
+
+    /**
+     * @return numbers drawn
+     */
+    public long getDraws() {
+      return draws;
+    }
+
+    /**
+     * @return tickets checked across every draw, each of them holding the drawn number
+     */
+    public long getHits() {
+      return hits;
+    }
+
+    /**
+     * @return mean tickets checked per draw
+     */
+    public double getHitsPerDraw() {
+      return draws == 0 ? 0 : (double) hits / draws;
+    }
+
+    /**
+     * @return patterns completed across every draw
+     */
+    public long getCompletions() {
+      return completions;
+    }
+
+    /**
+     * @return prizes awarded
+     */
+    public long getPrizesWon() {
+      return prizesWon;
+    }
+
+    /**
+     * @return tickets generated
+     */
+    public long getTicketsGenerated() {
+      return ticketsGenerated;
+    }
+
+    /**
+     * @return random picks rejected while generating tickets
+     */
+    public long getGenerationRetries() {
+      return generationRetries;
+    }
+
+    /**
+     * @return tickets thrown away because they matched a ticket already in the game
+     */
+    public long getDuplicateTickets() {
+      return duplicateTickets;
+    }
+
+    /**
+     * @return tickets generated per second spent generating them
+     */
+    public double getTicketsPerSecond() {
+      return generationNanos == 0 ? 0 : ticketsGenerated * 1e9 / generationNanos;
+    }
+
+    /**
+     * @return every metric by name, in a fixed order, for exporters
+     */
+    public Map<String, Number> toMap() {
+      Map<String, Number> values = new LinkedHashMap<>();
+      values.put("draws", draws);
+      values.put("draw.latency.mean.ns", drawLatency.getMean());
+      values.put("draw.latency.p50.ns", drawLatency.getPercentile(50));
+      values.put("draw.latency.p99.ns", drawLatency.getPercentile(99));
+      values.put("draw.latency.p999.ns", drawLatency.getPercentile(99.9));
+      values.put("draw.latency.max.ns", drawLatency.getMax());
+      values.put("hits", hits);
+      values.put("hits.per.draw", getHitsPerDraw());
+      values.put("completions", completions);
+      values.put("prizes.won", prizesWon);
+      values.put("tickets.generated", ticketsGenerated);
+      values.put("tickets.per.second", getTicketsPerSecond());
+      values.put("generation.retries", generationRetries);
+      values.put("generation.duplicates", duplicateTickets);
+      return values;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder text = new StringBuilder();
+      toMap().forEach((name, value) -> text.append(name).append('=').append(value).append('\n'));
+      return text.toString();
+    }
+  }
+}
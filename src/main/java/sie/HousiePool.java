@@ -0,0 +1,127 @@
+package sie;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pool of quiet games kept per shape, for rooms and simulations that play game after game. A game is
+ * handed out with freshly generated tickets through {@link Housie#reset(SplittableRandom)}, so once a
+ * shape has as many games as are played at the same time, acquiring and releasing a game allocates
+ * nothing. Look up a {@link Shape} once and keep it, the lookup itself builds a key.
+ */
+public final class HousiePool {
+
+  private final ConcurrentMap<String, Shape> shapes = new ConcurrentHashMap<>();
+  private final int maxIdle;
+
+  /**
+   * @param maxIdle most games kept idle for each shape, games released beyond it are dropped
+   */
+  public HousiePool(int maxIdle) {
+    if (maxIdle < 0) {
+      throw new IllegalArgumentException("Idle games cannot be negative");
+    }
+    this.maxIdle = maxIdle;
+  }
+
+  /**
+   * Returns the pool of games of one shape, creating it on first use
+   *
+   * @param range         top end of available numbers for the game
+   * @param players       number of players, each holding one ticket
+   * @param rows          number of rows on each ticket
+   * @param columns       number of columns on each ticket
+   * @param numbersPerRow numbers contained in each row
+   * @return pool for the shape, the same instance every time
+   */
+  public Shape shape(int range, int players, int rows, int columns, int numbersPerRow) {
+    if (players < 1 || rows < 1 || numbersPerRow < 1 || numbersPerRow > columns || columns > TicketStore.MAX_COLUMNS
+        || rows * numbersPerRow > range) {
+      throw new IllegalArgumentException("Each ticket must fit in the grid and be filled with unique numbers");
+    }
+    String key = range + ":" + players + ":" + rows + ":" + columns + ":" + numbersPerRow;
+    return shapes.computeIfAbsent(key, k -> new Shape(range, players, rows, columns, numbersPerRow, maxIdle));
+  }
+
+  /**
+   * Idle games of a single shape
+   */
+  public static final class Shape {
+
+    private final int range;
+    private final int players;
+    private final int rows;
+    private final int columns;
+    private final int numbersPerRow;
+    private final int maxIdle;
+    private final ArrayDeque<Housie> idle = new ArrayDeque<>();
+    private int created = 0;
+
+    private Shape(int range, int players, int rows, int columns, int numbersPerRow, int maxIdle) {
+      this.range = range;
+      this.players = players;
+      this.rows = rows;
+      this.columns = columns;
+      this.numbersPerRow = numbersPerRow;
+      this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Hands out a game ready to play, reusing an idle one when there is one. The game has no listener
+     * until one is set with {@link Housie#setListener(GameListener)}.
+     *
+     * @param random source of randomness for the tickets, and for the draws of a new game
+     * @return game on new tickets that has not called any number yet
+     */
+    public Housie acquire(SplittableRandom random) {
+      Housie housie;
+      synchronized (this) {
+        housie = idle.pollFirst();
+        if (housie == null) {
+          created++;
+        }
+      }
+      if (housie == null) {
+        TicketStore tickets = TicketStore.generate(players, rows, columns, numbersPerRow, range, random);
+        return new Housie(tickets, DrawSequence.shuffled(range, random.split()), false);
+      }
+      housie.reset(random);
+      return housie;
+    }
+
+    /**
+     * Returns a game acquired from this shape so it can be handed out again
+     *
+     * @param housie game that is no longer played
+     */
+    public void release(Housie housie) {
+      TicketStore tickets = housie.getTickets();
+      if (housie.getNumberOfPlayers() != players || housie.getRange() != range || tickets.getRows() != rows
+          || tickets.getColumns() != columns || tickets.getNumbersPerRow() != numbersPerRow) {
+        throw new IllegalArgumentException("Game does not have the shape of the pool");
+      }
+      housie.setListener(GameListener.NONE);
+      synchronized (this) {
+        if (idle.size() < maxIdle) {
+          idle.addFirst(housie);
+        }
+      }
+    }
+
+    /**
+     * @return games waiting to be handed out
+     */
+    public synchronized int getIdle() {
+      return idle.size();
+    }
+
+    /**
+     * @return games created because none was idle
+     */
+    public synchronized int getCreated() {
+      return created;
+    }
+  }
+}
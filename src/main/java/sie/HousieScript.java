@@ -0,0 +1,264 @@
+package sie;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+/**
+ * Non-interactive Housie for load tests and shell pipelines. The game is set up from
+ * {@code --name=value} flags, optionally on top of a properties file given with {@code --config}, and
+ * then driven by commands read from standard in or from the file given with {@code --script}:
+ * <pre>
+ * N [count]    call the next count numbers, 1 by default, stopping early once the game is over
+ * run-to-end   call numbers until the game is over
+ * summary      print the summary of the game so far
+ * new          start another game with the same settings, carrying on from the same seed
+ * Q            stop reading commands
+ * </pre>
+ * Commands are not case sensitive, blank lines and lines starting with # are skipped. Output is
+ * buffered and written out in large blocks, and the outcome is returned as an exit code rather than
+ * exiting the JVM.
+ */
+public final class HousieScript {
+
+  public static final int EXIT_OK = 0;
+  // invalid flags, settings or commands
+  public static final int EXIT_INVALID = 1;
+  // the config or the script could not be read
+  public static final int EXIT_IO = 2;
+
+  private static final List<String> SETTINGS = List.of("range", "players", "rows", "columns", "numbersPerRow",
+      "seed", "verbose", "config", "script");
+  private static final String USAGE = "Usage: HousieDriver --players=n [--range=n] [--rows=n] [--columns=n] "
+      + "[--numbersPerRow=n] [--seed=n] [--verbose=true|false] [--config=file] [--script=file]";
+  private static final int OUTPUT_BUFFER = 1 << 16;
+
+  private final int range;
+  private final int players;
+  private final int rows;
+  private final int columns;
+  private final int numbersPerRow;
+  private final boolean verbose;
+  private final SplittableRandom random;
+  private final PrintStream out;
+  private Housie housie;
+
+  /**
+   * Private constructor that checks the settings of the game, use {@link #run}
+   *
+   * @param settings merged flags and config
+   * @param out      stream the games are printed to
+   */
+  private HousieScript(Properties settings, PrintStream out) {
+    if (settings.getProperty("players") == null) {
+      throw new IllegalArgumentException("players must be set");
+    }
+    this.range = intSetting(settings, "range", HousieDriver.RANGE_DEFAULT);
+    this.players = intSetting(settings, "players", HousieDriver.PLAYERS_MINIMUM);
+    this.rows = intSetting(settings, "rows", HousieDriver.ROWS_DEFAULT);
+    this.columns = intSetting(settings, "columns", HousieDriver.COLUMNS_DEFAULT);
+    this.numbersPerRow = intSetting(settings, "numbersPerRow", HousieDriver.NUMBERS_PER_ROW_DEFAULT);
+    if (range < 1 || players < HousieDriver.PLAYERS_MINIMUM || rows < 1 || columns < 1
+        || columns > TicketStore.MAX_COLUMNS || numbersPerRow < 1 || numbersPerRow > columns
+        || Math.multiplyExact(rows, numbersPerRow) > range) {
+      throw new IllegalArgumentException("Need at least " + HousieDriver.PLAYERS_MINIMUM + " players and tickets of up to "
+          + TicketStore.MAX_COLUMNS + " columns that can be filled with unique numbers from the range");
+    }
+    String seed = settings.getProperty("seed");
+    try {
+      this.random = new SplittableRandom(seed == null ? System.nanoTime() : Long.parseLong(seed.trim()));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("seed must be an integer, not " + seed);
+    }
+    this.verbose = Boolean.parseBoolean(settings.getProperty("verbose", "true").trim());
+    this.out = out;
+  }
+
+  /**
+   * Plays games as told by the flags and commands
+   *
+   * @param args flags, each as --name=value
+   * @param in   commands, used unless a script file is given
+   * @param out  stream the games are printed to
+   * @param err  stream errors are reported to
+   * @return {@link #EXIT_OK}, {@link #EXIT_INVALID} or {@link #EXIT_IO}
+   */
+  public static int run(String[] args, InputStream in, PrintStream out, PrintStream err) {
+    PrintStream buffered = new PrintStream(new BufferedOutputStream(out, OUTPUT_BUFFER), false);
+    try {
+      Properties settings = parse(args, SETTINGS);
+      HousieScript script = new HousieScript(settings, buffered);
+      String path = settings.getProperty("script");
+      if (path == null) {
+        return script.play(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), err);
+      }
+      try (BufferedReader reader = Files.newBufferedReader(Paths.get(path.trim()))) {
+        return script.play(reader, err);
+      }
+    } catch (IllegalArgumentException | ArithmeticException e) {
+      // a game too large to lay out overflows while the tickets are sized
+      err.println("ERROR: " + e.getMessage());
+      err.println(USAGE);
+      return EXIT_INVALID;
+    } catch (IOException e) {
+      err.println("ERROR: " + e);
+      return EXIT_IO;
+    } finally {
+      buffered.flush();
+    }
+  }
+
+  /**
+   * Reads the flags and the config file they point to. Flags take precedence over the file.
+   *
+   * @param args  flags, each as --name=value
+   * @param names settings that may be given, config among them
+   * @return merged settings
+   * @throws IOException if the config file cannot be read
+   */
+  static Properties parse(String[] args, List<String> names) throws IOException {
+    Properties flags = new Properties();
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      if (!arg.startsWith("--") || equals < 3) {
+        throw new IllegalArgumentException("Flags are given as --name=value, not " + arg);
+      }
+      flags.setProperty(arg.substring(2, equals), arg.substring(equals + 1));
+    }
+    Properties settings = new Properties();
+    String config = flags.getProperty("config");
+    if (config != null) {
+      try (Reader reader = Files.newBufferedReader(Paths.get(config.trim()))) {
+        settings.load(reader);
+      }
+    }
+    settings.putAll(flags);
+    for (String name : settings.stringPropertyNames()) {
+      if (!names.contains(name)) {
+        throw new IllegalArgumentException("Unknown setting " + name);
+      }
+    }
+    return settings;
+  }
+
+  /**
+   * Private helper that starts a new game and reads commands until the end of the script or a quit
+   *
+   * @return exit code
+   */
+  private int play(BufferedReader reader, PrintStream err) throws IOException {
+    newGame();
+    String line;
+    int lineNumber = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      String command = line.trim();
+      if (command.isEmpty() || command.startsWith("#")) {
+        continue;
+      }
+      try {
+        if (!execute(command.split("\\s+"))) {
+          break;
+        }
+      } catch (IllegalArgumentException | ArithmeticException e) {
+        err.println("ERROR: line " + lineNumber + ": " + e.getMessage());
+        return EXIT_INVALID;
+      }
+    }
+    return EXIT_OK;
+  }
+
+  /**
+   * Private helper that runs one command
+   *
+   * @param words command followed by its argument
+   * @return false once the script asks to quit
+   */
+  private boolean execute(String[] words) {
+    String command = words[0].toUpperCase(Locale.ROOT);
+    if (words.length > (command.equals("N") ? 2 : 1)) {
+      throw new IllegalArgumentException("Too many arguments to " + words[0]);
+    }
+    switch (command) {
+      case "N":
+        int count = words.length == 1 ? 1 : parseCount(words[1]);
+        for (int k = 0; k < count && !housie.isOver(); k++) {
+          callNumber();
+        }
+        return true;
+      case "RUN-TO-END":
+        while (!housie.isOver()) {
+          callNumber();
+        }
+        return true;
+      case "SUMMARY":
+        housie.printSummary(out);
+        return true;
+      case "NEW":
+        newGame();
+        return true;
+      case "Q":
+        return false;
+      default:
+        throw new IllegalArgumentException("Unknown command " + words[0]);
+    }
+  }
+
+  /**
+   * Private helper that calls one number and prints the summary once the game is over, as the
+   * interactive driver does
+   */
+  private void callNumber() {
+    if (housie.callNumber()) {
+      housie.printSummary(out);
+    }
+  }
+
+  /**
+   * Private helper that deals new tickets from the script's random numbers and starts a game with them
+   */
+  private void newGame() {
+    GameListener listener = verbose ? new ConsoleGameListener(out) : GameListener.NONE;
+    listener.onGeneratingTickets(players);
+    TicketStore tickets = TicketStore.generate(players, rows, columns, numbersPerRow, range, random);
+    housie = new Housie(tickets, DrawSequence.shuffled(range, random.split()), Prize.CLASSIC, listener);
+  }
+
+  /**
+   * @return the positive count given to N
+   */
+  private static int parseCount(String count) {
+    try {
+      int value = Integer.parseInt(count);
+      if (value > 0) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw new IllegalArgumentException("N takes a positive count, not " + count);
+  }
+
+  /**
+   * @return setting parsed as an int, or the default when it is not set
+   */
+  private static int intSetting(Properties settings, String name, int defaultValue) {
+    String value = settings.getProperty(name);
+    try {
+      return value == null ? defaultValue : Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be an integer, not " + value);
+    }
+  }
+}
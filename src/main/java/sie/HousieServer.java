@@ -0,0 +1,608 @@
+package sie;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking TCP server hosting many Housie rooms. A single thread runs a selector over every
+ * connection, so there is no thread per client. Clients speak a line protocol, one command per line:
+ * <pre>
+ * CREATE range players rows columns numbersPerRow [seed]  -> ROOM room
+ * JOIN room [tickets]                                      -> TICKET room playerId numbers...  (one per ticket)
+ * SUB room                                                 -> SUBSCRIBED room
+ * CALL room                                                -> DRAW room number draw
+ *                                                             WIN room playerId draw prize name
+ *                                                             OVER room draws
+ * SUMMARY room                                             -> SUMMARY room draws players
+ *                                                             PRIZE room playerId draw prize name  (one per prize won)
+ *                                                             END room
+ * METRICS                                                  -> METRIC name value  (one per metric)
+ *                                                             END
+ * QUIT
+ * </pre>
+ * The DRAW, WIN and OVER lines of a call go to the caller and to every subscriber of the room. Errors
+ * are answered with {@code ERR message}.
+ * <p>
+ * Tickets are dealt on a generator thread so a large room does not hold up the selector, and ROOM is
+ * sent once they are ready. A room is closed when its game is over and its last subscriber leaves, or
+ * once no command has named it for the idle timeout.
+ */
+public class HousieServer implements AutoCloseable {
+
+  public static final int DEFAULT_PORT = 7070;
+
+  // longest command accepted, longer lines close the connection
+  private static final int MAX_LINE = 1024;
+  // output queued for a slow client before it is disconnected
+  private static final int MAX_PENDING_OUTPUT = 1 << 20;
+  // largest room a client can create, the slots bound the memory a single CREATE can claim
+  static final int MAX_RANGE = 1 << 24;
+  static final int MAX_PLAYERS = 1_000_000;
+  static final int MAX_SLOTS = 1 << 25;
+  public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+  // longest the selector waits before looking for idle rooms
+  private static final long SWEEP_MILLIS = 1000;
+
+  private final Selector selector;
+  private final ServerSocketChannel server;
+  private final Thread loop;
+  private final Map<Integer, Room> rooms = new HashMap<>();
+  // deals the tickets of new rooms, which are handed back to the selector thread once ready
+  private final ExecutorService generator;
+  private final ConcurrentLinkedQueue<Room> created = new ConcurrentLinkedQueue<>();
+  private final long idleTimeoutNanos;
+  private final long sweepMillis;
+  // shared by every room
+  private final HousieMetrics metrics = new HousieMetrics();
+  private int nextRoomId = 1;
+  private int connections = 0;
+  private volatile boolean running = true;
+
+  /**
+   * Binds the server, {@link #start()} starts accepting clients
+   *
+   * @param port port to listen on, 0 for any free port
+   * @throws IOException if the port cannot be bound
+   */
+  public HousieServer(int port) throws IOException {
+    this(port, DEFAULT_IDLE_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Binds the server, {@link #start()} starts accepting clients
+   *
+   * @param port              port to listen on, 0 for any free port
+   * @param idleTimeoutMillis time after which a room no command has named is closed
+   * @throws IOException if the port cannot be bound
+   */
+  public HousieServer(int port, long idleTimeoutMillis) throws IOException {
+    if (idleTimeoutMillis < 1) {
+      throw new IllegalArgumentException("Idle timeout must be positive");
+    }
+    this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+    this.sweepMillis = Math.min(SWEEP_MILLIS, idleTimeoutMillis);
+    this.generator = Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "housie-generator");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.selector = Selector.open();
+    this.server = ServerSocketChannel.open();
+    server.bind(new InetSocketAddress(port), MAX_LINE);
+    server.configureBlocking(false);
+    server.register(selector, SelectionKey.OP_ACCEPT);
+    this.loop = new Thread(this::run, "housie-server");
+  }
+
+  /**
+   * Starts the selector thread
+   */
+  public void start() {
+    loop.start();
+  }
+
+  /**
+   * @return port the server is listening on
+   * @throws IOException if the server socket is closed
+   */
+  public int getPort() throws IOException {
+    return ((InetSocketAddress) server.getLocalAddress()).getPort();
+  }
+
+  /**
+   * Stops the selector thread and closes every connection. If interrupted while waiting for the
+   * selector thread, the interrupt is kept on the calling thread and the wait given up.
+   */
+  @Override
+  public void close() {
+    running = false;
+    generator.shutdownNow();
+    selector.wakeup();
+    try {
+      loop.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Body of the selector thread
+   */
+  private void run() {
+    try {
+      long lastSweep = System.nanoTime();
+      while (running) {
+        selector.select(sweepMillis);
+        Room room;
+        while ((room = created.poll()) != null) {
+          open(room);
+        }
+        if (System.nanoTime() - lastSweep >= TimeUnit.MILLISECONDS.toNanos(sweepMillis)) {
+          lastSweep = System.nanoTime();
+          closeIdleRooms(lastSweep);
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          try {
+            if (!key.isValid()) {
+              continue;
+            }
+            if (key.isAcceptable()) {
+              accept();
+            } else {
+              if (key.isReadable()) {
+                read(key);
+              }
+              if (key.isValid() && key.isWritable()) {
+                write((Connection) key.attachment());
+              }
+            }
+          } catch (IOException e) {
+            disconnect(key);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Selector failed", e);
+    } finally {
+      for (SelectionKey key : selector.keys()) {
+        closeQuietly(key);
+      }
+      closeQuietly(server);
+      closeQuietly(selector);
+    }
+  }
+
+  /**
+   * Private helper that accepts every pending client
+   */
+  private void accept() throws IOException {
+    SocketChannel channel;
+    while ((channel = server.accept()) != null) {
+      channel.configureBlocking(false);
+      channel.socket().setTcpNoDelay(true);
+      SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+      key.attach(new Connection(channel, key));
+      connections++;
+    }
+  }
+
+  /**
+   * Private helper that reads what the client sent and handles every complete line
+   */
+  private void read(SelectionKey key) throws IOException {
+    Connection connection = (Connection) key.attachment();
+    ByteBuffer in = connection.in;
+    if (connection.channel.read(in) < 0) {
+      disconnect(key);
+      return;
+    }
+    in.flip();
+    int start = in.position();
+    for (int i = start; i < in.limit(); i++) {
+      if (in.get(i) == '\n') {
+        String line = StandardCharsets.US_ASCII.decode(in.duplicate().position(start).limit(i)).toString().trim();
+        start = i + 1;
+        if (!line.isEmpty()) {
+          handle(connection, line);
+        }
+        if (!key.isValid()) {
+          return;
+        }
+      }
+    }
+    in.position(start);
+    in.compact();
+    if (!in.hasRemaining()) {
+      // a command that does not fit in the buffer is not a valid command
+      disconnect(key);
+    }
+  }
+
+  /**
+   * Private helper that writes as much queued output as the socket takes and stops watching for
+   * writability once everything is out
+   */
+  private void write(Connection connection) throws IOException {
+    while (!connection.out.isEmpty()) {
+      ByteBuffer buffer = connection.out.peek();
+      connection.pendingBytes -= connection.channel.write(buffer);
+      if (buffer.hasRemaining()) {
+        connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        return;
+      }
+      connection.out.poll();
+    }
+    connection.key.interestOps(SelectionKey.OP_READ);
+  }
+
+  /**
+   * Private helper that runs one command
+   */
+  private void handle(Connection connection, String line) throws IOException {
+    String[] args = line.split("\\s+");
+    try {
+      switch (args[0].toUpperCase()) {
+        case "CREATE":
+          create(connection, args);
+          break;
+        case "JOIN":
+          join(connection, args);
+          break;
+        case "SUB":
+          Room subscribed = room(args);
+          if (connection.subscriptions.add(subscribed)) {
+            subscribed.subscribers.add(connection);
+          }
+          send(connection, "SUBSCRIBED " + subscribed.id + "\n");
+          break;
+        case "CALL":
+          call(connection, args);
+          break;
+        case "SUMMARY":
+          summary(connection, args);
+          break;
+        case "METRICS":
+          StringBuilder reply = new StringBuilder();
+          metrics.snapshot().toMap().forEach((name, value) -> reply.append("METRIC ").append(name).append(' ')
+              .append(value).append('\n'));
+          send(connection, reply.append("END\n").toString());
+          break;
+        case "QUIT":
+          disconnect(connection.key);
+          break;
+        default:
+          send(connection, "ERR unknown command " + args[0] + "\n");
+          break;
+      }
+    } catch (RuntimeException e) {
+      // a bad command only fails itself, never the selector thread
+      send(connection, "ERR " + (e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage()) + "\n");
+    }
+  }
+
+  /**
+   * CREATE range players rows columns numbersPerRow [seed]
+   */
+  private void create(Connection connection, String[] args) throws IOException {
+    if (args.length < 6) {
+      throw new IllegalArgumentException("usage CREATE range players rows columns numbersPerRow [seed]");
+    }
+    int range = Integer.parseInt(args[1]);
+    int players = Integer.parseInt(args[2]);
+    int rows = Integer.parseInt(args[3]);
+    int columns = Integer.parseInt(args[4]);
+    int numbersPerRow = Integer.parseInt(args[5]);
+    if (range < 1 || range > MAX_RANGE || players < 1 || players > MAX_PLAYERS || rows < 1 || columns < 1
+        || columns > TicketStore.MAX_COLUMNS || numbersPerRow < 1 || numbersPerRow > columns
+        || Math.multiplyExact(rows, numbersPerRow) > range
+        || Math.multiplyExact(players, rows * numbersPerRow) > MAX_SLOTS) {
+      throw new IllegalArgumentException("invalid game shape, at most " + MAX_PLAYERS + " players, a range of "
+          + MAX_RANGE + ", " + TicketStore.MAX_COLUMNS + " columns and " + MAX_SLOTS + " numbers on all tickets");
+    }
+    SplittableRandom random = args.length > 6 ? new SplittableRandom(Long.parseLong(args[6])) : new SplittableRandom();
+    Room room = new Room(nextRoomId++, connection);
+    generator.execute(() -> {
+      try {
+        TicketStore tickets = TicketStore.generate(players, rows, columns, numbersPerRow, range, random, false,
+            metrics);
+        room.housie = new Housie(tickets, DrawSequence.shuffled(range, random.split()), Prize.CLASSIC, room);
+        room.housie.setMetrics(metrics);
+        room.tickets = tickets;
+      } catch (RuntimeException | OutOfMemoryError e) {
+        room.failure = e.toString();
+      }
+      created.add(room);
+      selector.wakeup();
+    });
+  }
+
+  /**
+   * Private helper that opens a room whose tickets are dealt, or reports why they could not be, on the
+   * selector thread
+   */
+  private void open(Room room) {
+    try {
+      if (room.failure != null) {
+        send(room.creator, "ERR " + room.failure + "\n");
+        return;
+      }
+      room.lastActive = System.nanoTime();
+      rooms.put(room.id, room);
+      send(room.creator, "ROOM " + room.id + "\n");
+    } catch (IOException e) {
+      disconnect(room.creator.key);
+    } finally {
+      room.creator = null;
+    }
+  }
+
+  /**
+   * Private helper that closes every room no command has named for the idle timeout
+   */
+  private void closeIdleRooms(long now) {
+    Iterator<Room> iterator = rooms.values().iterator();
+    while (iterator.hasNext()) {
+      Room room = iterator.next();
+      if (now - room.lastActive > idleTimeoutNanos) {
+        for (Connection subscriber : room.subscribers) {
+          subscriber.subscriptions.remove(room);
+        }
+        room.subscribers.clear();
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * JOIN room [tickets]
+   */
+  private void join(Connection connection, String[] args) throws IOException {
+    Room room = room(args);
+    int count = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+    if (count < 1 || count > room.tickets.size() - room.nextTicket) {
+      throw new IllegalStateException("not enough tickets left in room " + room.id);
+    }
+    StringBuilder reply = new StringBuilder();
+    for (int k = 0; k < count; k++, room.nextTicket++) {
+      reply.append("TICKET ").append(room.id).append(' ').append(room.nextTicket + 1);
+      for (int number : room.tickets.numbers(room.nextTicket)) {
+        reply.append(' ').append(number);
+      }
+      reply.append('\n');
+    }
+    send(connection, reply.toString());
+  }
+
+  /**
+   * CALL room, the room collects the lines of the draw through its listener
+   */
+  private void call(Connection connection, String[] args) throws IOException {
+    Room room = room(args);
+    if (room.over) {
+      throw new IllegalStateException("room " + room.id + " is over");
+    }
+    room.pending.setLength(0);
+    room.housie.callNumber();
+    ByteBuffer lines = StandardCharsets.US_ASCII.encode(room.pending.toString());
+    // a slow subscriber is disconnected and leaves the room while the draw is being sent
+    for (Connection subscriber : room.subscribers.toArray(new Connection[0])) {
+      send(subscriber, lines.duplicate());
+    }
+    if (!room.subscribers.contains(connection)) {
+      send(connection, lines.duplicate());
+    }
+  }
+
+  /**
+   * SUMMARY room
+   */
+  private void summary(Connection connection, String[] args) throws IOException {
+    Room room = room(args);
+    Housie housie = room.housie;
+    StringBuilder reply = new StringBuilder();
+    reply.append("SUMMARY ").append(room.id).append(' ').append(housie.getTotalNumbersCalled()).append(' ')
+        .append(housie.getNumberOfPlayers()).append('\n');
+    for (int k = 0; k < housie.getPrizes().size(); k++) {
+      if (housie.getPrizeWinner(k) > 0) {
+        reply.append("PRIZE ").append(room.id).append(' ').append(housie.getPrizeWinner(k)).append(' ')
+            .append(housie.getPrizeDraw(k)).append(' ').append(housie.getPrizes().get(k).getName()).append('\n');
+      }
+    }
+    reply.append("END ").append(room.id).append('\n');
+    send(connection, reply.toString());
+  }
+
+  /**
+   * @return room named by the first argument of a command
+   */
+  private Room room(String[] args) {
+    if (args.length < 2) {
+      throw new IllegalArgumentException("missing room");
+    }
+    Room room = rooms.get(Integer.parseInt(args[1]));
+    if (room == null) {
+      throw new IllegalArgumentException("no room " + args[1]);
+    }
+    room.lastActive = System.nanoTime();
+    return room;
+  }
+
+  /**
+   * Private helper that queues text for a client
+   */
+  private void send(Connection connection, String text) throws IOException {
+    send(connection, StandardCharsets.US_ASCII.encode(text));
+  }
+
+  /**
+   * Private helper that queues a buffer for a client and tries to write it straight away. A client
+   * that lets too much output pile up is disconnected.
+   */
+  private void send(Connection connection, ByteBuffer buffer) throws IOException {
+    if (!connection.key.isValid()) {
+      return;
+    }
+    connection.out.add(buffer);
+    connection.pendingBytes += buffer.remaining();
+    if (connection.pendingBytes > MAX_PENDING_OUTPUT) {
+      disconnect(connection.key);
+      return;
+    }
+    if (connection.out.size() == 1) {
+      try {
+        write(connection);
+      } catch (IOException e) {
+        disconnect(connection.key);
+      }
+    }
+  }
+
+  /**
+   * Private helper that closes a client and drops its subscriptions
+   */
+  private void disconnect(SelectionKey key) {
+    Object attachment = key.attachment();
+    if (attachment instanceof Connection) {
+      Connection connection = (Connection) attachment;
+      for (Room room : connection.subscriptions) {
+        room.subscribers.remove(connection);
+        // a finished room is only kept for its subscribers
+        if (room.over && room.subscribers.isEmpty()) {
+          rooms.remove(room.id);
+        }
+      }
+      connection.subscriptions.clear();
+      if (key.isValid()) {
+        connections--;
+      }
+    }
+    closeQuietly(key);
+  }
+
+  /**
+   * @return metrics of every room hosted, safe to read from any thread
+   */
+  public HousieMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * @return number of clients currently connected
+   */
+  int getConnections() {
+    return connections;
+  }
+
+  /**
+   * @return number of rooms currently open, only read from the selector thread or once it is idle
+   */
+  int getRooms() {
+    return rooms.size();
+  }
+
+  private static void closeQuietly(SelectionKey key) {
+    key.cancel();
+    closeQuietly(key.channel());
+  }
+
+  private static void closeQuietly(AutoCloseable closeable) {
+    try {
+      closeable.close();
+    } catch (Exception e) {
+      // nothing left to do with it
+    }
+  }
+
+  /**
+   * Starts a server from the command line
+   *
+   * @param args optional port, defaults to {@link #DEFAULT_PORT}
+   * @throws IOException if the port cannot be bound
+   */
+  public static void main(String[] args) throws IOException {
+    HousieServer server = new HousieServer(args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT);
+    server.start();
+    System.out.println("Housie server listening on port " + server.getPort());
+  }
+
+  /**
+   * State kept for each client
+   */
+  private static final class Connection {
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+    private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+    private final Set<Room> subscriptions = new HashSet<>();
+    private long pendingBytes = 0;
+
+    private Connection(SocketChannel channel, SelectionKey key) {
+      this.channel = channel;
+      this.key = key;
+    }
+  }
+
+  /**
+   * A game hosted by the server. The room listens to its own game and turns the events of a draw into
+   * protocol lines that are sent once the draw is over.
+   */
+  private static final class Room implements GameListener {
+
+    private final int id;
+    private final List<Connection> subscribers = new ArrayList<>();
+    private final StringBuilder pending = new StringBuilder();
+    private Housie housie;
+    private TicketStore tickets;
+    private int nextTicket = 0;
+    private boolean over = false;
+    // client waiting for the room to open and why it could not, until the room is open
+    private Connection creator;
+    private String failure;
+    private long lastActive;
+
+    private Room(int id, Connection creator) {
+      this.id = id;
+      this.creator = creator;
+    }
+
+    @Override
+    public void onNumberDrawn(int number, int draw) {
+      pending.append("DRAW ").append(id).append(' ').append(number).append(' ').append(draw).append('\n');
+    }
+
+    @Override
+    public void onPrizeWon(Prize prize, int playerId, int draw) {
+      pending.append("WIN ").append(id).append(' ').append(playerId).append(' ').append(draw).append(' ')
+          .append(prize.getName()).append('\n');
+    }
+
+    @Override
+    public void onGameOver(int draws) {
+      over = true;
+      pending.append("OVER ").append(id).append(' ').append(draws).append('\n');
+    }
+  }
+}
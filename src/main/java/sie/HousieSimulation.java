@@ -0,0 +1,146 @@
+package sie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless simulation that plays complete Housie games without any console output. Games are spread
+ * across worker threads, each with a random number generator of its own split from the seed, and the
+ * draws on which the prizes are won are collected into histograms. Each game is settled in one pass by
+ * {@link GameResolver} since its draw order is known before the first number is called.
+ */
+public class HousieSimulation {
+
+  private final int range;
+  private final int players;
+  private final int rows;
+  private final int columns;
+  private final int numbersPerRow;
+  private final int games;
+  private final int threads;
+  private final long seed;
+  private HousieMetrics metrics;
+
+  /**
+   * Parameterized constructor
+   *
+   * @param range         top end of available numbers for the game, at most {@link Housie#HUGE_RANGE}
+   * @param players       number of players in each game
+   * @param rows          number of rows on each ticket
+   * @param columns       number of columns on each ticket
+   * @param numbersPerRow numbers contained in each row
+   * @param games         number of games to play
+   * @param threads       number of worker threads
+   * @param seed          seed the random number generator of every worker is split from
+   */
+  public HousieSimulation(int range, int players, int rows, int columns, int numbersPerRow, int games, int threads,
+      long seed) {
+    if (rows * numbersPerRow > range || numbersPerRow > columns || columns > TicketStore.MAX_COLUMNS) {
+      throw new IllegalArgumentException("Each ticket must fit in the grid and be filled with unique numbers");
+    }
+    // every game shuffles the whole range and the histograms have a bucket per draw
+    if (range > Housie.HUGE_RANGE) {
+      throw new IllegalArgumentException("Simulated games have a range of at most " + Housie.HUGE_RANGE);
+    }
+    if (players < 1 || games < 0 || threads < 1) {
+      throw new IllegalArgumentException("Players and threads must be positive and games cannot be negative");
+    }
+    this.range = range;
+    this.players = players;
+    this.rows = rows;
+    this.columns = columns;
+    this.numbersPerRow = numbersPerRow;
+    this.games = games;
+    this.threads = threads;
+    this.seed = seed;
+  }
+
+  /**
+   * Records the ticket generation of every game
+   *
+   * @param metrics metrics to record into, null for none
+   */
+  public void setMetrics(HousieMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Plays every game and merges the results of the workers. Each worker plays an even share of the
+   * games with its own generator split from the seed, so a seed always reproduces the same results for
+   * the same number of threads.
+   *
+   * @return aggregate results of the simulation
+   * @throws InterruptedException if interrupted while waiting for the workers
+   */
+  public SimulationResult run() throws InterruptedException {
+    SplittableRandom root = new SplittableRandom(seed);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    long start = System.nanoTime();
+    try {
+      List<Future<SimulationResult>> futures = new ArrayList<>();
+      for (int w = 0; w < threads; w++) {
+        int gamesForWorker = games / threads + (w < games % threads ? 1 : 0);
+        SplittableRandom random = root.split();
+        futures.add(executor.submit(() -> playGames(gamesForWorker, random)));
+      }
+      SimulationResult result = new SimulationResult(range);
+      for (Future<SimulationResult> future : futures) {
+        result.merge(future.get());
+      }
+      result.setElapsedNanos(System.nanoTime() - start);
+      return result;
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Simulation worker failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Plays games on the calling thread, run by each worker
+   *
+   * @param count  number of games to play
+   * @param random random number generator owned by the worker
+   * @return results of the worker's games
+   */
+  SimulationResult playGames(int count, SplittableRandom random) {
+    SimulationResult result = new SimulationResult(range);
+    for (int g = 0; g < count; g++) {
+      TicketStore tickets = TicketStore.generate(players, rows, columns, numbersPerRow, range, random, false,
+          metrics);
+      // the whole draw order is known up front, so resolve the game instead of stepping through it
+      int[] drawOrder = ShuffledDrawSequence.drawOrder(range, random.nextLong());
+      result.record(GameResolver.resolve(tickets, drawOrder));
+    }
+    return result;
+  }
+
+  /**
+   * Runs a simulation from the command line and prints the report.
+   * <p>
+   * Usage: range players rows columns numbersPerRow games threads seed
+   *
+   * @param args simulation parameters, threads and seed are optional
+   * @throws InterruptedException if interrupted while waiting for the workers
+   */
+  public static void main(String[] args) throws InterruptedException {
+    if (args.length < 6) {
+      System.out.println("Usage: HousieSimulation range players rows columns numbersPerRow games [threads] [seed]");
+      return;
+    }
+    int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+    long seed = args.length > 7 ? Long.parseLong(args[7]) : System.nanoTime();
+    HousieSimulation simulation = new HousieSimulation(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+        Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]), Integer.parseInt(args[5]),
+        threads, seed);
+    HousieMetrics metrics = new HousieMetrics();
+    simulation.setMetrics(metrics);
+    simulation.run().printReport();
+    System.out.print(metrics.snapshot());
+  }
+}
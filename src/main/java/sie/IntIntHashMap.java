@@ -0,0 +1,114 @@
+package sie;
+
+import java.util.Arrays;
+
+/**
+ * Map from non-negative ints to ints in flat arrays with open addressing and linear probing, so a
+ * lookup is O(1) with no boxing and no node per entry. Used where an array indexed by number would be
+ * sized by the range rather than by the numbers actually used.
+ */
+final class IntIntHashMap {
+
+  private static final double MAX_LOAD = 0.5;
+  // marks an empty cell, keys are never negative
+  private static final int EMPTY = -1;
+
+  private int[] keys;
+  private int[] values;
+  private int size = 0;
+
+  /**
+   * @param expected number of entries the map should hold without growing
+   */
+  IntIntHashMap(int expected) {
+    int capacity = capacityFor(expected);
+    this.keys = new int[capacity];
+    this.values = new int[capacity];
+    Arrays.fill(keys, EMPTY);
+  }
+
+  /**
+   * @param key          key to look up
+   * @param defaultValue value returned when the key is not in the map
+   * @return value of the key, or the default
+   */
+  int get(int key, int defaultValue) {
+    int mask = keys.length - 1;
+    for (int i = (int) Fingerprints.mix(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return values[i];
+      }
+    }
+    return defaultValue;
+  }
+
+  /**
+   * Sets the value of a key
+   *
+   * @param key   key to set, at least 0
+   * @param value value of the key
+   */
+  void put(int key, int value) {
+    if (key < 0) {
+      throw new IllegalArgumentException("Keys cannot be negative: " + key);
+    }
+    int mask = keys.length - 1;
+    for (int i = (int) Fingerprints.mix(key) & mask; ; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        values[i] = value;
+        return;
+      }
+      if (keys[i] == EMPTY) {
+        keys[i] = key;
+        values[i] = value;
+        if (++size > keys.length * MAX_LOAD) {
+          grow();
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return number of entries held
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Removes every entry, keeping the table
+   */
+  void clear() {
+    Arrays.fill(keys, EMPTY);
+    size = 0;
+  }
+
+  /**
+   * Private helper that doubles the table and puts every entry back
+   */
+  private void grow() {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new int[oldKeys.length * 2];
+    values = new int[oldKeys.length * 2];
+    Arrays.fill(keys, EMPTY);
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        put(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+
+  /**
+   * @return power of two holding the expected entries under the load factor
+   */
+  private static int capacityFor(int expected) {
+    long needed = Math.max(16, (long) Math.ceil(expected / MAX_LOAD));
+    if (needed > 1 << 30) {
+      throw new IllegalArgumentException("Too many entries for one map: " + expected);
+    }
+    return Integer.highestOneBit((int) needed - 1) << 1;
+  }
+}
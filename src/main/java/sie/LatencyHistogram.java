@@ -0,0 +1,128 @@
+package sie;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram of durations in the style of HdrHistogram. Every power of two is split into
+ * {@code 2^SUB_BUCKET_BITS} equal buckets, so any recorded value is reported within about 6% with a
+ * fixed 8 KB of counts. Recording is a few shifts and one atomic increment, safe from any thread.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // values below this get a bucket each
+  private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Records one value, negative values are recorded as 0
+   *
+   * @param value value to record, such as a duration in nanoseconds
+   */
+  public void record(long value) {
+    value = Math.max(0, value);
+    counts.incrementAndGet(bucketOf(value));
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Adds the values of another histogram to this one
+   *
+   * @param other histogram to merge in
+   */
+  public void merge(LatencyHistogram other) {
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      long added = other.counts.get(bucket);
+      if (added != 0) {
+        counts.addAndGet(bucket, added);
+      }
+    }
+    count.add(other.count.sum());
+    sum.add(other.sum.sum());
+    max.accumulate(other.max.get());
+  }
+
+  /**
+   * @return copy of the histogram as it is now
+   */
+  public LatencyHistogram copy() {
+    LatencyHistogram copy = new LatencyHistogram();
+    copy.merge(this);
+    return copy;
+  }
+
+  /**
+   * @return number of values recorded
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * @return mean of the values recorded, 0 if none were
+   */
+  public double getMean() {
+    long recorded = count.sum();
+    return recorded == 0 ? 0 : (double) sum.sum() / recorded;
+  }
+
+  /**
+   * @return largest value recorded, 0 if none were
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * @param percentile percentage of values that are at or below the result, between 0 and 100
+   * @return highest value of the bucket holding the percentile, 0 if no values were recorded
+   */
+  public long getPercentile(double percentile) {
+    long recorded = count.sum();
+    if (recorded == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(recorded * percentile / 100));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += counts.get(bucket);
+      if (seen >= target) {
+        return Math.min(highestValueOf(bucket), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * @return bucket counting the value
+   */
+  static int bucketOf(long value) {
+    if (value < LINEAR_LIMIT) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+  }
+
+  /**
+   * @return highest value counted by the bucket
+   */
+  static long highestValueOf(int bucket) {
+    if (bucket < LINEAR_LIMIT) {
+      return bucket;
+    }
+    int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+    long mantissa = bucket - (shift << SUB_BUCKET_BITS);
+    return ((mantissa + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,104 @@
+package sie;
+
+/**
+ * Set of longs in one flat array with open addressing and linear probing, so adding or looking up a
+ * value is O(1) with no boxing and no node per entry. 0 marks an empty cell and is stored as 1, which
+ * is fine for fingerprints where a false match only costs a retry.
+ */
+final class LongHashSet {
+
+  private static final double MAX_LOAD = 0.5;
+
+  private long[] cells;
+  private int size = 0;
+  // stored values compared against a value being added
+  private long comparisons = 0;
+
+  /**
+   * @param expected number of values the set should hold without growing
+   */
+  LongHashSet(int expected) {
+    this.cells = new long[capacityFor(expected)];
+  }
+
+  /**
+   * Adds a value
+   *
+   * @param value value to add
+   * @return true if the value was not in the set yet
+   */
+  boolean add(long value) {
+    if (value == 0) {
+      value = 1;
+    }
+    int mask = cells.length - 1;
+    for (int i = (int) Fingerprints.mix(value) & mask; cells[i] != 0; i = (i + 1) & mask) {
+      comparisons++;
+      if (cells[i] == value) {
+        return false;
+      }
+    }
+    addAbsent(value);
+    return true;
+  }
+
+  /**
+   * Adds a value known not to be in the set, such as one a Bloom filter has ruled out. The value is
+   * placed in the first free cell of its run without comparing it to the values already there.
+   *
+   * @param value value to add, not in the set
+   */
+  void addAbsent(long value) {
+    if (value == 0) {
+      value = 1;
+    }
+    int mask = cells.length - 1;
+    int i = (int) Fingerprints.mix(value) & mask;
+    while (cells[i] != 0) {
+      i = (i + 1) & mask;
+    }
+    cells[i] = value;
+    if (++size > cells.length * MAX_LOAD) {
+      grow();
+    }
+  }
+
+  /**
+   * @return stored values compared by {@link #add(long)} so far
+   */
+  long getComparisons() {
+    return comparisons;
+  }
+
+  /**
+   * @return number of values held
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Private helper that doubles the table and puts every value back
+   */
+  private void grow() {
+    long[] old = cells;
+    cells = new long[old.length * 2];
+    size = 0;
+    for (long value : old) {
+      if (value != 0) {
+        addAbsent(value);
+      }
+    }
+  }
+
+  /**
+   * @return power of two holding the expected values under the load factor
+   */
+  private static int capacityFor(int expected) {
+    long needed = Math.max(16, (long) Math.ceil(expected / MAX_LOAD));
+    if (needed > 1 << 30) {
+      throw new IllegalArgumentException("Too many values for one set: " + expected);
+    }
+    return Integer.highestOneBit((int) needed - 1) << 1;
+  }
+}
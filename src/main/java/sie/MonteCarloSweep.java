@@ -0,0 +1,456 @@
+package sie;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Monte Carlo analytics for pricing prizes across many game shapes. Every combination of the ranges,
+ * players, rows, columns and numbers per row given is simulated in turn. The games of a configuration
+ * are played in rounds spread across worker threads, each with a {@link SplittableRandom} of its own,
+ * and only the mergeable histograms of {@link SimulationResult} are kept, never the games themselves.
+ * <p>
+ * A configuration stops early once the 95% confidence interval of the probability that each prize has
+ * been won by draw k is narrower than the target width for every k, or once it has played the most
+ * games allowed. The same seed and threads always reproduce the same report.
+ */
+public final class MonteCarloSweep {
+
+  // two-sided 95% normal quantile
+  static final double Z_95 = 1.959964;
+  static final String[] PRIZES = {"Early Five", "Top Line", "Full House"};
+
+  private static final List<String> SETTINGS = List.of("range", "players", "rows", "columns", "numbersPerRow",
+      "threads", "seed", "roundGames", "minGames", "maxGames", "width", "format", "out", "config");
+  private static final String USAGE = "Usage: MonteCarloSweep --players=n,n,... [--range=n,...] [--rows=n,...] "
+      + "[--columns=n,...] [--numbersPerRow=n,...] [--threads=n] [--seed=n] [--roundGames=n] [--minGames=n] "
+      + "[--maxGames=n] [--width=p] [--format=csv|json] [--out=file] [--config=file]";
+
+  private final List<int[]> shapes;
+  private final int threads;
+  private final long seed;
+  private int roundGames = 2_000;
+  private long minGames = 2_000;
+  private long maxGames = 1_000_000;
+  private double targetWidth = 0.02;
+
+  /**
+   * Sweep over every combination of the values given for each parameter
+   *
+   * @param ranges         top ends of the numbers
+   * @param players        numbers of players
+   * @param rows           numbers of rows on each ticket
+   * @param columns        numbers of columns on each ticket
+   * @param numbersPerRow  numbers contained in each row
+   * @param threads        number of worker threads
+   * @param seed           seed the generator of every worker is split from
+   * @throws IllegalArgumentException if any combination is not a valid game
+   */
+  public MonteCarloSweep(int[] ranges, int[] players, int[] rows, int[] columns, int[] numbersPerRow, int threads,
+      long seed) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Threads must be positive");
+    }
+    List<int[]> grid = new ArrayList<>();
+    for (int range : ranges) {
+      for (int p : players) {
+        for (int r : rows) {
+          for (int c : columns) {
+            for (int n : numbersPerRow) {
+              // fails fast on a shape that cannot be played
+              new HousieSimulation(range, p, r, c, n, 0, 1, seed);
+              grid.add(new int[] {range, p, r, c, n});
+            }
+          }
+        }
+      }
+    }
+    if (grid.isEmpty()) {
+      throw new IllegalArgumentException("Every parameter needs at least one value");
+    }
+    this.shapes = Collections.unmodifiableList(grid);
+    this.threads = threads;
+    this.seed = seed;
+  }
+
+  /**
+   * Sets when a configuration stops
+   *
+   * @param roundGames  games played across the workers before the intervals are checked again
+   * @param minGames    games always played before stopping early
+   * @param maxGames    games played at most
+   * @param targetWidth widest 95% confidence interval accepted on the probability of each prize by each
+   *                    draw, between 0 and 1
+   */
+  public void setStopping(int roundGames, long minGames, long maxGames, double targetWidth) {
+    if (roundGames < 1 || minGames < 0 || maxGames < Math.max(1, minGames) || !(targetWidth > 0)) {
+      throw new IllegalArgumentException("Rounds and game limits must be positive and the width above 0");
+    }
+    this.roundGames = roundGames;
+    this.minGames = minGames;
+    this.maxGames = maxGames;
+    this.targetWidth = targetWidth;
+  }
+
+  /**
+   * @return number of configurations in the sweep
+   */
+  public int size() {
+    return shapes.size();
+  }
+
+  /**
+   * Simulates every configuration
+   *
+   * @return results in sweep order, ranges varying slowest and numbers per row fastest
+   * @throws InterruptedException if interrupted while waiting for the workers
+   */
+  public List<Configuration> run() throws InterruptedException {
+    SplittableRandom root = new SplittableRandom(seed);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Configuration> results = new ArrayList<>();
+      for (int[] shape : shapes) {
+        results.add(simulate(shape, root.split(), executor));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Private helper that plays rounds of one configuration until its intervals are narrow enough
+   */
+  private Configuration simulate(int[] shape, SplittableRandom random, ExecutorService executor)
+      throws InterruptedException {
+    HousieSimulation games = new HousieSimulation(shape[0], shape[1], shape[2], shape[3], shape[4], 0, 1, seed);
+    // each worker keeps its generator from one round to the next
+    SplittableRandom[] workers = new SplittableRandom[threads];
+    for (int w = 0; w < threads; w++) {
+      workers[w] = random.split();
+    }
+    SimulationResult result = new SimulationResult(shape[0]);
+    long start = System.nanoTime();
+    double width;
+    do {
+      int round = (int) Math.min(roundGames, maxGames - result.getGames());
+      List<Future<SimulationResult>> futures = new ArrayList<>();
+      for (int w = 0; w < threads; w++) {
+        int gamesForWorker = round / threads + (w < round % threads ? 1 : 0);
+        SplittableRandom worker = workers[w];
+        futures.add(executor.submit(() -> games.playGames(gamesForWorker, worker)));
+      }
+      try {
+        for (Future<SimulationResult> future : futures) {
+          result.merge(future.get());
+        }
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Simulation worker failed", e.getCause());
+      }
+      width = probabilityWidth(result);
+    } while (result.getGames() < maxGames && (result.getGames() < minGames || width > targetWidth));
+    result.setElapsedNanos(System.nanoTime() - start);
+    return new Configuration(shape, result, width, width <= targetWidth);
+  }
+
+  /**
+   * @param result games played so far
+   * @return widest 95% confidence interval on the probability of any prize being won by any draw
+   */
+  static double probabilityWidth(SimulationResult result) {
+    double widest = 0;
+    for (DrawHistogram histogram : histograms(result)) {
+      long n = histogram.getCount();
+      long seen = 0;
+      // cumulative counts keep the check linear in the range
+      for (int draw = 1; draw <= histogram.getMaxDraw() && n > 0; draw++) {
+        seen += histogram.getCount(draw);
+        double p = (double) seen / n;
+        widest = Math.max(widest, 2 * Z_95 * Math.sqrt(p * (1 - p) / n));
+      }
+    }
+    return widest;
+  }
+
+  /**
+   * @return 95% confidence interval width of the probability the prize was won by the draw, normal
+   *     approximation over the games that awarded the prize
+   */
+  static double probabilityWidth(DrawHistogram histogram, int draw) {
+    long n = histogram.getCount();
+    if (n == 0) {
+      return 0;
+    }
+    double p = histogram.getProbabilityBy(draw);
+    return 2 * Z_95 * Math.sqrt(p * (1 - p) / n);
+  }
+
+  /**
+   * @return 95% confidence interval width of the mean draw the prize was won on
+   */
+  static double meanWidth(DrawHistogram histogram) {
+    long n = histogram.getCount();
+    return n == 0 ? 0 : 2 * Z_95 * histogram.getStandardDeviation() / Math.sqrt(n);
+  }
+
+  /**
+   * Writes one row per configuration, prize and draw, with the probability the prize was won by the
+   * draw and the summary of the prize repeated on each row
+   *
+   * @param results configurations to write
+   * @param out     destination of the report
+   * @throws IOException if the report cannot be written
+   */
+  public static void writeCsv(List<Configuration> results, Appendable out) throws IOException {
+    out.append("range,players,rows,columns,numbersPerRow,games,converged,prize,draw,probability,probabilityCi,"
+        + "meanDraw,meanDrawCi,meanWinners\n");
+    for (Configuration configuration : results) {
+      DrawHistogram[] histograms = histograms(configuration.result);
+      double[] winners = meanWinners(configuration.result);
+      for (int k = 0; k < PRIZES.length; k++) {
+        for (int draw = 1; draw <= histograms[k].getMaxDraw() && histograms[k].getCount() > 0; draw++) {
+          out.append(configuration.getRange() + "," + configuration.getPlayers() + "," + configuration.getRows() + ","
+              + configuration.getColumns() + "," + configuration.getNumbersPerRow() + ","
+              + configuration.getGames() + "," + configuration.converged + "," + PRIZES[k] + "," + draw + ","
+              + format(histograms[k].getProbabilityBy(draw)) + "," + format(probabilityWidth(histograms[k], draw))
+              + "," + format(histograms[k].getMean()) + "," + format(meanWidth(histograms[k])) + ","
+              + format(winners[k]) + "\n");
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes an array with one object per configuration, each prize holding its summary and the
+   * probability it was won by each draw, index 0 being draw 1
+   *
+   * @param results configurations to write
+   * @param out     destination of the report
+   * @throws IOException if the report cannot be written
+   */
+  public static void writeJson(List<Configuration> results, Appendable out) throws IOException {
+    out.append("[");
+    for (int i = 0; i < results.size(); i++) {
+      Configuration configuration = results.get(i);
+      DrawHistogram[] histograms = histograms(configuration.result);
+      double[] winners = meanWinners(configuration.result);
+      out.append(i == 0 ? "\n" : ",\n")
+          .append("  {\"range\": " + configuration.getRange() + ", \"players\": " + configuration.getPlayers()
+              + ", \"rows\": " + configuration.getRows() + ", \"columns\": " + configuration.getColumns()
+              + ", \"numbersPerRow\": " + configuration.getNumbersPerRow() + ", \"games\": "
+              + configuration.getGames() + ", \"converged\": " + configuration.converged
+              + ", \"probabilityCi\": " + format(configuration.width) + ", \"prizes\": {");
+      for (int k = 0; k < PRIZES.length; k++) {
+        DrawHistogram histogram = histograms[k];
+        out.append(k == 0 ? "\n" : ",\n")
+            .append("    \"" + PRIZES[k] + "\": {\"won\": " + histogram.getCount() + ", \"meanDraw\": "
+                + format(histogram.getMean()) + ", \"meanDrawCi\": " + format(meanWidth(histogram))
+                + ", \"p50\": " + histogram.getPercentile(50) + ", \"p90\": " + histogram.getPercentile(90)
+                + ", \"p99\": " + histogram.getPercentile(99) + ", \"meanWinners\": " + format(winners[k])
+                + ", \"probabilityBy\": [");
+        for (int draw = 1; draw <= histogram.getMaxDraw(); draw++) {
+          out.append(draw == 1 ? "" : ", ").append(format(histogram.getProbabilityBy(draw)));
+        }
+        out.append("]}");
+      }
+      out.append("\n  }}");
+    }
+    out.append("\n]\n");
+  }
+
+  /**
+   * Runs a sweep from the command line. Each parameter takes a comma separated list of values and the
+   * report is written to standard out unless a file is given.
+   *
+   * @param args flags, each as --name=value
+   * @throws IOException          if the config cannot be read or the report cannot be written
+   * @throws InterruptedException if interrupted while waiting for the workers
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Properties settings;
+    MonteCarloSweep sweep;
+    try {
+      settings = HousieScript.parse(args, SETTINGS);
+      if (settings.getProperty("players") == null) {
+        throw new IllegalArgumentException("players must be set");
+      }
+      sweep = new MonteCarloSweep(values(settings, "range", HousieDriver.RANGE_DEFAULT),
+          values(settings, "players", 0), values(settings, "rows", HousieDriver.ROWS_DEFAULT),
+          values(settings, "columns", HousieDriver.COLUMNS_DEFAULT),
+          values(settings, "numbersPerRow", HousieDriver.NUMBERS_PER_ROW_DEFAULT),
+          Integer.parseInt(settings.getProperty("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+          Long.parseLong(settings.getProperty("seed", String.valueOf(System.nanoTime()))));
+      sweep.setStopping(Integer.parseInt(settings.getProperty("roundGames", "2000")),
+          Long.parseLong(settings.getProperty("minGames", "2000")),
+          Long.parseLong(settings.getProperty("maxGames", "1000000")),
+          Double.parseDouble(settings.getProperty("width", "0.02")));
+      if (!settings.getProperty("format", "csv").matches("(?i)csv|json")) {
+        throw new IllegalArgumentException("format must be csv or json");
+      }
+    } catch (IllegalArgumentException e) {
+      System.err.println("ERROR: " + e.getMessage());
+      System.err.println(USAGE);
+      return;
+    }
+    List<Configuration> results = sweep.run();
+    boolean json = settings.getProperty("format", "csv").equalsIgnoreCase("json");
+    String path = settings.getProperty("out");
+    if (path == null) {
+      StringBuilder report = new StringBuilder();
+      write(results, json, report);
+      System.out.print(report);
+      System.out.flush();
+    } else {
+      try (Writer writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+        write(results, json, writer);
+      }
+    }
+  }
+
+  /**
+   * Results of one configuration of the sweep
+   */
+  public static final class Configuration {
+
+    private final int[] shape;
+    private final SimulationResult result;
+    private final double width;
+    private final boolean converged;
+
+    private Configuration(int[] shape, SimulationResult result, double width, boolean converged) {
+      this.shape = shape;
+      this.result = result;
+      this.width = width;
+      this.converged = converged;
+    }
+
+    /**
+     * @return top end of the numbers
+     */
+    public int getRange() {
+      return shape[0];
+    }
+
+    /**
+     * @return number of players
+     */
+    public int getPlayers() {
+      return shape[1];
+    }
+
+    /**
+     * @return number of rows on each ticket
+     */
+    public int getRows() {
+      return shape[2];
+    }
+
+    /**
+     * @return number of columns on each ticket
+     */
+    public int getColumns() {
+      return shape[3];
+    }
+
+    /**
+     * @return numbers contained in each row
+     */
+    public int getNumbersPerRow() {
+      return shape[4];
+    }
+
+    /**
+     * @return games played before the configuration stopped
+     */
+    public long getGames() {
+      return result.getGames();
+    }
+
+    /**
+     * @return merged histograms of every game played
+     */
+    public SimulationResult getResult() {
+      return result;
+    }
+
+    /**
+     * @return widest 95% confidence interval on the probability of a prize being won by a draw
+     */
+    public double getProbabilityWidth() {
+      return width;
+    }
+
+    /**
+     * @return true if the configuration stopped because its intervals reached the target width
+     */
+    public boolean isConverged() {
+      return converged;
+    }
+  }
+
+  /**
+   * @return histogram of each prize in PRIZES order
+   */
+  private static DrawHistogram[] histograms(SimulationResult result) {
+    return new DrawHistogram[] {result.getEarlyFive(), result.getTopLine(), result.getFullHouse()};
+  }
+
+  /**
+   * @return mean simultaneous winners of each prize in PRIZES order
+   */
+  private static double[] meanWinners(SimulationResult result) {
+    return new double[] {result.getMeanEarlyFiveWinners(), result.getMeanTopLineWinners(),
+        result.getMeanFullHouseWinners()};
+  }
+
+  /**
+   * Private helper that writes the report in the chosen format
+   */
+  private static void write(List<Configuration> results, boolean json, Appendable out) throws IOException {
+    if (json) {
+      writeJson(results, out);
+    } else {
+      writeCsv(results, out);
+    }
+  }
+
+  /**
+   * @return comma separated values of a setting, or the default alone when it is not set
+   */
+  private static int[] values(Properties settings, String name, int defaultValue) {
+    String value = settings.getProperty(name);
+    if (value == null) {
+      return new int[] {defaultValue};
+    }
+    String[] parts = value.split(",");
+    int[] values = new int[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      try {
+        values[i] = Integer.parseInt(parts[i].trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(name + " must be a list of integers, not " + value);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * @return value with six decimals, independent of the default locale
+   */
+  private static String format(double value) {
+    return String.format(Locale.ROOT, "%.6f", value);
+  }
+}
@@ -0,0 +1,119 @@
+package sie;
+
+import java.util.Arrays;
+
+/**
+ * Inverted index from a number to the store slots that hold it. The postings for every number are
+ * stored back to back in a single array (compressed sparse row layout) so a lookup is two array reads
+ * and a draw only has to visit the tickets that can actually be hit. Since a posting is a slot rather
+ * than a ticket, the hit can be marked without searching the ticket for the number.
+ * <p>
+ * Above {@link Housie#HUGE_RANGE}, when the range is also larger than the number of slots, the offsets
+ * are only kept for the numbers on the tickets. The numbers in use are held in a compressed bitmap and
+ * a number's rank in it is the position of its offsets, so the index is sized by the tickets alone.
+ */
+final class NumberIndex {
+
+  private final int range;
+  // numbers on the tickets when the index is sparse, null when the offsets cover the whole range
+  private final CompressedBitmap used;
+  // offsets[n] is the first posting for number n, offsets[n + 1] is one past the last, where n is the
+  // rank of the number among the numbers in use when the index is sparse
+  private final int[] offsets;
+  private final int[] postings;
+  // postings placed so far for each number, kept so the index can be rebuilt without allocating
+  private final int[] next;
+
+  /**
+   * Builds the index of a store
+   *
+   * @param store tickets to index
+   */
+  NumberIndex(TicketStore store) {
+    int slots = store.size() * store.getNumbersPerTicket();
+    this.range = store.getRange();
+    this.used = range > Math.max(Housie.HUGE_RANGE, slots) ? new CompressedBitmap() : null;
+    // a sparse index never has more numbers in use than slots
+    int numbers = used == null ? range : slots;
+    this.offsets = new int[numbers + 2];
+    this.postings = new int[slots];
+    this.next = new int[numbers + 1];
+    rebuild(store);
+  }
+
+  /**
+   * Indexes the store again in place after its numbers were regenerated, in two passes, first counting
+   * the postings for each number and then placing the slots. Slots are visited in ascending order so
+   * every posting list comes out sorted by ticket.
+   *
+   * @param store tickets to index, the same store or one of the same size and range
+   */
+  void rebuild(TicketStore store) {
+    int slots = store.size() * store.getNumbersPerTicket();
+    if (slots != postings.length || store.getRange() != range) {
+      throw new IllegalArgumentException("Store does not have the size and range of the index");
+    }
+    Arrays.fill(offsets, 0);
+    Arrays.fill(next, 0);
+    if (used != null) {
+      used.clear();
+      for (int slot = 0; slot < slots; slot++) {
+        used.add(store.number(slot));
+      }
+    }
+    for (int slot = 0; slot < slots; slot++) {
+      offsets[key(store.number(slot)) + 1]++;
+    }
+    // turn the counts into starting offsets
+    for (int n = 1; n < offsets.length; n++) {
+      offsets[n] += offsets[n - 1];
+    }
+    for (int slot = 0; slot < slots; slot++) {
+      int key = key(store.number(slot));
+      postings[offsets[key] + next[key]++] = slot;
+    }
+  }
+
+  /**
+   * @param number drawn number
+   * @return position of the first posting for the number
+   */
+  int start(int number) {
+    if (used == null) {
+      return offsets[number];
+    }
+    // a number not in use gets the empty stretch at the start of the next number in use
+    int rank = used.rank(number);
+    return offsets[used.contains(number) ? rank - 1 : rank];
+  }
+
+  /**
+   * @param number drawn number
+   * @return position one past the last posting for the number
+   */
+  int end(int number) {
+    return offsets[used == null ? number + 1 : used.rank(number)];
+  }
+
+  /**
+   * @param position position between {@link #start(int)} and {@link #end(int)}
+   * @return store slot stored at that position
+   */
+  int posting(int position) {
+    return postings[position];
+  }
+
+  /**
+   * @return true if the offsets are only kept for the numbers on the tickets
+   */
+  boolean isSparse() {
+    return used != null;
+  }
+
+  /**
+   * @return position of a number on the tickets among the offsets
+   */
+  private int key(int number) {
+    return used == null ? number : used.rank(number) - 1;
+  }
+}
@@ -0,0 +1,218 @@
+package sie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incremental evaluation of prize patterns. Each alternative of each pattern is compiled into a counter
+ * per ticket holding the hits it still needs. Marking a position only decrements the counters of the
+ * alternatives that contain it and reports a completion when one reaches zero, so the cost of a mark
+ * does not grow with the number of patterns in the game.
+ */
+final class PatternEngine {
+
+  private final List<PrizePattern> patterns;
+  private final int counters;
+  // hits needed by each counter and the pattern it belongs to
+  private final int[] required;
+  private final int[] patternOf;
+  // counters touched by each position on a ticket
+  private final int[][] countersAt;
+  private final boolean[] achievable;
+  // counters of every ticket back to back, ticket t owns [t * counters, (t + 1) * counters)
+  private final int[] remaining;
+  // completed flag per ticket and pattern, only needed when a pattern has several alternatives
+  private final boolean[] completed;
+
+  /**
+   * Compiles the patterns for a store of tickets
+   *
+   * @param patterns distinct patterns to evaluate
+   * @param tickets  tickets the counters are kept for
+   */
+  PatternEngine(List<PrizePattern> patterns, TicketStore tickets) {
+    int rows = tickets.getRows();
+    int numbersPerRow = tickets.getNumbersPerRow();
+    int positions = tickets.getNumbersPerTicket();
+    this.patterns = List.copyOf(patterns);
+    this.achievable = new boolean[patterns.size()];
+
+    List<int[]> alternatives = new ArrayList<>();
+    List<Integer> requiredList = new ArrayList<>();
+    List<Integer> patternList = new ArrayList<>();
+    boolean multipleAlternatives = false;
+    for (int p = 0; p < patterns.size(); p++) {
+      PrizePattern pattern = patterns.get(p);
+      int added = 0;
+      for (int[] alternative : pattern.positions(rows, numbersPerRow)) {
+        int needed = pattern.required(alternative);
+        // alternatives that cannot be completed on this shape are dropped
+        if (needed < 1 || needed > alternative.length || !onTicket(alternative, positions)) {
+          continue;
+        }
+        alternatives.add(alternative);
+        requiredList.add(needed);
+        patternList.add(p);
+        added++;
+      }
+      achievable[p] = added > 0;
+      multipleAlternatives |= added > 1;
+    }
+
+    this.counters = alternatives.size();
+    this.required = requiredList.stream().mapToInt(Integer::intValue).toArray();
+    this.patternOf = patternList.stream().mapToInt(Integer::intValue).toArray();
+    // invert the alternatives into the counters touched by each position, in counter order
+    int[] touching = new int[positions];
+    for (int[] alternative : alternatives) {
+      for (int position : alternative) {
+        touching[position]++;
+      }
+    }
+    this.countersAt = new int[positions][];
+    for (int position = 0; position < positions; position++) {
+      countersAt[position] = new int[touching[position]];
+      touching[position] = 0;
+    }
+    for (int c = 0; c < counters; c++) {
+      for (int position : alternatives.get(c)) {
+        countersAt[position][touching[position]++] = c;
+      }
+    }
+    this.remaining = new int[Math.multiplyExact(tickets.size(), counters)];
+    this.completed = multipleAlternatives ? new boolean[Math.multiplyExact(tickets.size(), patterns.size())] : null;
+    reset();
+  }
+
+  /**
+   * Sets every counter back to the hits its alternative needs
+   */
+  void reset() {
+    for (int base = 0; base < remaining.length; base += counters) {
+      System.arraycopy(required, 0, remaining, base, counters);
+    }
+    if (completed != null) {
+      Arrays.fill(completed, false);
+    }
+  }
+
+  /**
+   * @return number of patterns evaluated
+   */
+  int getPatternCount() {
+    return patterns.size();
+  }
+
+  /**
+   * @param pattern index of the pattern
+   * @return true if the pattern can be completed on the tickets' shape
+   */
+  boolean isAchievable(int pattern) {
+    return achievable[pattern];
+  }
+
+  /**
+   * Records a hit and reports every pattern the ticket completes with it. A pattern is only reported
+   * once per ticket, even when it has several alternatives. The counters of a ticket are only touched
+   * by marks on that ticket, so tickets can be marked from different threads.
+   *
+   * @param ticket   ticket index
+   * @param position position of the hit on the ticket
+   * @param out      receives the completions in pattern order
+   */
+  void onMark(int ticket, int position, Completions out) {
+    int base = ticket * counters;
+    for (int c : countersAt[position]) {
+      if (--remaining[base + c] == 0) {
+        int pattern = patternOf[c];
+        if (completed != null) {
+          int flag = ticket * patterns.size() + pattern;
+          if (completed[flag]) {
+            continue;
+          }
+          completed[flag] = true;
+        }
+        out.add(ticket, pattern);
+      }
+    }
+  }
+
+  /**
+   * @return true if every position of the alternative is on the ticket
+   */
+  static boolean onTicket(int[] alternative, int positions) {
+    for (int position : alternative) {
+      if (position < 0 || position >= positions) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Growable buffer of (ticket, pattern) completions, kept in the order they were reported
+   */
+  static final class Completions {
+
+    private int[] events = new int[16];
+    private int size = 0;
+
+    /**
+     * Appends a completion
+     *
+     * @param ticket  ticket index
+     * @param pattern pattern index
+     */
+    void add(int ticket, int pattern) {
+      if (size + 2 > events.length) {
+        events = Arrays.copyOf(events, events.length * 2);
+      }
+      events[size++] = ticket;
+      events[size++] = pattern;
+    }
+
+    /**
+     * Appends every completion of another buffer after the ones already held
+     *
+     * @param other buffer to append
+     */
+    void addAll(Completions other) {
+      if (size + other.size > events.length) {
+        events = Arrays.copyOf(events, Math.max(events.length * 2, size + other.size));
+      }
+      System.arraycopy(other.events, 0, events, size, other.size);
+      size += other.size;
+    }
+
+    /**
+     * @return number of completions held
+     */
+    int size() {
+      return size >> 1;
+    }
+
+    /**
+     * @param i completion index
+     * @return ticket of the completion
+     */
+    int ticket(int i) {
+      return events[i << 1];
+    }
+
+    /**
+     * @param i completion index
+     * @return pattern of the completion
+     */
+    int pattern(int i) {
+      return events[(i << 1) + 1];
+    }
+
+    /**
+     * Empties the buffer, keeping its capacity
+     */
+    void clear() {
+      size = 0;
+    }
+  }
+}
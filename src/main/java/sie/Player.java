@@ -1,18 +1,20 @@
 package sie;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Class for a Housie Player
+ * Class for a Housie Player. A player is a thin view over a run of consecutive tickets in a
+ * {@link TicketStore}, the winner flags are kept in the store alongside each ticket.
  */
 public class Player {
 
-  private final Ticket ticket;
+  private final TicketStore store;
+  private final int firstTicket;
+  private final int ticketCount;
   private final int playerId;
-  private boolean topLineWinner = false;
-  private boolean earlyFiveWinner = false;
-  private boolean fullHouseWinner = false;
+  private final List<Prize> prizes;
 
   /**
    * Constructor that instantiates a player with a ticket
@@ -21,48 +23,122 @@ public class Player {
    * @param playerId id assigned to the player
    */
   public Player(Ticket ticket, int playerId) {
-    this.ticket = ticket;
-    this.playerId = playerId;
+    this(ticket.getStore(), ticket.getIndex(), playerId);
+  }
 
+  /**
+   * Constructor that instantiates a player viewing a ticket held in a store
+   *
+   * @param store    store holding the ticket
+   * @param ticket   index of the ticket in the store
+   * @param playerId id assigned to the player
+   */
+  public Player(TicketStore store, int ticket, int playerId) {
+    this(store, ticket, playerId, Prize.CLASSIC);
   }
 
   /**
-   * Checks to see if the ticket assigned to the player is a full house winner
+   * Constructor that instantiates a player viewing a ticket held in a store, in a game with its own prizes
+   *
+   * @param store    store holding the ticket
+   * @param ticket   index of the ticket in the store
+   * @param playerId id assigned to the player
+   * @param prizes   prizes of the game, prize k is flag {@code 1 << k} in the store
+   */
+  public Player(TicketStore store, int ticket, int playerId, List<Prize> prizes) {
+    this(store, ticket, 1, playerId, prizes);
+  }
+
+  /**
+   * Constructor that instantiates a player holding a book of consecutive tickets in a store
+   *
+   * @param store       store holding the tickets
+   * @param firstTicket index of the player's first ticket in the store
+   * @param ticketCount number of tickets the player holds
+   * @param playerId    id assigned to the player
+   * @param prizes      prizes of the game, prize k is flag {@code 1 << k} in the store
+   */
+  public Player(TicketStore store, int firstTicket, int ticketCount, int playerId, List<Prize> prizes) {
+    this.store = store;
+    this.firstTicket = firstTicket;
+    this.ticketCount = ticketCount;
+    this.playerId = playerId;
+    this.prizes = prizes;
+  }
+
+  /**
+   * Checks to see if any ticket assigned to the player is a full house winner
    *
    * @return boolean whether or not the player has won the full house scenario
    */
   public boolean isFullHouseWinner() {
-    fullHouseWinner = ticket.fullHouseWinner();
+    boolean fullHouseWinner = false;
+    for (int ticket = firstTicket; ticket < firstTicket + ticketCount; ticket++) {
+      boolean complete = store.fullHouseComplete(ticket);
+      setPrize(ticket, PrizePattern.FULL_HOUSE, complete);
+      fullHouseWinner |= complete;
+    }
     return fullHouseWinner;
   }
 
   /**
-   * Checks to see if the ticket assigned to the player is a top line winner
+   * Checks to see if any ticket assigned to the player is a top line winner
    *
    * @return boolean whether or not the player has won the top line scenario
    */
   public boolean isTopLineWinner() {
-    topLineWinner = ticket.topLineWinner();
+    boolean topLineWinner = false;
+    for (int ticket = firstTicket; ticket < firstTicket + ticketCount; ticket++) {
+      boolean complete = store.topLineComplete(ticket);
+      setPrize(ticket, PrizePattern.TOP_LINE, complete);
+      topLineWinner |= complete;
+    }
     return topLineWinner;
   }
 
   /**
    * Retrieves the total number of ticket hits so far in the game
    *
-   * @return int representing the ticket hits for this ticket
+   * @return int representing the hits across every ticket of the player
    */
   public int totalTicketHits() {
-    return ticket.getNumberOfHits();
+    int hits = 0;
+    for (int ticket = firstTicket; ticket < firstTicket + ticketCount; ticket++) {
+      hits += store.hits(ticket);
+    }
+    return hits;
   }
 
   /**
-   * Checks to see if the number exists in the board. If so, it will be marked
+   * Checks to see if the number exists on any of the player's tickets. Every ticket holding it is marked
    *
    * @param number int to check
-   * @return boolean whether or not the number exist in the board
+   * @return boolean whether or not the number exist on a ticket
    */
   public boolean checkNumber(int number) {
-    return ticket.selectNumber(number);
+    boolean hit = false;
+    for (int ticket = firstTicket; ticket < firstTicket + ticketCount; ticket++) {
+      hit |= store.mark(ticket, number);
+    }
+    return hit;
+  }
+
+  /**
+   * @return number of tickets the player holds
+   */
+  public int getTicketCount() {
+    return ticketCount;
+  }
+
+  /**
+   * @param k position of the ticket in the player's book, starting at 0
+   * @return view of the ticket
+   */
+  public Ticket getTicket(int k) {
+    if (k < 0 || k >= ticketCount) {
+      throw new IndexOutOfBoundsException("Player " + playerId + " holds " + ticketCount + " tickets");
+    }
+    return new Ticket(store, firstTicket + k);
   }
 
   /**
@@ -80,36 +156,64 @@ public class Player {
    * @param earlyFiveWinner boolean whether or not the player has won the early 5 winner status
    */
   public void setEarlyFiveWinner(boolean earlyFiveWinner) {
-    this.earlyFiveWinner = earlyFiveWinner;
+    setPrize(firstTicket, PrizePattern.EARLY_FIVE, earlyFiveWinner);
   }
 
   /**
-   * Prints the summary for the player
+   * Prints the summary for the player. A player holding several tickets is told which ticket won each
+   * prize, counting from 1 within the player's book.
    */
   public void printPlayerSummary() {
+    printPlayerSummary(System.out);
+  }
+
+  /**
+   * Prints the summary for the player
+   *
+   * @param out stream the summary is printed to
+   * @see #printPlayerSummary()
+   */
+  public void printPlayerSummary(PrintStream out) {
     List<String> results = new ArrayList<>();
-    if (earlyFiveWinner) {
-      results.add("Early Five");
-    }
-    if (topLineWinner) {
-      results.add("Top Line");
-    }
-    if (fullHouseWinner) {
-      results.add("Full House");
+    for (int k = 0; k < prizes.size(); k++) {
+      for (int ticket = firstTicket; ticket < firstTicket + ticketCount; ticket++) {
+        if (store.hasPrize(ticket, 1 << k)) {
+          results.add(ticketCount == 1
+              ? prizes.get(k).getName()
+              : prizes.get(k).getName() + " (ticket " + (ticket - firstTicket + 1) + ")");
+        }
+      }
     }
     if (results.isEmpty()) {
-      System.out.println("Player #" + playerId + ": Nothing");
+      out.println("Player #" + playerId + ": Nothing");
     } else {
       StringBuilder str = new StringBuilder();
       str.append(results.remove(0));
       if (!results.isEmpty()) {
         str.append(" and ").append(results.remove(0));
       }
-      if (!results.isEmpty()) {
+      while (!results.isEmpty()) {
         str.insert(0, results.remove(0) + ", ");
       }
 
-      System.out.println("Player #" + playerId + ": " + str.toString());
+      out.println("Player #" + playerId + ": " + str.toString());
+    }
+  }
+
+  /**
+   * Private helper that sets the flag of the prize won by being the first to complete the pattern, if
+   * the game has such a prize
+   *
+   * @param ticket  index of the ticket in the store
+   * @param pattern pattern of the prize
+   * @param won     whether or not the ticket holds the prize
+   */
+  private void setPrize(int ticket, PrizePattern pattern, boolean won) {
+    for (int k = 0; k < prizes.size(); k++) {
+      if (prizes.get(k).getPattern() == pattern && prizes.get(k).getRank() == 1) {
+        store.setPrize(ticket, 1 << k, won);
+        return;
+      }
     }
   }
 }
@@ -0,0 +1,89 @@
+package sie;
+
+import java.util.Arrays;
+
+/**
+ * Which tickets of a {@link TicketStore} each player holds. Every player holds a run of consecutive
+ * tickets, so the whole mapping is one offset per player, and nothing at all when every player holds
+ * a single ticket.
+ */
+public final class PlayerTickets {
+
+  // player p holds tickets [offsets[p], offsets[p + 1]), null when player p holds ticket p
+  private final int[] offsets;
+  private final int players;
+
+  private PlayerTickets(int[] offsets, int players) {
+    this.offsets = offsets;
+    this.players = players;
+  }
+
+  /**
+   * @param players number of players, each holding the ticket with their own index
+   * @return mapping of one ticket per player
+   */
+  public static PlayerTickets oneEach(int players) {
+    if (players < 0) {
+      throw new IllegalArgumentException("Players cannot be negative");
+    }
+    return new PlayerTickets(null, players);
+  }
+
+  /**
+   * @param ticketsPerPlayer number of tickets held by each player, in ticket order
+   * @return mapping handing out the tickets to the players in turn
+   */
+  public static PlayerTickets of(int... ticketsPerPlayer) {
+    int[] offsets = new int[ticketsPerPlayer.length + 1];
+    for (int p = 0; p < ticketsPerPlayer.length; p++) {
+      if (ticketsPerPlayer[p] < 1) {
+        throw new IllegalArgumentException("Player " + (p + 1) + " must hold at least one ticket");
+      }
+      offsets[p + 1] = Math.addExact(offsets[p], ticketsPerPlayer[p]);
+    }
+    return new PlayerTickets(offsets, ticketsPerPlayer.length);
+  }
+
+  /**
+   * @return number of players
+   */
+  public int size() {
+    return players;
+  }
+
+  /**
+   * @return number of tickets held by every player together
+   */
+  public int getTicketCount() {
+    return offsets == null ? players : offsets[players];
+  }
+
+  /**
+   * @param player player index, one less than the player id
+   * @return index in the store of the player's first ticket
+   */
+  public int firstTicket(int player) {
+    return offsets == null ? player : offsets[player];
+  }
+
+  /**
+   * @param player player index, one less than the player id
+   * @return number of tickets the player holds
+   */
+  public int ticketCount(int player) {
+    return offsets == null ? 1 : offsets[player + 1] - offsets[player];
+  }
+
+  /**
+   * @param ticket index of the ticket in the store
+   * @return index of the player holding the ticket
+   */
+  public int playerOf(int ticket) {
+    if (offsets == null) {
+      return ticket;
+    }
+    int found = Arrays.binarySearch(offsets, 0, players + 1, ticket);
+    // an exact hit is the first ticket of a player, any other ticket falls after its player's offset
+    return found >= 0 ? found : -found - 2;
+  }
+}
@@ -0,0 +1,85 @@
+package sie;
+
+import java.util.List;
+
+/**
+ * Prize awarded in a game. The prize goes to the ticket that is the rank-th to complete its pattern,
+ * so a second full house is the full house pattern with rank 2. Tickets completing a pattern on the
+ * same draw are ranked by player id.
+ */
+public final class Prize {
+
+  /**
+   * The prizes of a classic game, in the order of the prize flags in {@link TicketStore}
+   */
+  public static final List<Prize> CLASSIC = List.of(new Prize(PrizePattern.EARLY_FIVE),
+      new Prize(PrizePattern.TOP_LINE), new Prize(PrizePattern.FULL_HOUSE));
+
+  private static final String[] ORDINALS = {"", "", "Second", "Third", "Fourth", "Fifth"};
+
+  private final String name;
+  private final PrizePattern pattern;
+  private final int rank;
+
+  /**
+   * Prize for the first ticket to complete the pattern
+   *
+   * @param pattern pattern that wins the prize
+   */
+  public Prize(PrizePattern pattern) {
+    this(pattern, 1);
+  }
+
+  /**
+   * Prize for the rank-th ticket to complete the pattern, named after the pattern
+   *
+   * @param pattern pattern that wins the prize
+   * @param rank    1 for the first ticket to complete the pattern, 2 for the second and so on
+   */
+  public Prize(PrizePattern pattern, int rank) {
+    this(rank == 1 ? pattern.getName()
+        : (rank < ORDINALS.length ? ORDINALS[rank] : rank + "th") + " " + pattern.getName(), pattern, rank);
+  }
+
+  /**
+   * Parameterized constructor
+   *
+   * @param name    name announced when the prize is won
+   * @param pattern pattern that wins the prize
+   * @param rank    1 for the first ticket to complete the pattern, 2 for the second and so on
+   */
+  public Prize(String name, PrizePattern pattern, int rank) {
+    if (rank < 1) {
+      throw new IllegalArgumentException("Rank must be at least 1");
+    }
+    this.name = name;
+    this.pattern = pattern;
+    this.rank = rank;
+  }
+
+  /**
+   * @return name announced when the prize is won
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return pattern that wins the prize
+   */
+  public PrizePattern getPattern() {
+    return pattern;
+  }
+
+  /**
+   * @return position of the winning ticket among those completing the pattern
+   */
+  public int getRank() {
+    return rank;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,110 @@
+package sie;
+
+import java.util.Arrays;
+
+/**
+ * Pattern of numbers on a ticket that wins a prize. A pattern is made of one or more alternatives,
+ * each a set of positions on the ticket, and is complete as soon as enough positions of any one
+ * alternative have been hit. Positions count from 0 at the left of the top row, row by row, so
+ * position {@code row * numbersPerRow + k} is the k-th number of the row from the left.
+ */
+public final class PrizePattern {
+
+  /**
+   * Lays the alternatives of a pattern out on a ticket of a given shape
+   */
+  public interface Layout {
+
+    /**
+     * @param rows          number of rows on each ticket
+     * @param numbersPerRow numbers contained in each row
+     * @return positions of each alternative
+     */
+    int[][] positions(int rows, int numbersPerRow);
+  }
+
+  public static final PrizePattern EARLY_FIVE = new PrizePattern("Early Five", Housie.EARLY_FIVE,
+      (rows, numbersPerRow) -> new int[][] {span(0, rows * numbersPerRow)});
+  public static final PrizePattern TOP_LINE = new PrizePattern("Top Line", 0,
+      (rows, numbersPerRow) -> new int[][] {row(0, numbersPerRow)});
+  public static final PrizePattern MIDDLE_LINE = new PrizePattern("Middle Line", 0,
+      (rows, numbersPerRow) -> new int[][] {row(rows / 2, numbersPerRow)});
+  public static final PrizePattern BOTTOM_LINE = new PrizePattern("Bottom Line", 0,
+      (rows, numbersPerRow) -> new int[][] {row(rows - 1, numbersPerRow)});
+  public static final PrizePattern FOUR_CORNERS = new PrizePattern("Four Corners", 0,
+      (rows, numbersPerRow) -> new int[][] {Arrays.stream(new int[] {0, numbersPerRow - 1,
+          (rows - 1) * numbersPerRow, rows * numbersPerRow - 1}).distinct().toArray()});
+  public static final PrizePattern ANY_LINE = new PrizePattern("Any Line", 0, (rows, numbersPerRow) -> {
+    int[][] lines = new int[rows][];
+    for (int i = 0; i < rows; i++) {
+      lines[i] = row(i, numbersPerRow);
+    }
+    return lines;
+  });
+  public static final PrizePattern FULL_HOUSE = new PrizePattern("Full House", 0,
+      (rows, numbersPerRow) -> new int[][] {span(0, rows * numbersPerRow)});
+
+  private final String name;
+  private final int required;
+  private final Layout layout;
+
+  /**
+   * Parameterized constructor
+   *
+   * @param name     name announced when the pattern wins a prize
+   * @param required hits needed in an alternative, 0 for every position of the alternative
+   * @param layout   lays the alternatives out on a ticket
+   */
+  public PrizePattern(String name, int required, Layout layout) {
+    this.name = name;
+    this.required = required;
+    this.layout = layout;
+  }
+
+  /**
+   * @return name announced when the pattern wins a prize
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @param rows          number of rows on each ticket
+   * @param numbersPerRow numbers contained in each row
+   * @return positions of each alternative on a ticket of that shape
+   */
+  int[][] positions(int rows, int numbersPerRow) {
+    return layout.positions(rows, numbersPerRow);
+  }
+
+  /**
+   * @param alternative positions of one alternative
+   * @return hits needed to complete the alternative
+   */
+  int required(int[] alternative) {
+    return required == 0 ? alternative.length : required;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  /**
+   * @return positions from first (inclusive) to end (exclusive)
+   */
+  private static int[] span(int first, int end) {
+    int[] positions = new int[end - first];
+    for (int k = 0; k < positions.length; k++) {
+      positions[k] = first + k;
+    }
+    return positions;
+  }
+
+  /**
+   * @return positions of every number in a row
+   */
+  private static int[] row(int row, int numbersPerRow) {
+    return span(row * numbersPerRow, (row + 1) * numbersPerRow);
+  }
+}
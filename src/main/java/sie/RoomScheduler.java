@@ -0,0 +1,262 @@
+package sie;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the draws of many games on a timer. Rooms do not get a thread each, every draw is a short task
+ * on a small shared pool of timer threads, so tens of thousands of rooms can be scheduled at once.
+ * Each room draws at its own fixed rate until its game is over, and can be paused, resumed or
+ * cancelled in between.
+ */
+public class RoomScheduler implements AutoCloseable {
+
+  private final ScheduledThreadPoolExecutor timer;
+  private final int maxRooms;
+  private final AtomicInteger activeRooms = new AtomicInteger();
+  // rooms scheduled and not yet done, finished as cancelled when the scheduler is closed
+  private final Set<ScheduledRoom> rooms = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Parameterized constructor
+   *
+   * @param threads  number of timer threads shared by every room
+   * @param maxRooms most rooms allowed to run at the same time
+   */
+  public RoomScheduler(int threads, int maxRooms) {
+    if (threads < 1 || maxRooms < 1) {
+      throw new IllegalArgumentException("Threads and rooms must be positive");
+    }
+    this.timer = new ScheduledThreadPoolExecutor(threads, runnable -> {
+      Thread thread = new Thread(runnable, "housie-room-timer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    // cancelled rooms are dropped from the queue straight away rather than when they fall due
+    timer.setRemoveOnCancelPolicy(true);
+    this.maxRooms = maxRooms;
+  }
+
+  /**
+   * Default constructor, one timer thread per processor and no practical limit on rooms
+   */
+  public RoomScheduler() {
+    this(Runtime.getRuntime().availableProcessors(), Integer.MAX_VALUE);
+  }
+
+  /**
+   * Starts drawing numbers in a room, the first one interval after this call
+   *
+   * @param housie   game to draw for, must not be driven by anything else while scheduled
+   * @param interval time between draws
+   * @param unit     unit of the interval
+   * @return handle to pause, resume or cancel the room
+   * @throws IllegalStateException if the scheduler already runs the most rooms allowed or is closed
+   */
+  public ScheduledRoom schedule(Housie housie, long interval, TimeUnit unit) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("Interval must be positive");
+    }
+    int active;
+    do {
+      active = activeRooms.get();
+      if (active >= maxRooms) {
+        throw new IllegalStateException("Already running " + maxRooms + " rooms");
+      }
+    } while (!activeRooms.compareAndSet(active, active + 1));
+    if (timer.isShutdown()) {
+      activeRooms.decrementAndGet();
+      throw new IllegalStateException("Scheduler is closed");
+    }
+    ScheduledRoom room = new ScheduledRoom(housie, unit.toNanos(interval));
+    rooms.add(room);
+    try {
+      room.future = timer.scheduleAtFixedRate(room::draw, interval, interval, unit);
+    } catch (RejectedExecutionException e) {
+      // closed since the check above
+      room.finish();
+      throw new IllegalStateException("Scheduler is closed");
+    }
+    if (room.finished) {
+      // a very short game can be over before its future was handed back
+      room.future.cancel(false);
+    }
+    return room;
+  }
+
+  /**
+   * @return number of rooms scheduled and not yet over or cancelled
+   */
+  public int getActiveRooms() {
+    return activeRooms.get();
+  }
+
+  /**
+   * Stops every room and the timer threads. Rooms not done yet are finished as cancelled, so anyone
+   * waiting on them is released and they no longer count as active.
+   */
+  @Override
+  public void close() {
+    timer.shutdownNow();
+    for (ScheduledRoom room : rooms) {
+      room.finish();
+    }
+  }
+
+  /**
+   * A room drawing on the timer. Draws of one room never overlap, the timer only runs the next one
+   * once the previous one has finished.
+   */
+  public final class ScheduledRoom {
+
+    private final Housie housie;
+    private final long intervalNanos;
+    private final long startNanos;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile ScheduledFuture<?> future;
+    private volatile boolean paused = false;
+    private volatile boolean finished = false;
+    private volatile RuntimeException failure;
+    // timer ticks so far, paused ones included, and how late they ran
+    private long ticks = 0;
+    private volatile long draws = 0;
+    private volatile long totalLatenessNanos = 0;
+    private volatile long maxLatenessNanos = 0;
+
+    private ScheduledRoom(Housie housie, long intervalNanos) {
+      this.housie = housie;
+      this.intervalNanos = intervalNanos;
+      this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Body of every timer tick
+     */
+    private void draw() {
+      long lateness = System.nanoTime() - (startNanos + ++ticks * intervalNanos);
+      if (paused || finished) {
+        return;
+      }
+      try {
+        boolean over = housie.callNumber();
+        draws++;
+        totalLatenessNanos += Math.max(0, lateness);
+        maxLatenessNanos = Math.max(maxLatenessNanos, lateness);
+        if (over) {
+          finish();
+        }
+      } catch (RuntimeException e) {
+        failure = e;
+        finish();
+      }
+    }
+
+    /**
+     * Private helper that stops the timer for this room and frees its place
+     */
+    private void finish() {
+      synchronized (this) {
+        if (finished) {
+          return;
+        }
+        finished = true;
+      }
+      // the future is missing when the room finishes before schedule returned, schedule cancels it
+      if (future != null) {
+        future.cancel(false);
+      }
+      rooms.remove(this);
+      activeRooms.decrementAndGet();
+      done.countDown();
+    }
+
+    /**
+     * Skips draws until the room is resumed, the timer keeps ticking so the room stays on its beat
+     */
+    public void pause() {
+      paused = true;
+    }
+
+    /**
+     * Draws again from the next tick
+     */
+    public void resume() {
+      paused = false;
+    }
+
+    /**
+     * Stops drawing for good, a draw already running completes
+     */
+    public void cancel() {
+      finish();
+    }
+
+    /**
+     * @return true if the room is paused
+     */
+    public boolean isPaused() {
+      return paused;
+    }
+
+    /**
+     * @return true once the game is over, the room was cancelled or a draw failed
+     */
+    public boolean isDone() {
+      return finished;
+    }
+
+    /**
+     * Waits for the room to be done
+     *
+     * @param timeout longest time to wait
+     * @param unit    unit of the timeout
+     * @return true if the room is done, false if the time ran out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+      return done.await(timeout, unit);
+    }
+
+    /**
+     * @return game the room draws for
+     */
+    public Housie getHousie() {
+      return housie;
+    }
+
+    /**
+     * @return exception thrown by a draw, null if none failed
+     */
+    public RuntimeException getFailure() {
+      return failure;
+    }
+
+    /**
+     * @return numbers drawn by the timer so far
+     */
+    public long getDraws() {
+      return draws;
+    }
+
+    /**
+     * @return mean time draws ran after they were due in nanoseconds
+     */
+    public long getMeanLatenessNanos() {
+      long count = draws;
+      return count == 0 ? 0 : totalLatenessNanos / count;
+    }
+
+    /**
+     * @return longest time a draw ran after it was due in nanoseconds
+     */
+    public long getMaxLatenessNanos() {
+      return maxLatenessNanos;
+    }
+  }
+}
@@ -0,0 +1,344 @@
+package sie;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Caller of a game whose tickets are sharded across {@link ShardWorker} processes, for games larger
+ * than one JVM can check within a draw. The coordinator owns the draw sequence and the prizes. Each
+ * draw is sent to every worker at once, the workers mark their own tickets in parallel and answer with
+ * the players who completed a pattern, and the coordinator merges the answers by player id (every
+ * candidate of a draw shares its draw index) to award the prizes exactly as {@link Housie} would.
+ * <p>
+ * The round trip of every draw, from sending the number to merging the last answer, is recorded next
+ * to the time the slowest worker spent checking its tickets.
+ */
+public final class ShardCoordinator implements Closeable {
+
+  private static final int NO_WINNER = -1;
+
+  private final List<Socket> sockets = new ArrayList<>();
+  private final List<DataInputStream> inputs = new ArrayList<>();
+  private final List<DataOutputStream> outputs = new ArrayList<>();
+  private final DrawSequence draws;
+  private final List<Prize> prizes;
+  private final GameListener listener;
+  private final int players;
+  // pattern of each prize and highest rank awarded for each pattern
+  private final int[] patternOfPrize;
+  private final int[] maxRank;
+  private final int[] completionsOfPattern;
+  // player id that won each prize and the draw it was won on, NO_WINNER and 0 while it is still open
+  private final int[] prizeWinner;
+  private final int[] prizeDraw;
+  // candidates of the current draw for each pattern, merged across workers in player order
+  private final int[][] candidates;
+  private final int[] candidateCount;
+  // completions of each pattern on the current draw, listed or not
+  private final int[] drawCompletions;
+  private final LatencyHistogram roundTripLatency = new LatencyHistogram();
+  private final LatencyHistogram workerLatency = new LatencyHistogram();
+  private int prizesLeft = 0;
+  private int totalNumbersCalled = 0;
+  private boolean gameOver = false;
+
+  /**
+   * Connects to the workers and deals each of them an even, contiguous share of the players. The
+   * tickets are dealt by {@link ShardWorker#deal}, so the same seed deals the same tickets however
+   * many workers there are.
+   *
+   * @param workers       addresses of the workers, in player order
+   * @param players       number of players, each holding one ticket
+   * @param rows          number of rows on each ticket
+   * @param columns       number of columns on each ticket
+   * @param numbersPerRow numbers contained in each row
+   * @param seed          seed the tickets are dealt from
+   * @param draws         order in which the numbers are called
+   * @param prizes        prizes of the game, each using one of the standard patterns
+   * @param listener      receives the events of the game
+   * @throws IOException if a worker cannot be reached or rejects its shard
+   */
+  public ShardCoordinator(List<InetSocketAddress> workers, int players, int rows, int columns, int numbersPerRow,
+      long seed, DrawSequence draws, List<Prize> prizes, GameListener listener) throws IOException {
+    if (workers.isEmpty() || players < workers.size()) {
+      throw new IllegalArgumentException("Need at least one worker and one player per worker");
+    }
+    if (prizes.isEmpty() || prizes.size() > Housie.MAXIMUM_PRIZES) {
+      throw new IllegalArgumentException("A game needs between 1 and " + Housie.MAXIMUM_PRIZES + " prizes");
+    }
+    this.draws = draws;
+    this.prizes = List.copyOf(prizes);
+    this.listener = listener;
+    this.players = players;
+
+    // number the patterns by first appearance, as the workers do
+    List<PrizePattern> distinct = new ArrayList<>();
+    this.patternOfPrize = new int[prizes.size()];
+    for (int k = 0; k < prizes.size(); k++) {
+      PrizePattern pattern = prizes.get(k).getPattern();
+      if (!ShardWorker.PATTERNS.contains(pattern)) {
+        throw new IllegalArgumentException("Sharded prizes must use a standard pattern, not " + pattern);
+      }
+      if (!distinct.contains(pattern)) {
+        distinct.add(pattern);
+      }
+      patternOfPrize[k] = distinct.indexOf(pattern);
+    }
+    this.maxRank = new int[distinct.size()];
+    for (int k = 0; k < prizes.size(); k++) {
+      maxRank[patternOfPrize[k]] = Math.max(maxRank[patternOfPrize[k]], prizes.get(k).getRank());
+    }
+    this.completionsOfPattern = new int[distinct.size()];
+    this.candidates = new int[distinct.size()][];
+    for (int p = 0; p < distinct.size(); p++) {
+      candidates[p] = new int[maxRank[p]];
+    }
+    this.candidateCount = new int[distinct.size()];
+    this.drawCompletions = new int[distinct.size()];
+    this.prizeWinner = new int[prizes.size()];
+    this.prizeDraw = new int[prizes.size()];
+    Arrays.fill(prizeWinner, NO_WINNER);
+
+    try {
+      int achievable = -1;
+      for (int w = 0; w < workers.size(); w++) {
+        int first = (int) ((long) players * w / workers.size());
+        int count = (int) ((long) players * (w + 1) / workers.size()) - first;
+        Socket socket = new Socket(workers.get(w).getAddress(), workers.get(w).getPort());
+        sockets.add(socket);
+        socket.setTcpNoDelay(true);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        outputs.add(out);
+        inputs.add(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+        out.write(ShardWorker.SETUP);
+        out.writeInt(first);
+        out.writeInt(count);
+        out.writeInt(rows);
+        out.writeInt(columns);
+        out.writeInt(numbersPerRow);
+        out.writeInt(draws.getRange());
+        out.writeLong(seed);
+        out.writeInt(prizes.size());
+        for (Prize prize : prizes) {
+          out.writeInt(ShardWorker.PATTERNS.indexOf(prize.getPattern()));
+          out.writeInt(prize.getRank());
+        }
+        out.flush();
+      }
+      // the workers deal their tickets in parallel, then confirm one by one
+      for (DataInputStream in : inputs) {
+        in.readInt();
+        achievable &= in.readInt();
+      }
+      for (int k = 0; k < prizes.size(); k++) {
+        if ((achievable & (1 << patternOfPrize[k])) != 0 && prizes.get(k).getRank() <= players) {
+          prizesLeft++;
+        }
+      }
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+    listener.onTicketsGenerated(players);
+  }
+
+  /**
+   * Calls the next number on every worker and awards the prizes it completes
+   *
+   * @return true if the game is over
+   * @throws IOException if a worker fails, the game cannot carry on without its tickets
+   * @throws IllegalStateException if the game is already over
+   */
+  public boolean callNumber() throws IOException {
+    if (gameOver) {
+      throw new IllegalStateException("Game is over");
+    }
+    int number = draws.next();
+    totalNumbersCalled++;
+    listener.onNumberDrawn(number, totalNumbersCalled);
+    int open = openPatterns();
+    long start = System.nanoTime();
+    for (DataOutputStream out : outputs) {
+      out.write(ShardWorker.DRAW);
+      out.writeInt(number);
+      out.writeInt(open);
+      out.flush();
+    }
+    Arrays.fill(candidateCount, 0);
+    Arrays.fill(drawCompletions, 0);
+    long slowest = 0;
+    // workers hold contiguous players in order, so appending their lists keeps player order
+    for (DataInputStream in : inputs) {
+      slowest = Math.max(slowest, in.readLong());
+      for (int p = 0; p < candidates.length; p++) {
+        drawCompletions[p] += in.readInt();
+        int listed = in.readInt();
+        for (int i = 0; i < listed; i++) {
+          int player = in.readInt();
+          if (candidateCount[p] < candidates[p].length) {
+            candidates[p][candidateCount[p]++] = player;
+          }
+        }
+      }
+    }
+    roundTripLatency.record(System.nanoTime() - start);
+    workerLatency.record(slowest);
+
+    for (int p = 0; p < candidates.length; p++) {
+      for (int i = 0; i < candidateCount[p]; i++) {
+        int rank = completionsOfPattern[p] + i + 1;
+        for (int k = 0; k < prizes.size(); k++) {
+          if (patternOfPrize[k] == p && prizes.get(k).getRank() == rank && prizeWinner[k] == NO_WINNER) {
+            prizeWinner[k] = candidates[p][i];
+            prizeDraw[k] = totalNumbersCalled;
+            prizesLeft--;
+            listener.onPrizeWon(prizes.get(k), candidates[p][i] + 1, totalNumbersCalled);
+          }
+        }
+      }
+      completionsOfPattern[p] += drawCompletions[p];
+    }
+    if (prizesLeft == 0 || !draws.hasNext()) {
+      gameOver = true;
+      listener.onGameOver(totalNumbersCalled);
+    }
+    return gameOver;
+  }
+
+  /**
+   * @return true once the game is over
+   */
+  public boolean isOver() {
+    return gameOver;
+  }
+
+  /**
+   * @return how many numbers have been called so far
+   */
+  public int getTotalNumbersCalled() {
+    return totalNumbersCalled;
+  }
+
+  /**
+   * @return number of players across every worker
+   */
+  public int getNumberOfPlayers() {
+    return players;
+  }
+
+  /**
+   * @return prizes of the game
+   */
+  public List<Prize> getPrizes() {
+    return prizes;
+  }
+
+  /**
+   * @param prize index of the prize
+   * @return id of the player who won the prize, 0 if it has not been won
+   */
+  public int getPrizeWinner(int prize) {
+    return prizeWinner[prize] + 1;
+  }
+
+  /**
+   * @param prize index of the prize
+   * @return draw on which the prize was won, 0 if it has not been won
+   */
+  public int getPrizeDraw(int prize) {
+    return prizeDraw[prize];
+  }
+
+  /**
+   * @return time from sending each draw to merging the answer of the last worker, in nanoseconds
+   */
+  public LatencyHistogram getRoundTripLatency() {
+    return roundTripLatency;
+  }
+
+  /**
+   * @return time the slowest worker spent checking its tickets on each draw, in nanoseconds
+   */
+  public LatencyHistogram getWorkerLatency() {
+    return workerLatency;
+  }
+
+  /**
+   * Disconnects from the workers, which then wait for the next game
+   */
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (Socket socket : sockets) {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * @return bit p set while pattern p still has a prize to award
+   */
+  private int openPatterns() {
+    int open = 0;
+    for (int k = 0; k < prizes.size(); k++) {
+      if (prizeWinner[k] == NO_WINNER) {
+        open |= 1 << patternOfPrize[k];
+      }
+    }
+    return open;
+  }
+
+  /**
+   * Plays a sharded game from the command line and prints the winners and the draw latencies
+   * <p>
+   * Usage: host:port[,host:port...] range players rows columns numbersPerRow [seed]
+   *
+   * @param args workers and game parameters, seed is optional
+   * @throws IOException if a worker fails
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 6) {
+      System.out.println("Usage: ShardCoordinator host:port[,host:port...] range players rows columns numbersPerRow [seed]");
+      return;
+    }
+    List<InetSocketAddress> workers = new ArrayList<>();
+    for (String worker : args[0].split(",")) {
+      int colon = worker.lastIndexOf(':');
+      workers.add(new InetSocketAddress(worker.substring(0, colon), Integer.parseInt(worker.substring(colon + 1))));
+    }
+    int range = Integer.parseInt(args[1]);
+    long seed = args.length > 6 ? Long.parseLong(args[6]) : System.nanoTime();
+    try (ShardCoordinator game = new ShardCoordinator(workers, Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+        Integer.parseInt(args[4]), Integer.parseInt(args[5]), seed, DrawSequence.shuffled(range, new SplittableRandom(seed)),
+        Prize.CLASSIC, GameListener.NONE)) {
+      while (!game.callNumber()) {
+        // play to the end
+      }
+      for (int k = 0; k < game.getPrizes().size(); k++) {
+        System.out.println(game.getPrizes().get(k).getName() + ": player " + game.getPrizeWinner(k) + " on draw "
+            + game.getPrizeDraw(k));
+      }
+      LatencyHistogram roundTrip = game.getRoundTripLatency();
+      LatencyHistogram worker = game.getWorkerLatency();
+      System.out.printf("Draws: %d, round trip p50 %d us, p99 %d us, max %d us, slowest worker p50 %d us%n",
+          game.getTotalNumbersCalled(), roundTrip.getPercentile(50) / 1000, roundTrip.getPercentile(99) / 1000,
+          roundTrip.getMax() / 1000, worker.getPercentile(50) / 1000);
+    }
+  }
+}
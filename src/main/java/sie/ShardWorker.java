@@ -0,0 +1,265 @@
+package sie;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Worker process of a sharded game. It owns the tickets of a contiguous run of players and checks
+ * every draw against them, while a {@link ShardCoordinator} owns the draw sequence and the prizes.
+ * The coordinator connects over a local socket and the two exchange binary messages:
+ * <pre>
+ * SETUP firstPlayer players rows columns numbersPerRow range seed prizes (pattern rank)...
+ *   -> tickets achievablePatterns
+ * DRAW number openPatterns
+ *   -> workerNanos, then per pattern: completions listed playerIds...
+ * </pre>
+ * Patterns are numbered by first appearance in the prize list. A worker lists at most as many
+ * completions of a pattern as the highest rank of its prizes, in player order, since later ones can
+ * never win. One coordinator is served at a time and a new game starts with each connection.
+ */
+public final class ShardWorker implements Closeable {
+
+  static final int SETUP = 'S';
+  static final int DRAW = 'D';
+  // patterns a shard can be told about, prizes of a sharded game must use one of these
+  static final List<PrizePattern> PATTERNS = List.of(PrizePattern.EARLY_FIVE, PrizePattern.TOP_LINE,
+      PrizePattern.MIDDLE_LINE, PrizePattern.BOTTOM_LINE, PrizePattern.FOUR_CORNERS, PrizePattern.ANY_LINE,
+      PrizePattern.FULL_HOUSE);
+
+  private final ServerSocket server;
+  private final Thread loop;
+  private volatile boolean running = true;
+  private volatile Socket current;
+
+  /**
+   * Binds the worker to a port on the loopback interface
+   *
+   * @param port port to listen on, 0 for any free port
+   * @throws IOException if the port cannot be bound
+   */
+  public ShardWorker(int port) throws IOException {
+    this.server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+    this.loop = new Thread(this::run, "shard-worker-" + server.getLocalPort());
+  }
+
+  /**
+   * Starts serving coordinators on a thread of its own
+   */
+  public void start() {
+    loop.start();
+  }
+
+  /**
+   * @return port the worker listens on
+   */
+  public int getPort() {
+    return server.getLocalPort();
+  }
+
+  /**
+   * Stops listening and drops the coordinator being served, if any
+   */
+  @Override
+  public void close() throws IOException {
+    running = false;
+    server.close();
+    Socket socket = current;
+    if (socket != null) {
+      socket.close();
+    }
+    try {
+      loop.join(1000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Deals the tickets of a run of players. Each ticket is generated from the seed and its own index
+   * alone, so any split of the players across workers deals exactly the same tickets.
+   *
+   * @param seed          seed of the whole game
+   * @param firstTicket   index of the first ticket in the whole game
+   * @param count         number of tickets to deal
+   * @param rows          number of rows on each ticket
+   * @param columns       number of columns on each ticket
+   * @param numbersPerRow numbers contained in each row
+   * @param range         top end of available numbers for the game
+   * @return store holding the tickets, ticket 0 being firstTicket of the game
+   */
+  static TicketStore deal(long seed, int firstTicket, int count, int rows, int columns, int numbersPerRow,
+      int range) {
+    TicketStore store = TicketStore.empty(count, rows, columns, numbersPerRow, range, false);
+    // the seed is mixed before the index goes in, so games with consecutive seeds share no tickets
+    long gameSeed = Fingerprints.mix(seed);
+    for (int ticket = 0; ticket < count; ticket++) {
+      long index = firstTicket + ticket;
+      store.fillTicket(ticket, new SplittableRandom(Fingerprints.mix(gameSeed ^ index)));
+    }
+    return store;
+  }
+
+  /**
+   * Private helper run by the worker thread, serving one coordinator after another
+   */
+  private void run() {
+    while (running) {
+      try (Socket socket = server.accept()) {
+        current = socket;
+        socket.setTcpNoDelay(true);
+        serve(new DataInputStream(new BufferedInputStream(socket.getInputStream())),
+            new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+      } catch (SocketException e) {
+        // closed by close() or by the coordinator
+      } catch (IOException | RuntimeException e) {
+        System.err.println("Shard worker dropped its coordinator: " + e);
+      } finally {
+        current = null;
+      }
+    }
+  }
+
+  /**
+   * Private helper that answers the messages of one coordinator until it disconnects
+   */
+  private static void serve(DataInputStream in, DataOutputStream out) throws IOException {
+    Shard shard = null;
+    int type;
+    while ((type = in.read()) >= 0) {
+      if (type == SETUP) {
+        shard = new Shard(in);
+        out.writeInt(shard.tickets.size());
+        out.writeInt(shard.achievable);
+      } else if (type == DRAW && shard != null) {
+        shard.draw(in.readInt(), in.readInt(), out);
+      } else {
+        throw new IOException("Unexpected message " + type);
+      }
+      out.flush();
+    }
+  }
+
+  /**
+   * Tickets of one game and the counters evaluating them
+   */
+  private static final class Shard {
+
+    private final int firstPlayer;
+    private final TicketStore tickets;
+    private final NumberIndex index;
+    private final PatternEngine engine;
+    private final PatternEngine.Completions completions = new PatternEngine.Completions();
+    // most completions of each pattern worth listing, and the ones listed on the current draw
+    private final int[] maxRank;
+    private final int[][] listed;
+    private final int[] counts;
+    private final int achievable;
+
+    private Shard(DataInputStream in) throws IOException {
+      this.firstPlayer = in.readInt();
+      int players = in.readInt();
+      int rows = in.readInt();
+      int columns = in.readInt();
+      int numbersPerRow = in.readInt();
+      int range = in.readInt();
+      long seed = in.readLong();
+      int prizes = in.readInt();
+      List<PrizePattern> distinct = new ArrayList<>();
+      int[] ranks = new int[PATTERNS.size()];
+      for (int k = 0; k < prizes; k++) {
+        int pattern = in.readInt();
+        int rank = in.readInt();
+        if (pattern < 0 || pattern >= PATTERNS.size() || rank < 1) {
+          throw new IOException("Invalid prize " + pattern + " rank " + rank);
+        }
+        if (!distinct.contains(PATTERNS.get(pattern))) {
+          distinct.add(PATTERNS.get(pattern));
+        }
+        int p = distinct.indexOf(PATTERNS.get(pattern));
+        ranks[p] = Math.max(ranks[p], rank);
+      }
+      try {
+        this.tickets = deal(seed, firstPlayer, players, rows, columns, numbersPerRow, range);
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Invalid shard: " + e.getMessage());
+      }
+      this.index = new NumberIndex(tickets);
+      this.engine = new PatternEngine(distinct, tickets);
+      this.maxRank = Arrays.copyOf(ranks, distinct.size());
+      this.listed = new int[distinct.size()][];
+      this.counts = new int[distinct.size()];
+      int mask = 0;
+      for (int p = 0; p < distinct.size(); p++) {
+        listed[p] = new int[maxRank[p]];
+        mask |= engine.isAchievable(p) ? 1 << p : 0;
+      }
+      this.achievable = mask;
+    }
+
+    /**
+     * Marks the drawn number and reports the completions of the patterns still open
+     */
+    private void draw(int number, int open, DataOutputStream out) throws IOException {
+      if (number < 1 || number > tickets.getRange()) {
+        throw new IOException("Number " + number + " is out of range");
+      }
+      long start = System.nanoTime();
+      completions.clear();
+      int perTicket = tickets.getNumbersPerTicket();
+      for (int i = index.start(number); i < index.end(number); i++) {
+        int slot = index.posting(i);
+        if (tickets.markSlot(slot)) {
+          int ticket = tickets.ticketOf(slot);
+          engine.onMark(ticket, slot - ticket * perTicket, completions);
+        }
+      }
+      // completions come out in ticket order, so the first ones listed are the lowest player ids
+      Arrays.fill(counts, 0);
+      for (int i = 0; i < completions.size(); i++) {
+        int p = completions.pattern(i);
+        if ((open & (1 << p)) != 0) {
+          if (counts[p] < maxRank[p]) {
+            listed[p][counts[p]] = firstPlayer + completions.ticket(i);
+          }
+          counts[p]++;
+        }
+      }
+      out.writeLong(System.nanoTime() - start);
+      for (int p = 0; p < counts.length; p++) {
+        out.writeInt(counts[p]);
+        int shown = Math.min(counts[p], maxRank[p]);
+        out.writeInt(shown);
+        for (int i = 0; i < shown; i++) {
+          out.writeInt(listed[p][i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs a worker until the process is killed, printing the port it listens on
+   * <p>
+   * Usage: [port]
+   *
+   * @param args port, any free port when left out
+   * @throws IOException if the port cannot be bound
+   */
+  public static void main(String[] args) throws IOException {
+    ShardWorker worker = new ShardWorker(args.length > 0 ? Integer.parseInt(args[0]) : 0);
+    worker.start();
+    System.out.println("LISTENING " + worker.getPort());
+    System.out.flush();
+  }
+}
@@ -0,0 +1,125 @@
+package sie;
+
+import java.util.SplittableRandom;
+
+/**
+ * Draw sequence that shuffles the range with a partial Fisher-Yates shuffle. Each call swaps one random
+ * number from the undrawn part of the deck into place, so a draw is O(1) and never retries. The same
+ * seed always produces the same order.
+ */
+public class ShuffledDrawSequence implements DrawSequence {
+
+  // deck[0, drawn) holds the called numbers in order, deck[drawn, range) the ones still to call
+  private final int[] deck;
+  private final SplittableRandom random;
+  // the first numbers of the deck are called in place without shuffling, until the sequence is reset
+  private int fixed;
+  private int drawn = 0;
+
+  /**
+   * @param range  top end of the numbers to call
+   * @param random source of randomness, owned by the sequence from now on
+   */
+  public ShuffledDrawSequence(int range, SplittableRandom random) {
+    this.deck = new int[range];
+    for (int i = 0; i < range; i++) {
+      deck[i] = i + 1;
+    }
+    this.fixed = 0;
+    this.random = random;
+  }
+
+  /**
+   * Sequence that calls known numbers first, in order, then the rest of the range shuffled. Carries on
+   * a recovered game whose original seed is not known.
+   *
+   * @param range  top end of the numbers to call
+   * @param first  numbers to call first, each between 1 and the range and none repeated
+   * @param random source of randomness, owned by the sequence from now on
+   */
+  public ShuffledDrawSequence(int range, int[] first, SplittableRandom random) {
+    this.deck = new int[range];
+    boolean[] seen = new boolean[range + 1];
+    for (int i = 0; i < first.length; i++) {
+      if (first[i] < 1 || first[i] > range || seen[first[i]]) {
+        throw new IllegalArgumentException("Numbers called first must be unique and between 1 and " + range);
+      }
+      seen[first[i]] = true;
+      deck[i] = first[i];
+    }
+    for (int number = 1, i = first.length; number <= range; number++) {
+      if (!seen[number]) {
+        deck[i++] = number;
+      }
+    }
+    this.fixed = first.length;
+    this.random = random;
+  }
+
+  /**
+   * @param range top end of the numbers to call
+   * @param seed  seed the order is derived from
+   */
+  public ShuffledDrawSequence(int range, long seed) {
+    this(range, new SplittableRandom(seed));
+  }
+
+  /**
+   * Exports the complete draw order a seed produces, for audits and reproducible games
+   *
+   * @param range top end of the numbers to call
+   * @param seed  seed the order is derived from
+   * @return every number in the range in the order it would be called
+   */
+  public static int[] drawOrder(int range, long seed) {
+    ShuffledDrawSequence sequence = new ShuffledDrawSequence(range, seed);
+    while (sequence.hasNext()) {
+      sequence.next();
+    }
+    return sequence.getCalledNumbers();
+  }
+
+  @Override
+  public int getRange() {
+    return deck.length;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return drawn < deck.length;
+  }
+
+  @Override
+  public int next() {
+    if (!hasNext()) {
+      throw new IllegalStateException("Every number in the range has been called");
+    }
+    if (drawn < fixed) {
+      return deck[drawn++];
+    }
+    // swap a random undrawn number into the next position
+    int pick = drawn + random.nextInt(deck.length - drawn);
+    int number = deck[pick];
+    deck[pick] = deck[drawn];
+    deck[drawn++] = number;
+    return number;
+  }
+
+  /**
+   * Starts a new order from the sequence's own randomness. The deck is shuffled from wherever it was
+   * left, which is as random as shuffling it from the start. Numbers given to be called first are not
+   * called first again.
+   */
+  @Override
+  public void reset() {
+    drawn = 0;
+    fixed = 0;
+  }
+
+  @Override
+  public int[] getCalledNumbers() {
+    int[] called = new int[drawn];
+    System.arraycopy(deck, 0, called, 0, drawn);
+    return called;
+  }
+}
@@ -0,0 +1,179 @@
+package sie;
+
+/**
+ * Aggregate results of a batch of simulated games. Results collected by separate workers are merged
+ * into one.
+ */
+public class SimulationResult {
+
+  private final DrawHistogram earlyFive;
+  private final DrawHistogram topLine;
+  private final DrawHistogram fullHouse;
+  // players completing each prize on its winning draw, summed over the resolved games that awarded it
+  private long earlyFiveWinners = 0;
+  private long topLineWinners = 0;
+  private long fullHouseWinners = 0;
+  private long games = 0;
+  private long elapsedNanos = 0;
+
+  /**
+   * @param range top end of available numbers for the game, the most draws a game can take
+   */
+  public SimulationResult(int range) {
+    this.earlyFive = new DrawHistogram(range);
+    this.topLine = new DrawHistogram(range);
+    this.fullHouse = new DrawHistogram(range);
+  }
+
+  /**
+   * Records the draws on which the prizes of a finished game were won
+   *
+   * @param housie finished game
+   */
+  public void record(Housie housie) {
+    record(housie.getEarlyFiveDraw(), housie.getTopLineDraw(), housie.getFullHouseDraw());
+  }
+
+  /**
+   * Records the draws on which the prizes of a resolved game were won
+   *
+   * @param result resolved game
+   */
+  public void record(GameResult result) {
+    record(result.getEarlyFiveDraw(), result.getTopLineDraw(), result.getFullHouseDraw());
+    earlyFiveWinners += result.getEarlyFiveTies();
+    topLineWinners += result.getTopLineTies();
+    fullHouseWinners += result.getFullHouseTies();
+  }
+
+  /**
+   * Records the draws on which the prizes of a finished game were won, 0 for a prize nobody won
+   *
+   * @param earlyFiveDraw draw on which early five was won
+   * @param topLineDraw   draw on which top line was won
+   * @param fullHouseDraw draw on which full house was won
+   */
+  public void record(int earlyFiveDraw, int topLineDraw, int fullHouseDraw) {
+    games++;
+    if (earlyFiveDraw > 0) {
+      earlyFive.record(earlyFiveDraw);
+    }
+    if (topLineDraw > 0) {
+      topLine.record(topLineDraw);
+    }
+    if (fullHouseDraw > 0) {
+      fullHouse.record(fullHouseDraw);
+    }
+  }
+
+  /**
+   * Adds the games of another result to this one
+   *
+   * @param other result to merge in
+   */
+  public void merge(SimulationResult other) {
+    games += other.games;
+    earlyFive.merge(other.earlyFive);
+    topLine.merge(other.topLine);
+    fullHouse.merge(other.fullHouse);
+    earlyFiveWinners += other.earlyFiveWinners;
+    topLineWinners += other.topLineWinners;
+    fullHouseWinners += other.fullHouseWinners;
+  }
+
+  /**
+   * @return number of games played
+   */
+  public long getGames() {
+    return games;
+  }
+
+  /**
+   * @return wall clock time the simulation took in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * @param elapsedNanos wall clock time the simulation took in nanoseconds
+   */
+  public void setElapsedNanos(long elapsedNanos) {
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * @return games played per second of wall clock time
+   */
+  public double getGamesPerSecond() {
+    return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+  }
+
+  /**
+   * @return distribution of the draw on which early five was won
+   */
+  public DrawHistogram getEarlyFive() {
+    return earlyFive;
+  }
+
+  /**
+   * @return distribution of the draw on which top line was won
+   */
+  public DrawHistogram getTopLine() {
+    return topLine;
+  }
+
+  /**
+   * @return distribution of the draw on which full house was won
+   */
+  public DrawHistogram getFullHouse() {
+    return fullHouse;
+  }
+
+  /**
+   * @return mean number of players completing early five on the draw it was won, over resolved games
+   */
+  public double getMeanEarlyFiveWinners() {
+    return earlyFive.getCount() == 0 ? 0 : (double) earlyFiveWinners / earlyFive.getCount();
+  }
+
+  /**
+   * @return mean number of players completing their top line on the draw it was won, over resolved games
+   */
+  public double getMeanTopLineWinners() {
+    return topLine.getCount() == 0 ? 0 : (double) topLineWinners / topLine.getCount();
+  }
+
+  /**
+   * @return mean number of players completing their ticket on the draw it was won, over resolved games
+   */
+  public double getMeanFullHouseWinners() {
+    return fullHouse.getCount() == 0 ? 0 : (double) fullHouseWinners / fullHouse.getCount();
+  }
+
+  /**
+   * Prints the throughput and the draws-to-win distribution of each prize
+   */
+  public void printReport() {
+    System.out.println("====================");
+    System.out.println("     Simulation:");
+    System.out.printf("Games: %d in %.3f s (%.1f games/sec)%n", games, elapsedNanos / 1e9, getGamesPerSecond());
+    printDistribution("Early Five", earlyFive);
+    printDistribution("Top Line", topLine);
+    printDistribution("Full House", fullHouse);
+    System.out.println("====================");
+  }
+
+  /**
+   * Private helper that prints one line per prize
+   */
+  private static void printDistribution(String prize, DrawHistogram histogram) {
+    if (histogram.getCount() == 0) {
+      System.out.println(prize + ": never won");
+      return;
+    }
+    System.out.printf("%s: mean %.2f, min %d, p50 %d, p90 %d, p99 %d, max %d draws%n", prize, histogram.getMean(),
+        histogram.getMin(), histogram.getPercentile(50), histogram.getPercentile(90), histogram.getPercentile(99),
+        histogram.getMax());
+  }
+}
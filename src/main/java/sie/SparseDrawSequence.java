@@ -0,0 +1,130 @@
+package sie;
+
+import java.util.SplittableRandom;
+
+/**
+ * Draw sequence for huge ranges. It runs the same partial Fisher-Yates shuffle as
+ * {@link ShuffledDrawSequence} over a virtual deck where position i holds i + 1 until a swap moves
+ * another number there. Only the positions touched by a swap are kept, in a hash map, so memory grows
+ * with the numbers called rather than with the range, and a draw is still O(1) with no retries.
+ */
+public class SparseDrawSequence implements DrawSequence {
+
+  private final int range;
+  // deck positions whose number was swapped away from position + 1
+  private final IntIntHashMap deck;
+  private final SplittableRandom random;
+  // the first numbers of the deck are called in place without shuffling, until the sequence is reset
+  private int fixed;
+  private int drawn = 0;
+
+  /**
+   * @param range  top end of the numbers to call
+   * @param random source of randomness, owned by the sequence from now on
+   */
+  public SparseDrawSequence(int range, SplittableRandom random) {
+    this(range, new int[0], random);
+  }
+
+  /**
+   * @param range top end of the numbers to call
+   * @param seed  seed the order is derived from
+   */
+  public SparseDrawSequence(int range, long seed) {
+    this(range, new SplittableRandom(seed));
+  }
+
+  /**
+   * Sequence that calls known numbers first, in order, then the rest of the range shuffled. Carries on
+   * a recovered game whose original seed is not known.
+   *
+   * @param range  top end of the numbers to call
+   * @param first  numbers to call first, each between 1 and the range and none repeated
+   * @param random source of randomness, owned by the sequence from now on
+   */
+  public SparseDrawSequence(int range, int[] first, SplittableRandom random) {
+    if (range < 1) {
+      throw new IllegalArgumentException("Range must be at least 1");
+    }
+    this.range = range;
+    this.deck = new IntIntHashMap(2 * first.length);
+    // where each number moved by the swaps below now sits
+    IntIntHashMap positionOf = new IntIntHashMap(2 * first.length);
+    for (int i = 0; i < first.length; i++) {
+      int number = first[i];
+      int position = number < 1 || number > range ? -1 : positionOf.get(number, number - 1);
+      if (position < i) {
+        throw new IllegalArgumentException("Numbers called first must be unique and between 1 and " + range);
+      }
+      // swap the number into position i
+      int displaced = numberAt(i);
+      deck.put(position, displaced);
+      positionOf.put(displaced, position);
+      deck.put(i, number);
+      positionOf.put(number, i);
+    }
+    this.fixed = first.length;
+    this.random = random;
+  }
+
+  @Override
+  public int getRange() {
+    return range;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return drawn < range;
+  }
+
+  @Override
+  public int next() {
+    if (!hasNext()) {
+      throw new IllegalStateException("Every number in the range has been called");
+    }
+    if (drawn < fixed) {
+      return numberAt(drawn++);
+    }
+    // swap a random undrawn number into the next position
+    int pick = drawn + random.nextInt(range - drawn);
+    int number = numberAt(pick);
+    deck.put(pick, numberAt(drawn));
+    deck.put(drawn++, number);
+    return number;
+  }
+
+  /**
+   * Starts a new order from the sequence's own randomness. The deck goes back to the identity so the
+   * swaps of the last order are dropped and the map only ever holds the positions of one game. Numbers
+   * given to be called first are not called first again.
+   */
+  @Override
+  public void reset() {
+    deck.clear();
+    drawn = 0;
+    fixed = 0;
+  }
+
+  @Override
+  public int[] getCalledNumbers() {
+    int[] called = new int[drawn];
+    for (int i = 0; i < drawn; i++) {
+      called[i] = numberAt(i);
+    }
+    return called;
+  }
+
+  /**
+   * @return deck positions held in the map
+   */
+  int touchedPositions() {
+    return deck.size();
+  }
+
+  /**
+   * @return number currently at a position of the deck
+   */
+  private int numberAt(int position) {
+    return deck.get(position, position + 1);
+  }
+}
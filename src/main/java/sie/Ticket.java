@@ -1,32 +1,23 @@
 package sie;
 
-import java.util.HashSet;
-import java.util.Random;
-import java.util.Set;
+import java.util.SplittableRandom;
 
 /**
- * Class that holds the information needed for a ticket in the game Housie
+ * Class that holds the information needed for a ticket in the game Housie. A ticket is a thin view
+ * over one entry of a {@link TicketStore}, the numbers and marks themselves live in the store.
  */
 public class Ticket {
 
-  private final int rows;
-  private final int columns;
-  private final int numbersPerRow;
-  // Comment this out for performance
-  private final int[][] ticket;
-  // end comment
-  private final Set<Integer> topLine;
-  private final Set<Integer> fullHouse;
-  private final Random random;
-  private final int range;
+  private final TicketStore store;
+  private final int index;
 
   // With how the rules currently sits, there is actually no reason to fully build the ticket.
-  // The only things that need to be kept track of are the top row and all of the numbers in
-  // the ticket. I am filling the ticket to stay in tune with the nature of the game and to be
-  // able to print the board during testing
+  // The only things that need to be kept track of are the numbers of each row and a count of the
+  // numbers still waiting to be hit. The store only keeps a bitmap of the columns each row uses and
+  // the grid is rebuilt from it when printing.
 
   /**
-   * Ticket for the game Housie
+   * Ticket for the game Housie, backed by a store of its own
    *
    * @param rows          on the ticket
    * @param columns       on the ticket
@@ -34,118 +25,106 @@ public class Ticket {
    * @param range         of numbers allowed on board, must be larger that columns x numbers per row
    */
   public Ticket(int rows, int columns, int numbersPerRow, int range) {
-    this.rows = rows;
-    this.columns = columns;
-    // Comment this out for performance
-    this.ticket = new int[rows][columns];
-    // end comment
-    this.numbersPerRow = numbersPerRow;
-    this.random = new Random();
-    this.topLine = new HashSet<>();
-    this.fullHouse = new HashSet<>();
-    this.range = range;
-
-    fillTicket();
+    this(TicketStore.generate(1, rows, columns, numbersPerRow, range, new SplittableRandom()), 0);
   }
 
   /**
-   * Returns the number of hits to the ticket by calculating the original count of numbers then subtracting
-   * the current number of untouched numbers.
+   * Ticket viewing an entry of an existing store
+   *
+   * @param store store holding the ticket
+   * @param index index of the ticket in the store
+   */
+  public Ticket(TicketStore store, int index) {
+    this.store = store;
+    this.index = index;
+  }
+
+  /**
+   * Returns the number of hits to the ticket
    *
    * @return int number of hits
    */
   public int getNumberOfHits() {
-    return (rows * numbersPerRow) - fullHouse.size();
+    return store.hits(index);
   }
 
   /**
-   * Returns boolean value true if all of the top row numbers have been hit (removed) in the top line set
+   * Returns boolean value true if all of the top row numbers have been hit
    *
    * @return boolean if ticket is a top line winner
    */
   public boolean topLineWinner() {
-    return topLine.size() == 0;
+    return store.topLineComplete(index);
   }
 
   /**
-   * Returns boolean value true if all of the numbers have been hit (removed) in the full house set
+   * Returns boolean value true if all of the numbers on the ticket have been hit
    *
    * @return boolean if ticket is a full house winner
    */
   public boolean fullHouseWinner() {
-    return fullHouse.size() == 0;
+    return store.fullHouseComplete(index);
   }
 
   /**
-   * @param nextInt
-   * @return
+   * Returns every number on the ticket, top row first and left to right within each row
+   *
+   * @return int array of the numbers on the ticket
+   */
+  public int[] getNumbers() {
+    return store.numbers(index);
+  }
+
+  /**
+   * Marks the number on the ticket
+   *
+   * @param nextInt number that was called
+   * @return true if the number is on the ticket and had not been hit before
    */
-  // returns true if the number was in the grid in the top line and full house or just the full house
   public boolean selectNumber(int nextInt) {
-    return (topLine.remove(nextInt) && fullHouse.remove(nextInt)) || fullHouse.remove(nextInt);
+    return store.mark(index, nextInt);
   }
 
   /**
-   * Private helper function that fills each ticket
+   * Clears the marks and prizes of the ticket in place, keeping its numbers
    */
-  private void fillTicket() {
-    // go through all the rows in the ticket
-    for (int i = 0; i < rows; i++) {
-
-      // Comment this out for performance
-      int[] row = ticket[i];
-      // end comment
-
-      for (int j = 0; j < numbersPerRow; j++) {
-        // get next random value
-        int nextInt = random.nextInt(range) + 1;
-        // ensure the value has not already been added
-        while (fullHouse.contains(nextInt)) {
-          nextInt = random.nextInt(range) + 1;
-        }
-        // add to set containing all numbers on ticket
-        fullHouse.add(nextInt);
-        // if it is the first row, add to the topline set
-        if (i == 0) {
-          topLine.add(nextInt);
-        }
-        // use a random int to generate the index and check if there is a value already at that index
-
-        // Comment this out for performance
-        int index = getIndex(random.nextInt(Integer.MAX_VALUE) + 1, columns);
-        while (row[index] > 0) {
-          // use another random int to generate index
-          index = getIndex(random.nextInt(Integer.MAX_VALUE) + 1, columns);
-        }
-        row[index] = nextInt;
-        // end comment
-      }
-    }
-    //    printTicket();
+  public void reset() {
+    store.resetCounters(index);
   }
 
   /**
-   * Helper function to retrieve next random int in the range of 1 - number of columns
+   * Deals new numbers to the ticket in place and clears its marks and prizes. Only for a ticket that is
+   * not part of a game in progress, {@link Housie#reset(SplittableRandom)} regenerates a game's tickets.
    *
-   * @param randomInt randomly generated int
-   * @param columns   number of columns which is top bound of the range
-   * @return index in the row for the next number to be placed
+   * @param random source of randomness for the new numbers
    */
-  private int getIndex(int randomInt, int columns) {
-    return randomInt % columns;
+  public void reset(SplittableRandom random) {
+    store.fillTicket(index, random);
   }
 
   /**
-   *
+   * @return store holding the ticket
+   */
+  TicketStore getStore() {
+    return store;
+  }
+
+  /**
+   * @return index of the ticket in its store
+   */
+  int getIndex() {
+    return index;
+  }
+
+  /**
+   * Prints the grid of the ticket, empty cells are shown as 0
    */
-  private void printTicket() {
+  void printTicket() {
     System.out.println("\n--- Printing Ticket");
-    for (int i = 0; i < rows; i++) {
+    for (int[] row : store.grid(index)) {
       System.out.print("[ ");
-      for (int j = 0; j < columns; j++) {
-        // Comment this out for performance
-        System.out.print("-" + ticket[i][j] + "-");
-        // end comment
+      for (int number : row) {
+        System.out.print("-" + number + "-");
       }
       System.out.println(" ]");
     }
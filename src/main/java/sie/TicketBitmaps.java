@@ -0,0 +1,267 @@
+package sie;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Every ticket of a store kept as fixed width bitmaps, one per row with a bit for each number of the
+ * range, back to back in one array. The status of the whole population against a set of called
+ * numbers is recomputed in one pass: each row is AND-ed with the called number bitmap a word at a time
+ * and the hits counted with {@link Long#bitCount}, which compiles to a single popcount instruction.
+ * Nothing is read from the tickets' marks, so the status can be taken of any set of called numbers,
+ * such as a room being settled or a what-if for the next draw.
+ * <p>
+ * Status arrays are allocated once and overwritten by each evaluation. The row bitmaps are as wide as
+ * the range, so they suit ranges up to {@link Housie#HUGE_RANGE} rather than huge range games.
+ */
+public final class TicketBitmaps {
+
+  // fewest tickets handed to a separate fork join task
+  private static final int MINIMUM_SHARD = 1 << 14;
+
+  private final int size;
+  private final int rows;
+  private final int numbersPerRow;
+  private final int range;
+  // longs per row bitmap, bit n of a row is set if the row holds number n
+  private final int words;
+  private final long[] bits;
+  // status of each ticket after the last evaluation
+  private final int[] hits;
+  private final int[] remaining;
+  private final int[] complete;
+
+  /**
+   * Private constructor, use {@link #of(TicketStore)}
+   */
+  private TicketBitmaps(int size, int rows, int numbersPerRow, int range) {
+    this.size = size;
+    this.rows = rows;
+    this.numbersPerRow = numbersPerRow;
+    this.range = range;
+    this.words = (range >>> 6) + 1;
+    this.bits = new long[Math.multiplyExact(Math.multiplyExact(size, rows), words)];
+    this.hits = new int[size];
+    this.remaining = new int[Math.multiplyExact(size, rows)];
+    this.complete = new int[size];
+  }
+
+  /**
+   * Lays the tickets of a store out as row bitmaps
+   *
+   * @param tickets tickets to lay out, over a range of at most {@link Housie#HUGE_RANGE}
+   * @return bitmaps of every ticket, before any evaluation every number is still to be hit
+   * @throws ArithmeticException if the bitmaps of every ticket do not fit in one array
+   */
+  public static TicketBitmaps of(TicketStore tickets) {
+    if (tickets.getRange() > Housie.HUGE_RANGE) {
+      throw new IllegalArgumentException("Ticket bitmaps cover ranges of at most " + Housie.HUGE_RANGE);
+    }
+    TicketBitmaps target = new TicketBitmaps(tickets.size(), tickets.getRows(), tickets.getNumbersPerRow(),
+        tickets.getRange());
+    int numbersPerRow = tickets.getNumbersPerRow();
+    for (int ticket = 0; ticket < tickets.size(); ticket++) {
+      for (int row = 0; row < target.rows; row++) {
+        int first = ticket * tickets.getNumbersPerTicket() + row * numbersPerRow;
+        int base = (ticket * target.rows + row) * target.words;
+        for (int slot = first; slot < first + numbersPerRow; slot++) {
+          int number = tickets.number(slot);
+          target.bits[base + (number >>> 6)] |= 1L << number;
+        }
+      }
+    }
+    Arrays.fill(target.remaining, numbersPerRow);
+    return target;
+  }
+
+  /**
+   * Builds the called number bitmap of a list of numbers, laid out as the rows are
+   *
+   * @param range   top end of available numbers for the game
+   * @param numbers numbers called so far
+   * @return bitmap with bit n set if n was called
+   */
+  public static long[] calledBitmap(int range, int... numbers) {
+    long[] called = new long[(range >>> 6) + 1];
+    for (int number : numbers) {
+      if (number < 1 || number > range) {
+        throw new IllegalArgumentException("Number " + number + " is out of range");
+      }
+      called[number >>> 6] |= 1L << number;
+    }
+    return called;
+  }
+
+  /**
+   * Recomputes the status of every ticket on the calling thread
+   *
+   * @param called bitmap of the called numbers, see {@link #calledBitmap}
+   */
+  public void evaluate(long[] called) {
+    evaluate(called, null);
+  }
+
+  /**
+   * Recomputes the status of every ticket, splitting the tickets across a fork join pool
+   *
+   * @param called bitmap of the called numbers, see {@link #calledBitmap}
+   * @param pool   pool running the evaluation, null to evaluate on the calling thread
+   */
+  public void evaluate(long[] called, ForkJoinPool pool) {
+    if (called.length != words) {
+      throw new IllegalArgumentException("Called bitmap must have " + words + " words for a range of " + range);
+    }
+    if (pool == null || size <= MINIMUM_SHARD) {
+      evaluate(called, 0, size);
+    } else {
+      pool.invoke(new EvaluationTask(called, 0, size,
+          Math.max(MINIMUM_SHARD, size / (pool.getParallelism() * 4))));
+    }
+  }
+
+  /**
+   * @return number of tickets
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param ticket ticket index
+   * @return numbers of the ticket called in the last evaluation
+   */
+  public int hits(int ticket) {
+    return hits[ticket];
+  }
+
+  /**
+   * @param ticket ticket index
+   * @param row    row of the ticket
+   * @return numbers of the row not called in the last evaluation
+   */
+  public int remainingInRow(int ticket, int row) {
+    return remaining[ticket * rows + row];
+  }
+
+  /**
+   * @param ticket ticket index
+   * @param prize  {@link TicketStore#EARLY_FIVE_PRIZE}, {@link TicketStore#TOP_LINE_PRIZE} or
+   *               {@link TicketStore#FULL_HOUSE_PRIZE}
+   * @return true if the ticket had completed the prize's pattern in the last evaluation
+   */
+  public boolean isComplete(int ticket, int prize) {
+    return (complete[ticket] & prize) != 0;
+  }
+
+  /**
+   * @param prize {@link TicketStore#EARLY_FIVE_PRIZE}, {@link TicketStore#TOP_LINE_PRIZE} or
+   *              {@link TicketStore#FULL_HOUSE_PRIZE}
+   * @return tickets that had completed the prize's pattern in the last evaluation
+   */
+  public int countComplete(int prize) {
+    int count = 0;
+    for (int ticket = 0; ticket < size; ticket++) {
+      count += (complete[ticket] & prize) != 0 ? 1 : 0;
+    }
+    return count;
+  }
+
+  /**
+   * Finds the tickets closest to a full house in the last evaluation, counting the hits of every ticket
+   * into buckets rather than sorting them
+   *
+   * @param count most tickets to return, at least 0
+   * @return tickets with the most hits first, ties in ticket order
+   */
+  public int[] closestToFullHouse(int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Count cannot be negative");
+    }
+    int perTicket = rows * numbersPerRow;
+    int[] atHits = new int[perTicket + 2];
+    for (int ticket = 0; ticket < size; ticket++) {
+      atHits[hits[ticket]]++;
+    }
+    // lowest number of hits that still makes the cut
+    int cut = perTicket;
+    int taken = atHits[cut];
+    while (cut > 0 && taken < count) {
+      taken += atHits[--cut];
+    }
+    // turn the counts into the first output position of each number of hits, most hits first
+    int position = 0;
+    for (int h = perTicket; h >= cut; h--) {
+      int bucket = atHits[h];
+      atHits[h] = position;
+      position += bucket;
+    }
+    int[] closest = new int[Math.min(count, size)];
+    for (int ticket = 0; ticket < size; ticket++) {
+      int h = hits[ticket];
+      if (h >= cut && atHits[h] < closest.length) {
+        closest[atHits[h]++] = ticket;
+      }
+    }
+    return closest;
+  }
+
+  /**
+   * Private helper that evaluates a run of tickets
+   *
+   * @param called bitmap of the called numbers
+   * @param from   first ticket, inclusive
+   * @param to     last ticket, exclusive
+   */
+  private void evaluate(long[] called, int from, int to) {
+    for (int ticket = from; ticket < to; ticket++) {
+      int base = ticket * rows * words;
+      int ticketHits = 0;
+      int openRows = 0;
+      for (int row = 0; row < rows; row++, base += words) {
+        int rowHits = 0;
+        for (int w = 0; w < words; w++) {
+          rowHits += Long.bitCount(bits[base + w] & called[w]);
+        }
+        remaining[ticket * rows + row] = numbersPerRow - rowHits;
+        openRows += rowHits == numbersPerRow ? 0 : 1;
+        ticketHits += rowHits;
+      }
+      hits[ticket] = ticketHits;
+      complete[ticket] = (ticketHits >= Housie.EARLY_FIVE ? TicketStore.EARLY_FIVE_PRIZE : 0)
+          | (remaining[ticket * rows] == 0 ? TicketStore.TOP_LINE_PRIZE : 0)
+          | (openRows == 0 ? TicketStore.FULL_HOUSE_PRIZE : 0);
+    }
+  }
+
+  /**
+   * Fork join task that evaluates a run of tickets, splitting it in halves while it is large. Every
+   * ticket writes its own status, so the halves share nothing.
+   */
+  private final class EvaluationTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long[] called;
+    private final int from;
+    private final int to;
+    private final int shard;
+
+    private EvaluationTask(long[] called, int from, int to, int shard) {
+      this.called = called;
+      this.from = from;
+      this.to = to;
+      this.shard = shard;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= shard) {
+        evaluate(called, from, to);
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      invokeAll(new EvaluationTask(called, from, mid, shard), new EvaluationTask(called, mid, to, shard));
+    }
+  }
+}
@@ -0,0 +1,294 @@
+package sie;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Binary file of tickets sold ahead of a game, loaded exactly as they were written. Every value is
+ * little-endian and every ticket takes the same space, so a book is opened by mapping it rather than
+ * parsing it:
+ * <pre>
+ * header   magic, version, rows, columns, numbersPerRow, range, tickets, reserved as 32 bit ints
+ * layouts  64 bit bitmap of the grid columns used by each row of each ticket, top row first
+ * numbers  32 bit ints, rows * numbersPerRow per ticket, top row first and left to right within each row
+ * </pre>
+ * The layouts come straight after the header so they stay 8 byte aligned. The header is written last,
+ * so a book that was not closed properly cannot be opened.
+ */
+public final class TicketBook {
+
+  // "HTB1" read as a little-endian int
+  static final int MAGIC = 0x31425448;
+  static final int VERSION = 2;
+  static final int HEADER_BYTES = 8 * Integer.BYTES;
+
+  private TicketBook() {
+  }
+
+  /**
+   * Maps a book into a store without copying the tickets. The numbers stay in the file and are paged
+   * in as the game touches them, only the per-game counters are allocated.
+   *
+   * @param path book to open
+   * @return store reading the tickets from the mapped file
+   * @throws IOException if the file cannot be read or is not a complete ticket book
+   */
+  public static TicketStore open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_BYTES) {
+        throw new IOException(path + " is not a ticket book");
+      }
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      if (header.getInt() != MAGIC) {
+        throw new IOException(path + " is not a ticket book");
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException(path + " has unsupported version " + version);
+      }
+      int rows = header.getInt();
+      int columns = header.getInt();
+      int numbersPerRow = header.getInt();
+      int range = header.getInt();
+      int size = header.getInt();
+      if (rows < 1 || numbersPerRow < 1 || numbersPerRow > columns || columns > TicketStore.MAX_COLUMNS
+          || range < rows * numbersPerRow || size < 0) {
+        throw new IOException(path + " has an invalid header");
+      }
+      long layoutBytes = (long) size * rows * Long.BYTES;
+      long numberBytes = (long) size * rows * numbersPerRow * Integer.BYTES;
+      if (channel.size() != HEADER_BYTES + layoutBytes + numberBytes) {
+        throw new IOException(path + " should be " + (HEADER_BYTES + layoutBytes + numberBytes) + " bytes");
+      }
+      if (layoutBytes > Integer.MAX_VALUE || numberBytes > Integer.MAX_VALUE) {
+        throw new IOException(path + " holds too many tickets to map");
+      }
+      LongBuffer layouts = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, layoutBytes)
+          .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + layoutBytes, numberBytes);
+      IntBuffer numbers = mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+      check(path, numbers, layouts, rows, columns, numbersPerRow, range);
+      // the mappings stay valid once the channel is closed
+      return TicketStore.wrap(size, rows, columns, numbersPerRow, range, numbers, layouts);
+    }
+  }
+
+  /**
+   * Private helper that reads the mapped tickets once, so a corrupt book fails when it is opened rather
+   * than in the middle of a game. The mappings are only read, never copied.
+   *
+   * @throws IOException naming the first ticket with a number out of range or a row whose layout does
+   *                     not place its numbers on the grid
+   */
+  private static void check(Path path, IntBuffer numbers, LongBuffer layouts, int rows, int columns,
+      int numbersPerRow, int range) throws IOException {
+    int numbersPerTicket = rows * numbersPerRow;
+    for (int slot = 0; slot < numbers.limit(); slot++) {
+      int number = numbers.get(slot);
+      if (number < 1 || number > range) {
+        throw new IOException(path + " has number " + number + " out of range in ticket " + slot / numbersPerTicket);
+      }
+    }
+    for (int row = 0; row < layouts.limit(); row++) {
+      long layout = layouts.get(row);
+      if (Long.bitCount(layout) != numbersPerRow || (columns < Long.SIZE && layout >>> columns != 0)) {
+        throw new IOException(path + " has an invalid layout in ticket " + row / rows);
+      }
+    }
+  }
+
+  /**
+   * Writes every ticket of a store to a new book
+   *
+   * @param path  book to create, replaced if it exists
+   * @param store tickets to write
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(Path path, TicketStore store) throws IOException {
+    try (Writer writer = new Writer(path, store.getRows(), store.getColumns(), store.getNumbersPerRow(),
+        store.getRange(), store.size())) {
+      writer.write(store);
+    }
+  }
+
+  /**
+   * Streams tickets into a new book one at a time, so a book larger than memory can be written. The
+   * number of tickets is fixed up front since the numbers region starts after every layout.
+   */
+  public static final class Writer implements Closeable {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final int rows;
+    private final int columns;
+    private final int numbersPerRow;
+    private final int numbersPerTicket;
+    private final int range;
+    private final int size;
+    private final ByteBuffer numbers = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer layouts = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private long numbersPosition;
+    private long layoutsPosition;
+    private int written = 0;
+
+    /**
+     * Creates the book
+     *
+     * @param path          book to create, replaced if it exists
+     * @param rows          number of rows on each ticket
+     * @param columns       number of columns on each ticket
+     * @param numbersPerRow numbers contained in each row
+     * @param range         top end of available numbers for the game
+     * @param size          number of tickets that will be written
+     * @throws IOException if the file cannot be created
+     */
+    public Writer(Path path, int rows, int columns, int numbersPerRow, int range, int size) throws IOException {
+      if (rows < 1 || numbersPerRow < 1 || numbersPerRow > columns || columns > TicketStore.MAX_COLUMNS
+          || range < rows * numbersPerRow || size < 0) {
+        throw new IllegalArgumentException("Invalid ticket shape");
+      }
+      this.rows = rows;
+      this.columns = columns;
+      this.numbersPerRow = numbersPerRow;
+      this.numbersPerTicket = rows * numbersPerRow;
+      this.range = range;
+      this.size = size;
+      this.layoutsPosition = HEADER_BYTES;
+      this.numbersPosition = HEADER_BYTES + (long) size * rows * Long.BYTES;
+      this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Appends one ticket
+     *
+     * @param ticketNumbers numbers of the ticket, top row first and left to right within each row
+     * @param ticketColumns grid column of each number, increasing within each row
+     * @throws IOException if the file cannot be written
+     */
+    public void write(int[] ticketNumbers, int[] ticketColumns) throws IOException {
+      if (ticketNumbers.length != numbersPerTicket || ticketColumns.length != numbersPerTicket) {
+        throw new IllegalArgumentException("Ticket must hold " + numbersPerTicket + " numbers and columns");
+      }
+      if (written == size) {
+        throw new IllegalStateException("Book already holds " + size + " tickets");
+      }
+      int[] sorted = ticketNumbers.clone();
+      Arrays.sort(sorted);
+      for (int k = 1; k < numbersPerTicket; k++) {
+        if (sorted[k] == sorted[k - 1]) {
+          throw new IllegalArgumentException("Number " + sorted[k] + " appears twice in ticket " + written);
+        }
+      }
+      long[] ticketLayouts = new long[rows];
+      for (int k = 0; k < numbersPerTicket; k++) {
+        int previous = k % numbersPerRow == 0 ? -1 : ticketColumns[k - 1];
+        if (ticketNumbers[k] < 1 || ticketNumbers[k] > range || ticketColumns[k] <= previous
+            || ticketColumns[k] >= columns) {
+          throw new IllegalArgumentException("Number or column out of range in ticket " + written);
+        }
+        ticketLayouts[k / numbersPerRow] |= 1L << ticketColumns[k];
+      }
+      for (int k = 0; k < numbersPerTicket; k++) {
+        putNumber(ticketNumbers[k]);
+      }
+      for (long layout : ticketLayouts) {
+        putLayout(layout);
+      }
+      written++;
+    }
+
+    /**
+     * Appends every ticket of a store
+     *
+     * @param store tickets to write, of the same shape as the book
+     * @throws IOException if the file cannot be written
+     */
+    public void write(TicketStore store) throws IOException {
+      if (store.getRows() != rows || store.getNumbersPerRow() != numbersPerRow || store.getColumns() != columns
+          || store.getRange() != range) {
+        throw new IllegalArgumentException("Store does not have the shape and range of the book");
+      }
+      if (written + store.size() > size) {
+        throw new IllegalStateException("Book only has room for " + (size - written) + " more tickets");
+      }
+      int slots = store.size() * numbersPerTicket;
+      for (int slot = 0; slot < slots; slot++) {
+        putNumber(store.number(slot));
+      }
+      for (int ticket = 0; ticket < store.size(); ticket++) {
+        for (int row = 0; row < rows; row++) {
+          putLayout(store.rowColumns(ticket, row));
+        }
+      }
+      written += store.size();
+    }
+
+    /**
+     * Writes what is left and then the header
+     *
+     * @throws IOException if the file cannot be written
+     * @throws IllegalStateException if fewer tickets were written than the book was created for
+     */
+    @Override
+    public void close() throws IOException {
+      try {
+        if (written != size) {
+          throw new IllegalStateException("Only " + written + " of " + size + " tickets were written");
+        }
+        numbersPosition = flush(numbers, numbersPosition);
+        layoutsPosition = flush(layouts, layoutsPosition);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(columns).putInt(numbersPerRow).putInt(range)
+            .putInt(size).putInt(0);
+        flush(header, 0);
+      } finally {
+        channel.close();
+      }
+    }
+
+    /**
+     * Private helper that buffers the number of one slot
+     */
+    private void putNumber(int number) throws IOException {
+      if (!numbers.hasRemaining()) {
+        numbersPosition = flush(numbers, numbersPosition);
+      }
+      numbers.putInt(number);
+    }
+
+    /**
+     * Private helper that buffers the column bitmap of one row
+     */
+    private void putLayout(long layout) throws IOException {
+      if (!layouts.hasRemaining()) {
+        layoutsPosition = flush(layouts, layoutsPosition);
+      }
+      layouts.putLong(layout);
+    }
+
+    /**
+     * Private helper that writes what was put in a buffer out at a position of the file
+     *
+     * @return position just past what was written
+     */
+    private long flush(ByteBuffer buffer, long position) throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer, position);
+      }
+      buffer.clear();
+      return position;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package sie;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering one call of {@link TicketStore#generate}
+ */
+@Name("sie.TicketGeneration")
+@Label("Ticket Generation")
+@Category("Housie")
+@Description("A batch of random tickets generated")
+final class TicketGenerationEvent extends Event {
+
+  @Label("Tickets")
+  int tickets;
+
+  @Label("Retries")
+  @Description("Random picks rejected because the number or column was already on the ticket")
+  long retries;
+}
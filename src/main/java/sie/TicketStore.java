@@ -0,0 +1,503 @@
+package sie;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Columnar storage for every ticket in a game. Instead of one object per ticket the numbers, the
+ * remaining-per-row counters, the marked flags and the prize flags of all tickets live in flat
+ * primitive arrays indexed by ticket.
+ * <p>
+ * A ticket owns {@code rows * numbersPerRow} consecutive slots. Slot {@code ticket * numbersPerTicket
+ * + row * numbersPerRow + k} holds the k-th number of the row counting from the left of the grid.
+ * <p>
+ * The grid itself is never stored. Each row only keeps a bitmap of the columns its numbers sit in, and
+ * {@link #grid(int)} rebuilds the full grid from the numbers and the bitmaps when a ticket is printed,
+ * exported or checked, so the time and space taken to generate a ticket do not depend on the number
+ * of columns.
+ */
+public final class TicketStore {
+
+  // bit flags stored per ticket for the prizes it has been awarded. Bit k stands for prize k of the
+  // game, these are the bits of the classic prizes in Prize.CLASSIC
+  public static final int EARLY_FIVE_PRIZE = 1;
+  public static final int TOP_LINE_PRIZE = 1 << 1;
+  public static final int FULL_HOUSE_PRIZE = 1 << 2;
+  // the columns of a row are held in one long
+  public static final int MAX_COLUMNS = Long.SIZE;
+
+  private final int rows;
+  private final int columns;
+  private final int numbersPerRow;
+  private final int numbersPerTicket;
+  private final int range;
+  private final int size;
+  // number held in each slot, optionally off-heap
+  private final IntBuffer numbers;
+  // bitmap of the grid columns used by each row of each ticket, only needed to rebuild the grid
+  private final LongBuffer rowColumns;
+  // numbers still waiting to be hit for each row of each ticket
+  private final int[] remainingInRow;
+  // one bit per slot, set once the slot has been hit
+  private final long[] marked;
+  private final int[] prizes;
+
+  /**
+   * Private constructor that allocates empty storage, use one of the factory methods
+   *
+   * @param size          number of tickets
+   * @param rows          number of rows on each ticket
+   * @param columns       number of columns on each ticket
+   * @param numbersPerRow numbers contained in each row
+   * @param range         top end of available numbers for the game
+   * @param offHeap       true to keep the numbers in a direct buffer outside of the heap
+   */
+  private TicketStore(int size, int rows, int columns, int numbersPerRow, int range, boolean offHeap) {
+    this(size, rows, columns, numbersPerRow, range, allocate(size, rows * numbersPerRow, offHeap),
+        LongBuffer.allocate(Math.multiplyExact(size, rows)));
+  }
+
+  /**
+   * Private constructor over existing number and layout storage, use one of the factory methods
+   *
+   * @param size          number of tickets
+   * @param rows          number of rows on each ticket
+   * @param columns       number of columns on each ticket
+   * @param numbersPerRow numbers contained in each row
+   * @param range         top end of available numbers for the game
+   * @param numbers       number held in each slot
+   * @param rowColumns    bitmap of the grid columns used by each row
+   */
+  private TicketStore(int size, int rows, int columns, int numbersPerRow, int range, IntBuffer numbers,
+      LongBuffer rowColumns) {
+    if (columns > MAX_COLUMNS) {
+      throw new IllegalArgumentException("Tickets cannot have more than " + MAX_COLUMNS + " columns");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.numbersPerRow = numbersPerRow;
+    this.numbersPerTicket = rows * numbersPerRow;
+    this.range = range;
+    this.size = size;
+    int slots = Math.multiplyExact(size, numbersPerTicket);
+    this.numbers = numbers;
+    this.rowColumns = rowColumns;
+    this.remainingInRow = new int[Math.multiplyExact(size, rows)];
+    this.marked = new long[(slots >>> 6) + 1];
+    this.prizes = new int[size];
+  }
+
+  /**
+   * Generates a store of random tickets. Numbers are unique within a ticket and every row is laid out
+   * left to right across randomly chosen columns.
+   *
+   * @param size          number of tickets
+   * @param rows          number of rows on each ticket
+   * @param columns       number of columns on each ticket
+   * @param numbersPerRow numbers contained in each row, must be less than the column size
+   * @param range         of numbers allowed on board, must be larger that rows x numbers per row
+   * @param random        source of randomness, only used by the calling thread
+   * @param offHeap       true to keep the numbers in a direct buffer outside of the heap
+   * @param metrics       records the generation rate and retries, null for none
+   * @return store holding the generated tickets
+   */
+  public static TicketStore generate(int size, int rows, int columns, int numbersPerRow, int range,
+      SplittableRandom random, boolean offHeap, HousieMetrics metrics) {
+    TicketGenerationEvent event = new TicketGenerationEvent();
+    event.begin();
+    long start = metrics == null ? 0 : System.nanoTime();
+    TicketStore store = new TicketStore(size, rows, columns, numbersPerRow, range, offHeap);
+    long retries = 0;
+    for (int ticket = 0; ticket < size; ticket++) {
+      retries += store.fillTicket(ticket, random);
+    }
+    if (metrics != null) {
+      metrics.recordGeneration(size, retries, System.nanoTime() - start);
+    }
+    if (event.shouldCommit()) {
+      event.tickets = size;
+      event.retries = retries;
+      event.commit();
+    }
+    return store;
+  }
+
+  /**
+   * Generates a store of random tickets
+   *
+   * @see #generate(int, int, int, int, int, SplittableRandom, boolean, HousieMetrics)
+   */
+  public static TicketStore generate(int size, int rows, int columns, int numbersPerRow, int range,
+      SplittableRandom random, boolean offHeap) {
+    return generate(size, rows, columns, numbersPerRow, range, random, offHeap, null);
+  }
+
+  /**
+   * Generates a store of random tickets on the heap
+   *
+   * @see #generate(int, int, int, int, int, SplittableRandom, boolean)
+   */
+  public static TicketStore generate(int size, int rows, int columns, int numbersPerRow, int range,
+      SplittableRandom random) {
+    return generate(size, rows, columns, numbersPerRow, range, random, false);
+  }
+
+  /**
+   * Allocates a store for tickets that are filled one at a time with {@link #fillTicket}
+   *
+   * @param size          number of tickets
+   * @param rows          number of rows on each ticket
+   * @param columns       number of columns on each ticket
+   * @param numbersPerRow numbers contained in each row
+   * @param range         top end of available numbers for the game
+   * @param offHeap       true to keep the numbers in a direct buffer outside of the heap
+   * @return store of empty tickets
+   */
+  static TicketStore empty(int size, int rows, int columns, int numbersPerRow, int range, boolean offHeap) {
+    return new TicketStore(size, rows, columns, numbersPerRow, range, offHeap);
+  }
+
+  /**
+   * Builds a store from known tickets. Each row is placed in the leftmost columns of the grid.
+   *
+   * @param rows          number of rows on each ticket
+   * @param columns       number of columns on each ticket
+   * @param numbersPerRow numbers contained in each row
+   * @param range         top end of available numbers for the game
+   * @param tickets       numbers of each ticket, top row first
+   * @return store holding the tickets
+   */
+  public static TicketStore of(int rows, int columns, int numbersPerRow, int range, int[]... tickets) {
+    TicketStore store = new TicketStore(tickets.length, rows, columns, numbersPerRow, range, false);
+    for (int ticket = 0; ticket < tickets.length; ticket++) {
+      if (tickets[ticket].length != store.numbersPerTicket) {
+        throw new IllegalArgumentException("Ticket " + ticket + " must hold " + store.numbersPerTicket + " numbers");
+      }
+      int first = ticket * store.numbersPerTicket;
+      for (int k = 0; k < store.numbersPerTicket; k++) {
+        store.numbers.put(first + k, tickets[ticket][k]);
+      }
+      for (int row = ticket * rows; row < (ticket + 1) * rows; row++) {
+        store.rowColumns.put(row, -1L >>> (Long.SIZE - numbersPerRow));
+      }
+      store.resetCounters(ticket);
+    }
+    return store;
+  }
+
+  /**
+   * Builds a store over numbers and row layouts that are already laid out in store order, such as the
+   * regions of a mapped ticket book. The buffers are used as they are, nothing is copied.
+   *
+   * @param size          number of tickets
+   * @param rows          number of rows on each ticket
+   * @param columns       number of columns on each ticket
+   * @param numbersPerRow numbers contained in each row
+   * @param range         top end of available numbers for the game
+   * @param numbers       number held in each slot
+   * @param rowColumns    bitmap of the grid columns used by each row
+   * @return store reading the tickets from the buffers
+   */
+  static TicketStore wrap(int size, int rows, int columns, int numbersPerRow, int range, IntBuffer numbers,
+      LongBuffer rowColumns) {
+    int slots = Math.multiplyExact(size, rows * numbersPerRow);
+    if (numbers.capacity() != slots || rowColumns.capacity() != Math.multiplyExact(size, rows)) {
+      throw new IllegalArgumentException("Expected " + slots + " numbers and " + size * rows + " row layouts");
+    }
+    TicketStore store = new TicketStore(size, rows, columns, numbersPerRow, range, numbers, rowColumns);
+    // marks and prizes start cleared, only the row counters need filling
+    Arrays.fill(store.remainingInRow, numbersPerRow);
+    return store;
+  }
+
+  /**
+   * @return number of tickets in the store
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return number of rows on each ticket
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * @return number of columns on each ticket
+   */
+  public int getColumns() {
+    return columns;
+  }
+
+  /**
+   * @return numbers contained in each row
+   */
+  public int getNumbersPerRow() {
+    return numbersPerRow;
+  }
+
+  /**
+   * @return numbers contained in each ticket
+   */
+  public int getNumbersPerTicket() {
+    return numbersPerTicket;
+  }
+
+  /**
+   * @return top end of available numbers for the game
+   */
+  public int getRange() {
+    return range;
+  }
+
+  /**
+   * @param slot slot index across the whole store
+   * @return number held in the slot
+   */
+  public int number(int slot) {
+    return numbers.get(slot);
+  }
+
+  /**
+   * @param slot slot index across the whole store
+   * @return ticket that owns the slot
+   */
+  public int ticketOf(int slot) {
+    return slot / numbersPerTicket;
+  }
+
+  /**
+   * Returns the numbers of a ticket, top row first and left to right within each row
+   *
+   * @param ticket ticket index
+   * @return copy of the numbers on the ticket
+   */
+  public int[] numbers(int ticket) {
+    int[] result = new int[numbersPerTicket];
+    int first = ticket * numbersPerTicket;
+    for (int k = 0; k < numbersPerTicket; k++) {
+      result[k] = numbers.get(first + k);
+    }
+    return result;
+  }
+
+  /**
+   * @param ticket ticket index
+   * @param row    row of the ticket, 0 for the top row
+   * @return bitmap with bit c set when the row has a number in column c
+   */
+  long rowColumns(int ticket, int row) {
+    return rowColumns.get(ticket * rows + row);
+  }
+
+  /**
+   * Rebuilds the grid of a ticket from its numbers and row layouts, empty cells are 0. Nothing is
+   * cached, the grid is only needed to print, export or check a ticket.
+   *
+   * @param ticket ticket index
+   * @return rows x columns grid
+   */
+  public int[][] grid(int ticket) {
+    int[][] grid = new int[rows][columns];
+    int slot = ticket * numbersPerTicket;
+    for (int i = 0; i < rows; i++) {
+      // the k-th number of the row goes in the k-th column set in the bitmap
+      for (long layout = rowColumns.get(ticket * rows + i); layout != 0; layout &= layout - 1, slot++) {
+        grid[i][Long.numberOfTrailingZeros(layout)] = numbers.get(slot);
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Marks a slot as hit and decrements the counter of the row it sits in
+   *
+   * @param slot slot index across the whole store
+   * @return true if the slot had not been hit before
+   */
+  public boolean markSlot(int slot) {
+    long bit = 1L << slot;
+    int word = slot >>> 6;
+    if ((marked[word] & bit) != 0) {
+      return false;
+    }
+    marked[word] |= bit;
+    remainingInRow[slot / numbersPerRow]--;
+    return true;
+  }
+
+  /**
+   * Looks the number up on the ticket and marks it when found
+   *
+   * @param ticket ticket index
+   * @param number number that was called
+   * @return true if the number is on the ticket and had not been hit before
+   */
+  public boolean mark(int ticket, int number) {
+    int first = ticket * numbersPerTicket;
+    for (int slot = first; slot < first + numbersPerTicket; slot++) {
+      if (numbers.get(slot) == number) {
+        return markSlot(slot);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param ticket ticket index
+   * @return number of numbers hit on the ticket so far
+   */
+  public int hits(int ticket) {
+    int remaining = 0;
+    for (int i = ticket * rows; i < (ticket + 1) * rows; i++) {
+      remaining += remainingInRow[i];
+    }
+    return numbersPerTicket - remaining;
+  }
+
+  /**
+   * @param ticket ticket index
+   * @param row    row on the ticket, 0 is the top line
+   * @return numbers still waiting to be hit in the row
+   */
+  public int remainingInRow(int ticket, int row) {
+    return remainingInRow[ticket * rows + row];
+  }
+
+  /**
+   * @param ticket ticket index
+   * @return true if every number in the top row has been hit
+   */
+  public boolean topLineComplete(int ticket) {
+    return remainingInRow[ticket * rows] == 0;
+  }
+
+  /**
+   * @param ticket ticket index
+   * @return true if every number on the ticket has been hit
+   */
+  public boolean fullHouseComplete(int ticket) {
+    return hits(ticket) == numbersPerTicket;
+  }
+
+  /**
+   * @param ticket ticket index
+   * @param prize  prize flag
+   * @return true if the ticket has been awarded the prize
+   */
+  public boolean hasPrize(int ticket, int prize) {
+    return (prizes[ticket] & prize) != 0;
+  }
+
+  /**
+   * Sets or clears a prize flag on a ticket
+   *
+   * @param ticket ticket index
+   * @param prize  prize flag
+   * @param won    whether or not the ticket holds the prize
+   */
+  public void setPrize(int ticket, int prize, boolean won) {
+    if (won) {
+      prizes[ticket] |= prize;
+    } else {
+      prizes[ticket] &= ~prize;
+    }
+  }
+
+  /**
+   * Fills one ticket with unique random numbers and picks the columns each row is spread over,
+   * replacing whatever the ticket held
+   *
+   * @param ticket ticket index
+   * @param random source of randomness
+   * @return random picks rejected because the number was already taken
+   */
+  int fillTicket(int ticket, SplittableRandom random) {
+    int first = ticket * numbersPerTicket;
+    int retries = 0;
+    for (int i = 0; i < rows; i++) {
+      int rowStart = first + i * numbersPerRow;
+      for (int j = 0; j < numbersPerRow; j++) {
+        // get next random value and ensure it has not already been added to the ticket
+        int nextInt = random.nextInt(range) + 1;
+        while (contains(first, rowStart + j, nextInt)) {
+          nextInt = random.nextInt(range) + 1;
+          retries++;
+        }
+        numbers.put(rowStart + j, nextInt);
+      }
+      rowColumns.put(ticket * rows + i, pickColumns(random));
+    }
+    resetCounters(ticket);
+    return retries;
+  }
+
+  /**
+   * Clears the marks and prizes of every ticket, keeping their numbers, so the store can be played
+   * again without allocating
+   */
+  void resetCounters() {
+    Arrays.fill(remainingInRow, numbersPerRow);
+    Arrays.fill(marked, 0L);
+    Arrays.fill(prizes, 0);
+  }
+
+  /**
+   * Clears the marks and prizes of a ticket and sets each row counter back to a full row
+   *
+   * @param ticket ticket index
+   */
+  void resetCounters(int ticket) {
+    for (int i = ticket * rows; i < (ticket + 1) * rows; i++) {
+      remainingInRow[i] = numbersPerRow;
+    }
+    for (int slot = ticket * numbersPerTicket; slot < (ticket + 1) * numbersPerTicket; slot++) {
+      marked[slot >>> 6] &= ~(1L << slot);
+    }
+    prizes[ticket] = 0;
+  }
+
+  /**
+   * @return buffer with room for the numbers of every slot, in a direct buffer when off-heap
+   */
+  private static IntBuffer allocate(int size, int numbersPerTicket, boolean offHeap) {
+    int slots = Math.multiplyExact(size, numbersPerTicket);
+    return offHeap
+        ? ByteBuffer.allocateDirect(Math.multiplyExact(slots, Integer.BYTES)).order(ByteOrder.nativeOrder()).asIntBuffer()
+        : IntBuffer.allocate(slots);
+  }
+
+  /**
+   * @return true if the number is already held in the slots from first (inclusive) to end (exclusive)
+   */
+  private boolean contains(int first, int end, int number) {
+    for (int slot = first; slot < end; slot++) {
+      if (numbers.get(slot) == number) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Private helper that picks the columns of one row with Floyd's sampling, one random pick per number
+   * and no retries however many columns the ticket has
+   *
+   * @param random source of randomness
+   * @return bitmap of numbersPerRow distinct columns
+   */
+  private long pickColumns(SplittableRandom random) {
+    long used = 0;
+    for (int c = columns - numbersPerRow; c < columns; c++) {
+      long pick = 1L << random.nextInt(c + 1);
+      used |= (used & pick) == 0 ? pick : 1L << c;
+    }
+    return used;
+  }
+}
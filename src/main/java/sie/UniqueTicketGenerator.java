@@ -0,0 +1,162 @@
+package sie;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates the tickets of a game so that no two of them hold the same numbers in the same rows. Each
+ * new ticket is reduced to a 64 bit canonical fingerprint and checked against the fingerprints already
+ * in the game through a primitive open-addressing set, so the check is O(1) per ticket however large
+ * the game. A ticket whose fingerprint was seen is generated again. Two different tickets sharing a
+ * fingerprint only cost an extra retry, uniqueness still holds.
+ * <p>
+ * The set can be fronted by a Bloom filter of 2 to 4 bytes per ticket, kept on top of the set. A
+ * ticket the filter rules out is new for certain, so its fingerprint goes into the set without being
+ * compared to the fingerprints already there. Only a maybe from the filter is looked up in the set, so
+ * the filter never rejects a ticket on its own.
+ */
+public final class UniqueTicketGenerator {
+
+  // a ticket that keeps matching earlier ones means the shape has run out of distinct tickets
+  private static final int MAX_ATTEMPTS = 10_000;
+
+  private final int rows;
+  private final int columns;
+  private final int numbersPerRow;
+  private final int range;
+  private final boolean bloomFilter;
+  private HousieMetrics metrics;
+  private long generated = 0;
+  private long duplicates = 0;
+  private long retries = 0;
+  private long bloomFalsePositives = 0;
+  private long comparisons = 0;
+
+  /**
+   * Parameterized constructor
+   *
+   * @param rows          number of rows on each ticket
+   * @param columns       number of columns on each ticket
+   * @param numbersPerRow numbers contained in each row, must be less than the column size
+   * @param range         of numbers allowed on board, must be larger that rows x numbers per row
+   * @param bloomFilter   true to check a Bloom filter before the fingerprint set
+   */
+  public UniqueTicketGenerator(int rows, int columns, int numbersPerRow, int range, boolean bloomFilter) {
+    if (rows < 1 || numbersPerRow < 1 || numbersPerRow > columns || rows * numbersPerRow > range) {
+      throw new IllegalArgumentException("Each ticket must fit in the grid and be filled with unique numbers");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.numbersPerRow = numbersPerRow;
+    this.range = range;
+    this.bloomFilter = bloomFilter;
+  }
+
+  /**
+   * Records the generation rate, retries and duplicates of every store generated
+   *
+   * @param metrics metrics to record into, null for none
+   */
+  public void setMetrics(HousieMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Generates a store of tickets that are unique within the store
+   *
+   * @param size    number of tickets
+   * @param random  source of randomness, only used by the calling thread
+   * @param offHeap true to keep the numbers in a direct buffer outside of the heap
+   * @return store holding the generated tickets
+   * @throws IllegalStateException if the shape does not allow that many distinct tickets
+   */
+  public TicketStore generate(int size, SplittableRandom random, boolean offHeap) {
+    TicketGenerationEvent event = new TicketGenerationEvent();
+    event.begin();
+    long start = System.nanoTime();
+    TicketStore store = TicketStore.empty(size, rows, columns, numbersPerRow, range, offHeap);
+    LongHashSet seen = new LongHashSet(size);
+    BloomFilter filter = bloomFilter ? new BloomFilter(size) : null;
+    long storeRetries = 0;
+    long storeDuplicates = 0;
+    for (int ticket = 0; ticket < size; ticket++) {
+      for (int attempt = 1; ; attempt++) {
+        storeRetries += store.fillTicket(ticket, random);
+        long fingerprint = Fingerprints.of(store, ticket);
+        if (filter != null && !filter.mightContain(fingerprint)) {
+          filter.add(fingerprint);
+          seen.addAbsent(fingerprint);
+          break;
+        }
+        if (seen.add(fingerprint)) {
+          if (filter != null) {
+            filter.add(fingerprint);
+            bloomFalsePositives++;
+          }
+          break;
+        }
+        storeDuplicates++;
+        if (attempt == MAX_ATTEMPTS) {
+          throw new IllegalStateException("Could not find ticket " + (ticket + 1) + " unlike the ones before it in "
+              + MAX_ATTEMPTS + " attempts");
+        }
+      }
+    }
+    generated += size;
+    comparisons += seen.getComparisons();
+    retries += storeRetries;
+    duplicates += storeDuplicates;
+    if (metrics != null) {
+      metrics.recordGeneration(size, storeRetries, System.nanoTime() - start);
+      metrics.recordDuplicates(storeDuplicates);
+    }
+    if (event.shouldCommit()) {
+      event.tickets = size;
+      event.retries = storeRetries;
+      event.commit();
+    }
+    return store;
+  }
+
+  /**
+   * @return tickets generated across every store
+   */
+  public long getGenerated() {
+    return generated;
+  }
+
+  /**
+   * @return tickets thrown away because they matched an earlier ticket of the same store
+   */
+  public long getDuplicates() {
+    return duplicates;
+  }
+
+  /**
+   * @return share of the tickets drawn up that were duplicates, between 0 and 1
+   */
+  public double getDuplicateRate() {
+    long attempts = generated + duplicates;
+    return attempts == 0 ? 0 : (double) duplicates / attempts;
+  }
+
+  /**
+   * @return random picks rejected within tickets because the number was already taken
+   */
+  public long getRetries() {
+    return retries;
+  }
+
+  /**
+   * @return new tickets the Bloom filter could not rule out, so the set had to be checked
+   */
+  public long getBloomFalsePositives() {
+    return bloomFalsePositives;
+  }
+
+  /**
+   * @return fingerprints compared by the set while checking tickets, across every store
+   */
+  long getComparisons() {
+    return comparisons;
+  }
+}
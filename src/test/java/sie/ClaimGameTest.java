@@ -0,0 +1,74 @@
+package sie;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.Test;
+
+public class ClaimGameTest {
+
+  private static final int COLUMNS = 10;
+  private static final int NUMBERS_PER_ROW = 5;
+  private static final int RANGE = 90;
+  private static final int ROWS = 3;
+  private static final long SEED = 7;
+  private static final List<Prize> PRIZES = List.of(new Prize(PrizePattern.EARLY_FIVE),
+      new Prize(PrizePattern.TOP_LINE), new Prize(PrizePattern.FULL_HOUSE), new Prize(PrizePattern.FULL_HOUSE, 2));
+
+  @Test
+  public void testPromptClaimsMatchCheckedGame() {
+    TicketStore tickets = TicketStore.generate(500, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE, new SplittableRandom(3));
+    int[] order = ShuffledDrawSequence.drawOrder(RANGE, SEED);
+    Housie expected = new Housie(tickets, new FixedDrawSequence(RANGE, order), PRIZES, false);
+    while (!expected.callNumber()) {
+      // play to the end
+    }
+
+    ClaimGame target = new ClaimGame(tickets, new FixedDrawSequence(RANGE, order), PRIZES, 0);
+    while (!target.isOver()) {
+      target.callNumber();
+      // every winner of the checked game claims on the draw the prize was won
+      for (int k = 0; k < PRIZES.size(); k++) {
+        if (expected.getPrizeDraw(k) == target.getTotalNumbersCalled()) {
+          assert target.completionDraw(expected.getPrizeTicket(k), k) == expected.getPrizeDraw(k);
+          assert target.claim(expected.getPrizeWinner(k), k) == ClaimGame.Verdict.ACCEPTED;
+        }
+      }
+    }
+    assert target.getTotalNumbersCalled() == expected.getTotalNumbersCalled();
+    for (int k = 0; k < PRIZES.size(); k++) {
+      assert target.getPrizeWinner(k) == expected.getPrizeWinner(k);
+      assert target.getPrizeDraw(k) == expected.getPrizeDraw(k);
+    }
+  }
+
+  @Test
+  public void testBogusLateAndRepeatedClaimsAreRejected() {
+    // one row tickets of two numbers, numbers called in order
+    TicketStore tickets = TicketStore.of(1, 5, 2, 10, new int[] {1, 2}, new int[] {2, 5}, new int[] {3, 4});
+    ClaimGame target = new ClaimGame(tickets, new FixedDrawSequence(10, new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}),
+        List.of(new Prize(PrizePattern.TOP_LINE), new Prize(PrizePattern.TOP_LINE, 2)), 1);
+
+    target.callNumber();
+    assert target.isCalled(1) && !target.isCalled(2);
+    assert target.claim(1, 0) == ClaimGame.Verdict.NOT_COMPLETE;
+    target.callNumber();
+    assert target.getDrawOf(2) == 2;
+    assert target.claim(2, 0) == ClaimGame.Verdict.NOT_COMPLETE;
+    target.callNumber();
+    // the second line is closed until the first is won
+    target.callNumber();
+    assert target.claim(3, 1) == ClaimGame.Verdict.NOT_OPEN;
+    // player 1 completed on draw 2 and slept past the window of one draw
+    assert target.claim(1, 0) == ClaimGame.Verdict.TOO_LATE;
+    assert target.claim(3, 0) == ClaimGame.Verdict.ACCEPTED;
+    assert target.claim(3, 0) == ClaimGame.Verdict.ALREADY_WON;
+    assert target.claim(3, 1) == ClaimGame.Verdict.NOT_OPEN;
+    assert !target.isOver();
+    target.callNumber();
+    assert target.claim(2, 1) == ClaimGame.Verdict.ACCEPTED;
+    assert target.isOver();
+    assert target.getPrizeWinner(0) == 3 && target.getPrizeDraw(0) == 4;
+    assert target.getPrizeWinner(1) == 2 && target.getPrizeDraw(1) == 5;
+    assert tickets.hasPrize(2, 1) && tickets.hasPrize(1, 2);
+  }
+}
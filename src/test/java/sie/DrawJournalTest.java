@@ -0,0 +1,136 @@
+package sie;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DrawJournalTest {
+
+  private static final int RANGE = 90;
+  private static final int TICKETS = 500;
+  private static final long SEED = 11;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testRecoveredGameEndsLikeUninterruptedGame() throws IOException {
+    Housie expected = new Housie(newTickets(), new ShuffledDrawSequence(RANGE, SEED), false);
+    while (!expected.callNumber()) {
+      // play the reference game out
+    }
+
+    // play until the early five has been won and crash without closing the journal
+    Path path = folder.newFile("game.journal").toPath();
+    TicketStore tickets = newTickets();
+    DrawJournal journal = DrawJournal.create(path, tickets, Prize.CLASSIC, DrawJournal.Sync.EVERY_DRAW);
+    Housie crashed = new Housie(tickets, new ShuffledDrawSequence(RANGE, SEED), Prize.CLASSIC, journal);
+    int calledBeforeCrash = expected.getEarlyFiveDraw() + 3;
+    for (int i = 0; i < calledBeforeCrash; i++) {
+      crashed.callNumber();
+    }
+    // the crash tears the record being written
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      channel.write(ByteBuffer.wrap(new byte[] {1, 0, 0}));
+    }
+
+    RecordingListener events = new RecordingListener();
+    try (DrawJournal reopened = DrawJournal.open(path, DrawJournal.Sync.BATCH)) {
+      assert Arrays.equals(reopened.getDraws(), crashed.getCalledNumbers());
+      Housie target = reopened.recover(newTickets(), new ShuffledDrawSequence(RANGE, SEED), Prize.CLASSIC, events);
+      assert target.getTotalNumbersCalled() == calledBeforeCrash;
+      assert target.getEarlyFiveDraw() == expected.getEarlyFiveDraw();
+      // the replay is silent, only the game creation is reported
+      assert events.events.equals(List.of("tickets " + TICKETS));
+
+      while (!target.callNumber()) {
+        // carry on where the crash stopped the game
+      }
+      assertSameWinners(target, expected);
+    }
+
+    // the journal now holds the whole game once
+    try (DrawJournal finished = DrawJournal.open(path, DrawJournal.Sync.NONE)) {
+      assert Arrays.equals(finished.getDraws(), expected.getCalledNumbers());
+      Housie replayed = finished.recover(newTickets(), new ShuffledDrawSequence(RANGE, SEED), Prize.CLASSIC,
+          GameListener.NONE);
+      assert replayed.isOver();
+      assertSameWinners(replayed, expected);
+    }
+  }
+
+  @Test
+  public void testGameCarriesOnWithoutTheSeed() throws IOException {
+    Path path = folder.newFile("game.journal").toPath();
+    try (DrawJournal journal = DrawJournal.create(path, newTickets(), Prize.CLASSIC, DrawJournal.Sync.NONE)) {
+      Housie housie = new Housie(newTickets(), new ShuffledDrawSequence(RANGE, SEED), Prize.CLASSIC, journal);
+      for (int i = 0; i < 20; i++) {
+        housie.callNumber();
+      }
+    }
+
+    try (DrawJournal journal = DrawJournal.open(path, DrawJournal.Sync.NONE)) {
+      int[] called = journal.getDraws();
+      assert called.length == 20;
+      Housie target = journal.recover(newTickets(), new ShuffledDrawSequence(RANGE, called, new SplittableRandom()),
+          Prize.CLASSIC, GameListener.NONE);
+      while (!target.callNumber()) {
+        // play the rest of the game
+      }
+      assert Arrays.equals(Arrays.copyOf(target.getCalledNumbers(), 20), called);
+      assert target.getFullHouseDraw() > 0;
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testJournalOfOtherTicketsIsRejected() throws IOException {
+    Path path = folder.newFile("game.journal").toPath();
+    DrawJournal.create(path, newTickets(), Prize.CLASSIC, DrawJournal.Sync.NONE).close();
+
+    try (DrawJournal journal = DrawJournal.open(path, DrawJournal.Sync.NONE)) {
+      journal.recover(TicketStore.generate(TICKETS + 1, 3, 10, 5, RANGE, new SplittableRandom(SEED)),
+          new ShuffledDrawSequence(RANGE, SEED), Prize.CLASSIC, GameListener.NONE);
+    }
+  }
+
+  private static TicketStore newTickets() {
+    return TicketStore.generate(TICKETS, 3, 10, 5, RANGE, new SplittableRandom(SEED));
+  }
+
+  private static void assertSameWinners(Housie target, Housie expected) {
+    assert target.getTotalNumbersCalled() == expected.getTotalNumbersCalled();
+    for (int k = 0; k < Prize.CLASSIC.size(); k++) {
+      assert target.getPrizeWinner(k) == expected.getPrizeWinner(k);
+      assert target.getPrizeDraw(k) == expected.getPrizeDraw(k);
+    }
+  }
+
+  private static final class RecordingListener implements GameListener {
+
+    private final List<String> events = new ArrayList<>();
+
+    @Override
+    public void onTicketsGenerated(int tickets) {
+      events.add("tickets " + tickets);
+    }
+
+    @Override
+    public void onNumberDrawn(int number, int draw) {
+      events.add("drawn " + number);
+    }
+
+    @Override
+    public void onPrizeWon(Prize prize, int playerId, int draw) {
+      events.add("won " + prize.getName());
+    }
+  }
+}
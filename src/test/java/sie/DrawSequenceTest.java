@@ -0,0 +1,89 @@
+package sie;
+
+import java.util.SplittableRandom;
+import org.junit.Test;
+
+public class DrawSequenceTest {
+
+  private static final int RANGE = 90;
+  private static final long SEED = 5;
+
+  @Test
+  public void testShuffledSequenceCallsEveryNumberOnce() {
+    ShuffledDrawSequence target = new ShuffledDrawSequence(RANGE, SEED);
+    boolean[] seen = new boolean[RANGE + 1];
+
+    for (int i = 0; i < RANGE; i++) {
+      assert target.hasNext();
+      int number = target.next();
+      assert number >= 1 && number <= RANGE;
+      assert !seen[number];
+      seen[number] = true;
+    }
+    assert !target.hasNext();
+    assert target.getCalledNumbers().length == RANGE;
+  }
+
+  @Test
+  public void testSeedReproducesExportedOrder() {
+    int[] order = ShuffledDrawSequence.drawOrder(RANGE, SEED);
+    ShuffledDrawSequence shuffled = new ShuffledDrawSequence(RANGE, SEED);
+    FixedDrawSequence fixed = new FixedDrawSequence(RANGE, order);
+
+    for (int number : order) {
+      assert shuffled.next() == number;
+      assert fixed.next() == number;
+    }
+    assert !fixed.hasNext();
+  }
+
+  @Test
+  public void testSparseSequenceCallsEveryNumberOnceAfterTheGivenOnes() {
+    int range = 1_000;
+    SparseDrawSequence target = new SparseDrawSequence(range, new int[] {5, 1, range}, new SplittableRandom(SEED));
+
+    for (int game = 0; game < 2; game++) {
+      boolean[] seen = new boolean[range + 1];
+      for (int i = 0; i < range; i++) {
+        int number = target.next();
+        assert number >= 1 && number <= range;
+        assert !seen[number];
+        seen[number] = true;
+      }
+      assert !target.hasNext();
+      int[] called = target.getCalledNumbers();
+      assert called.length == range;
+      // the given numbers only come first in the first game
+      assert (called[0] == 5 && called[1] == 1 && called[2] == range) == (game == 0);
+      target.reset();
+      // the swaps of the finished game are forgotten
+      assert target.touchedPositions() == 0;
+    }
+  }
+
+  @Test
+  public void testHugeRangeIsDrawnSparsely() {
+    DrawSequence target = DrawSequence.shuffled(Integer.MAX_VALUE, new SplittableRandom(SEED));
+    assert target instanceof SparseDrawSequence;
+    assert DrawSequence.shuffled(RANGE, new SplittableRandom(SEED)) instanceof ShuffledDrawSequence;
+
+    CompressedBitmap seen = new CompressedBitmap();
+    for (int i = 0; i < 10_000; i++) {
+      int number = target.next();
+      assert number >= 1 && seen.add(number);
+    }
+    assert target.getCalledNumbers().length == 10_000;
+    // a fixed order over the huge range is checked without a flag per number of the range
+    assert new FixedDrawSequence(Integer.MAX_VALUE, target.getCalledNumbers()).hasNext();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSparseSequenceRejectsRepeatedNumbers() {
+    new SparseDrawSequence(RANGE, new int[] {1, 2, 1}, new SplittableRandom(SEED));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFixedSequenceRejectsRepeatedNumbers() {
+    new FixedDrawSequence(RANGE, new int[] {1, 2, 1});
+  }
+}
@@ -0,0 +1,142 @@
+package sie;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+public class GameListenerTest {
+
+  private static final int RANGE = 90;
+
+  @Test
+  public void testAsyncListenerDeliversEveryEventInOrder() throws InterruptedException {
+    RecordingListener recorder = new RecordingListener();
+    AsyncGameListener target = new AsyncGameListener(recorder, 1024);
+    Housie housie = new Housie(TicketStore.generate(20, 3, 10, 5, RANGE, new SplittableRandom(1)),
+        new ShuffledDrawSequence(RANGE, 1), Prize.CLASSIC, target);
+    while (!housie.callNumber()) {
+      // play the game out
+    }
+    target.close();
+
+    assert target.getDroppedEvents() == 0;
+    assert recorder.events.get(0).equals("tickets 20");
+    assert recorder.events.get(recorder.events.size() - 1).equals("over " + housie.getTotalNumbersCalled());
+    long drawn = recorder.events.stream().filter(event -> event.startsWith("drawn")).count();
+    long won = recorder.events.stream().filter(event -> event.startsWith("won")).count();
+    assert drawn == housie.getTotalNumbersCalled();
+    assert won == Prize.CLASSIC.size();
+    assert recorder.flushes > 0;
+  }
+
+  @Test
+  public void testAsyncListenerOnlyDropsDrawsWhenFull() throws InterruptedException {
+    RecordingListener recorder = new RecordingListener();
+    recorder.gate = new CountDownLatch(1);
+    AsyncGameListener target = new AsyncGameListener(recorder, 2);
+    Prize prize = new Prize(PrizePattern.FULL_HOUSE);
+
+    target.onTicketsGenerated(5);
+    for (int draw = 1; draw <= 10; draw++) {
+      target.onNumberDrawn(draw, draw);
+    }
+    target.onPrizeWon(prize, 3, 10);
+    target.onGameOver(10);
+    recorder.gate.countDown();
+    target.close();
+
+    // the writer is stuck on the first draw, so only two draws fit and the rare events still get through
+    assert target.getDroppedEvents() == 8;
+    assert recorder.events.equals(List.of("tickets 5", "drawn 1", "drawn 2", "won Full House", "over 10"));
+    assert !recorder.interrupted;
+  }
+
+  @Test
+  public void testGamesSharingAFullListenerNeverGoOverItsCapacity() throws InterruptedException {
+    RecordingListener recorder = new RecordingListener();
+    recorder.gate = new CountDownLatch(1);
+    AsyncGameListener target = new AsyncGameListener(recorder, 4);
+    Thread[] games = new Thread[8];
+    for (int g = 0; g < games.length; g++) {
+      games[g] = new Thread(() -> {
+        for (int draw = 1; draw <= 1000; draw++) {
+          target.onNumberDrawn(draw, draw);
+        }
+      });
+      games[g].start();
+    }
+    for (Thread game : games) {
+      game.join();
+    }
+    recorder.gate.countDown();
+    target.close();
+    target.onGameOver(1000);
+
+    // the writer is held up until every game is done, so exactly the capacity gets through
+    assert recorder.events.size() == 4;
+    assert target.getDroppedEvents() == games.length * 1000 - 4 + 1;
+  }
+
+  @Test
+  public void testConsoleListenerPrintsToItsStream() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ConsoleGameListener target = new ConsoleGameListener(new PrintStream(bytes, true));
+
+    target.onGeneratingTickets(5);
+    target.onTicketsGenerated(5);
+    target.onNumberDrawn(7, 1);
+    target.onPrizeWon(new Prize(PrizePattern.TOP_LINE), 3, 12);
+    target.onPrizeWon(new Prize(PrizePattern.EARLY_FIVE), 2, 9);
+    String printed = bytes.toString();
+    // the lines the console has always printed
+    assert printed.startsWith("   *** Generating Players and Tickets ***" + System.lineSeparator()
+        + "   *** Players and Tickets Generated ***" + System.lineSeparator());
+    assert printed.contains("Next number is: 7");
+    assert printed.contains("Player 3 has the 'Top Line' winning combination");
+    assert printed.contains("Player 2 has the 'First Five' winning combination");
+  }
+
+  private static final class RecordingListener implements GameListener {
+
+    private final List<String> events = new ArrayList<>();
+    private int flushes = 0;
+    // holds up the delivery of drawn numbers while it is open
+    private CountDownLatch gate = new CountDownLatch(0);
+    private boolean interrupted = false;
+
+    @Override
+    public void onTicketsGenerated(int tickets) {
+      events.add("tickets " + tickets);
+    }
+
+    @Override
+    public void onNumberDrawn(int number, int draw) {
+      try {
+        gate.await();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+      events.add("drawn " + number);
+    }
+
+    @Override
+    public void onPrizeWon(Prize prize, int playerId, int draw) {
+      events.add("won " + prize.getName());
+    }
+
+    @Override
+    public void onGameOver(int draws) {
+      events.add("over " + draws);
+    }
+
+    @Override
+    public void flush() {
+      interrupted |= Thread.currentThread().isInterrupted();
+      flushes++;
+    }
+  }
+}
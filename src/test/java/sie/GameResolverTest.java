@@ -0,0 +1,57 @@
+package sie;
+
+import java.util.SplittableRandom;
+import org.junit.Test;
+
+public class GameResolverTest {
+
+  private static final int GAMES = 50;
+  private static final int PLAYERS = 300;
+  private static final int RANGE = 90;
+
+  @Test
+  public void testResolveMatchesSteppingThroughTheGame() {
+    SplittableRandom random = new SplittableRandom(3);
+    for (int game = 0; game < GAMES; game++) {
+      TicketStore tickets = TicketStore.generate(PLAYERS, 3, 10, 5, RANGE, random);
+      int[] order = ShuffledDrawSequence.drawOrder(RANGE, random.nextLong());
+      GameResult result = GameResolver.resolve(tickets, order);
+
+      Housie housie = new Housie(tickets, new FixedDrawSequence(RANGE, order), false);
+      while (!housie.callNumber()) {
+        // play the game out
+      }
+      assert result.getEarlyFiveDraw() == housie.getEarlyFiveDraw();
+      assert result.getTopLineDraw() == housie.getTopLineDraw();
+      assert result.getFullHouseDraw() == housie.getFullHouseDraw();
+      assert result.getGameOverDraw() == housie.getTotalNumbersCalled();
+      assert tickets.hasPrize(result.getEarlyFiveWinner() - 1, TicketStore.EARLY_FIVE_PRIZE);
+      assert tickets.hasPrize(result.getTopLineWinner() - 1, TicketStore.TOP_LINE_PRIZE);
+      assert tickets.hasPrize(result.getFullHouseWinner() - 1, TicketStore.FULL_HOUSE_PRIZE);
+      assert result.getFullHouseTies() >= 1;
+    }
+  }
+
+  @Test
+  public void testTiesGoToLowestPlayer() {
+    TicketStore tickets = TicketStore.of(1, 2, 2, 4, new int[] {3, 4}, new int[] {1, 2}, new int[] {2, 1});
+    GameResult result = GameResolver.resolve(tickets, new int[] {1, 2, 3});
+
+    // no ticket holds five numbers, players 2 and 3 both finish on the second draw
+    assert result.getEarlyFiveDraw() == 0 && result.getEarlyFiveWinner() == 0;
+    assert result.getFullHouseDraw() == 2;
+    assert result.getFullHouseWinner() == 2;
+    assert result.getFullHouseTies() == 2;
+  }
+
+  @Test
+  public void testHugeRangeIsResolvedFromTheDrawsAlone() {
+    int range = Integer.MAX_VALUE;
+    TicketStore tickets = TicketStore.of(1, 2, 2, range, new int[] {2_000_000_000, 7}, new int[] {5, range});
+    GameResult result = GameResolver.resolve(tickets, new int[] {5, 2_000_000_000, 7, range});
+
+    assert result.getFullHouseDraw() == 3;
+    assert result.getFullHouseWinner() == 1;
+    assert result.getFullHouseTies() == 1;
+  }
+}
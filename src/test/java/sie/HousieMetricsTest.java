@@ -0,0 +1,98 @@
+package sie;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HousieMetricsTest {
+
+  private static final int RANGE = 90;
+  private static final int TICKETS = 300;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testHistogramReportsValuesWithinBucketPrecision() {
+    LatencyHistogram target = new LatencyHistogram();
+    for (long value = 1; value <= 1_000_000; value++) {
+      target.record(value);
+    }
+
+    assert target.getCount() == 1_000_000;
+    assert target.getMax() == 1_000_000;
+    assert Math.abs(target.getMean() - 500_000.5) < 1e-6;
+    long median = target.getPercentile(50);
+    assert median >= 500_000 && median <= 500_000 * 1.07 : median;
+    long p99 = target.getPercentile(99);
+    assert p99 >= 990_000 && p99 <= 1_000_000 : p99;
+    for (long value : new long[] {0, 1, 31, 32, 33, 1000, Long.MAX_VALUE}) {
+      int bucket = LatencyHistogram.bucketOf(value);
+      assert LatencyHistogram.highestValueOf(bucket) >= value;
+      assert bucket == 0 || LatencyHistogram.highestValueOf(bucket - 1) < value;
+    }
+  }
+
+  @Test
+  public void testGameRecordsEveryDraw() {
+    HousieMetrics metrics = new HousieMetrics();
+    TicketStore tickets = TicketStore.generate(TICKETS, 3, 10, 5, RANGE, new SplittableRandom(2), false, metrics);
+    Housie housie = new Housie(tickets, new ShuffledDrawSequence(RANGE, 2), false);
+    housie.setMetrics(metrics);
+    while (!housie.callNumber()) {
+      // play the game out
+    }
+
+    HousieMetrics.Snapshot target = metrics.snapshot();
+    long hits = 0;
+    for (int ticket = 0; ticket < TICKETS; ticket++) {
+      hits += tickets.hits(ticket);
+    }
+    assert target.getDraws() == housie.getTotalNumbersCalled();
+    assert target.getDrawLatency().getCount() == target.getDraws();
+    assert target.getHits() == hits;
+    assert target.getPrizesWon() == Prize.CLASSIC.size();
+    assert target.getCompletions() >= target.getPrizesWon();
+    assert target.getTicketsGenerated() == TICKETS;
+    assert target.getTicketsPerSecond() > 0;
+    assert target.toString().contains("draws=" + housie.getTotalNumbersCalled());
+  }
+
+  @Test
+  public void testDrawsAreRecordedByFlightRecorder() throws IOException {
+    Path file = folder.newFile("housie.jfr").toPath();
+    Housie housie;
+    try (Recording recording = new Recording()) {
+      recording.enable("sie.Draw");
+      recording.enable("sie.TicketGeneration");
+      recording.start();
+      housie = new Housie(TicketStore.generate(TICKETS, 3, 10, 5, RANGE, new SplittableRandom(4)),
+          new ShuffledDrawSequence(RANGE, 4), false);
+      while (!housie.callNumber()) {
+        // play the game out
+      }
+      recording.stop();
+      recording.dump(file);
+    }
+
+    int draws = 0;
+    int generations = 0;
+    for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+      if (event.getEventType().getName().equals("sie.Draw")) {
+        draws++;
+        assert event.getInt("draw") == draws;
+      } else if (event.getEventType().getName().equals("sie.TicketGeneration")) {
+        generations++;
+        assert event.getInt("tickets") == TICKETS;
+      }
+    }
+    assert draws == housie.getTotalNumbersCalled();
+    assert generations == 1;
+  }
+}
@@ -0,0 +1,83 @@
+package sie;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HousieScriptTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+  @Test
+  public void testSameSeedPlaysSameGame() {
+    String[] args = {"--players=5", "--seed=3"};
+    assert run("run-to-end\n", args) == HousieScript.EXIT_OK;
+    String first = out.toString();
+    out.reset();
+    assert run("# same again\n\nRUN-TO-END\n", args) == HousieScript.EXIT_OK;
+
+    assert first.equals(out.toString());
+    assert first.contains("Summary:") && first.contains("Player #5");
+    assert err.size() == 0;
+  }
+
+  @Test
+  public void testBulkDrawsStopAtQuit() {
+    assert run("N 10\nN\nQ\nN 5\n", "--players=2", "--seed=1") == HousieScript.EXIT_OK;
+    assert count(out.toString(), "Next number is:") == 11;
+  }
+
+  @Test
+  public void testNewGamesCarryOnFromTheSeed() {
+    assert run("run-to-end\nnew\nrun-to-end\nN 3\n", "--players=3", "--seed=2", "--verbose=false") == HousieScript.EXIT_OK;
+    assert count(out.toString(), "Summary:") == 2;
+    assert !out.toString().contains("Next number is:");
+  }
+
+  @Test
+  public void testFlagsOverrideConfigFile() throws IOException {
+    Path config = folder.newFile("game.properties").toPath();
+    Path script = folder.newFile("game.script").toPath();
+    Files.write(script, "run-to-end\n".getBytes(StandardCharsets.UTF_8));
+    Files.write(config, ("players=4\nrange=20\nrows=1\ncolumns=3\nnumbersPerRow=3\nscript=" + script + "\n")
+        .getBytes(StandardCharsets.UTF_8));
+
+    assert run("", "--config=" + config, "--players=6", "--verbose=false") == HousieScript.EXIT_OK;
+    assert out.toString().contains("Player #6") && !out.toString().contains("Player #7");
+  }
+
+  @Test
+  public void testProblemsAreReturnedAsExitCodes() {
+    assert run("", "--players=2", "--colour=red") == HousieScript.EXIT_INVALID;
+    assert run("", "--range=90") == HousieScript.EXIT_INVALID;
+    assert run("", "--players=2", "--rows=20") == HousieScript.EXIT_INVALID;
+    assert run("", "--players=2", "--range=2147483647", "--rows=2147483647", "--numbersPerRow=2")
+        == HousieScript.EXIT_INVALID;
+    assert run("", "--players=2000000000") == HousieScript.EXIT_INVALID;
+    assert run("N 0\n", "--players=2") == HousieScript.EXIT_INVALID;
+    err.reset();
+    assert run("N\nshuffle\n", "--players=2") == HousieScript.EXIT_INVALID;
+    assert err.toString().contains("line 2");
+    assert run("", "--players=2", "--script=" + folder.getRoot().toPath().resolve("missing")) == HousieScript.EXIT_IO;
+  }
+
+  private int run(String commands, String... args) {
+    return HousieScript.run(args, new ByteArrayInputStream(commands.getBytes(StandardCharsets.UTF_8)),
+        new PrintStream(out), new PrintStream(err, true));
+  }
+
+  private static int count(String text, String line) {
+    return text.split(line, -1).length - 1;
+  }
+}
@@ -0,0 +1,227 @@
+package sie;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HousieServerTest {
+
+  private HousieServer server;
+
+  @Before
+  public void setUp() throws Exception {
+    server = new HousieServer(0);
+    server.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.close();
+  }
+
+  @Test
+  public void testRoomIsPlayedToTheEnd() throws Exception {
+    try (Socket socket = new Socket("localhost", server.getPort())) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+      PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), true);
+
+      out.println("CREATE 90 2 3 10 5 7");
+      assert in.readLine().equals("ROOM 1");
+      out.println("SUB 1");
+      assert in.readLine().equals("SUBSCRIBED 1");
+      out.println("JOIN 1 2");
+      assert in.readLine().split(" ").length == 3 + 15;
+      assert in.readLine().startsWith("TICKET 1 2 ");
+      out.println("JOIN 1");
+      assert in.readLine().startsWith("ERR");
+
+      // a subscribed caller gets the lines of each call once, the WIN and OVER lines of a call come
+      // before the DRAW of the next one and a call after the game is over is answered with ERR
+      int draws = 0;
+      int wins = 0;
+      String over = null;
+      String line = "";
+      while (!line.startsWith("ERR")) {
+        out.println("CALL 1");
+        line = in.readLine();
+        while (line.startsWith("WIN") || line.startsWith("OVER")) {
+          if (line.startsWith("WIN")) {
+            wins++;
+          } else {
+            over = line;
+          }
+          line = in.readLine();
+        }
+        if (line.startsWith("DRAW")) {
+          assert over == null;
+          assert line.startsWith("DRAW 1 ") && line.endsWith(" " + ++draws) : line;
+        }
+      }
+      assert over.equals("OVER 1 " + draws) : over;
+      assert wins == 3;
+
+      out.println("SUMMARY 1");
+      assert in.readLine().equals("SUMMARY 1 " + draws + " 2");
+      for (int k = 0; k < 3; k++) {
+        assert in.readLine().startsWith("PRIZE 1 ");
+      }
+      assert in.readLine().equals("END 1");
+    }
+  }
+
+  @Test
+  public void testBadCommandsOnlyFailThemselves() throws Exception {
+    try (Socket socket = new Socket("localhost", server.getPort())) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+      PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), true);
+
+      for (String command : new String[] {"CREATE 90 2000000000 3 9 5", "CREATE 90 2 3 65 5",
+          "CREATE 2147483647 1 2147483647 2147483647 2", "CREATE 90 1000001 3 10 5", "CREATE ninety 2 3 10 5",
+          "JOIN x"}) {
+        out.println(command);
+        assert in.readLine().startsWith("ERR ") : command;
+      }
+      out.println("CREATE 90 2 3 10 5 7");
+      assert in.readLine().equals("ROOM 1");
+      out.println("JOIN 1 2147483647");
+      assert in.readLine().startsWith("ERR ");
+      out.println("JOIN 1");
+      assert in.readLine().startsWith("TICKET 1 1 ");
+    }
+  }
+
+  @Test
+  public void testSubscriberThatStopsReadingOnlyDropsItself() throws Exception {
+    // enough lines to fill the socket buffers and the output limit of a client that does not read
+    final int calls = 300_000;
+    try (Socket caller = new Socket("localhost", server.getPort());
+        Socket slow = new Socket();
+        Socket reader = new Socket("localhost", server.getPort())) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(caller.getInputStream(), StandardCharsets.US_ASCII));
+      PrintWriter out = new PrintWriter(new OutputStreamWriter(caller.getOutputStream(), StandardCharsets.US_ASCII));
+      out.println("CREATE 16000000 1 3 10 5 7");
+      out.flush();
+      assert in.readLine().equals("ROOM 1");
+      slow.setReceiveBufferSize(1024);
+      slow.connect(new InetSocketAddress("localhost", server.getPort()));
+      PrintWriter slowOut = new PrintWriter(new OutputStreamWriter(slow.getOutputStream(), StandardCharsets.US_ASCII), true);
+      slowOut.println("SUB 1");
+      BufferedReader readerIn = new BufferedReader(new InputStreamReader(reader.getInputStream(),
+          StandardCharsets.US_ASCII));
+      PrintWriter readerOut = new PrintWriter(new OutputStreamWriter(reader.getOutputStream(),
+          StandardCharsets.US_ASCII), true);
+      readerOut.println("SUB 1");
+      assert readerIn.readLine().equals("SUBSCRIBED 1");
+      caller.setSoTimeout(10_000);
+      reader.setSoTimeout(10_000);
+
+      // the subscriber after the slow one and the caller read every line while the calls are piped in
+      AtomicInteger subscriberDraws = new AtomicInteger();
+      Thread subscriber = new Thread(() -> subscriberDraws.set(countDraws(readerIn, calls)));
+      subscriber.start();
+      Thread writer = new Thread(() -> {
+        for (int k = 0; k < calls; k++) {
+          out.println("CALL 1");
+        }
+        out.flush();
+      });
+      writer.start();
+      int callerDraws = countDraws(in, calls);
+      writer.join();
+      subscriber.join();
+
+      assert callerDraws == calls;
+      assert subscriberDraws.get() == calls;
+      assert server.getConnections() == 2;
+    }
+  }
+
+  @Test
+  public void testFinishedAndIdleRoomsAreClosed() throws Exception {
+    try (HousieServer target = new HousieServer(0, 300);
+        Socket caller = new Socket("localhost", target.getPort())) {
+      target.start();
+      BufferedReader in = new BufferedReader(new InputStreamReader(caller.getInputStream(), StandardCharsets.US_ASCII));
+      PrintWriter out = new PrintWriter(new OutputStreamWriter(caller.getOutputStream(), StandardCharsets.US_ASCII), true);
+
+      out.println("CREATE 90 2 3 10 5 7");
+      assert in.readLine().equals("ROOM 1");
+      out.println("CREATE 90 2 3 10 5 7");
+      assert in.readLine().equals("ROOM 2");
+      try (Socket subscriber = new Socket("localhost", target.getPort())) {
+        PrintWriter subscriberOut = new PrintWriter(new OutputStreamWriter(subscriber.getOutputStream(),
+            StandardCharsets.US_ASCII), true);
+        subscriberOut.println("SUB 1");
+        assert new BufferedReader(new InputStreamReader(subscriber.getInputStream(), StandardCharsets.US_ASCII))
+            .readLine().equals("SUBSCRIBED 1");
+        String line = "";
+        while (!line.startsWith("ERR")) {
+          out.println("CALL 1");
+          do {
+            line = in.readLine();
+          } while (!line.startsWith("DRAW") && !line.startsWith("ERR"));
+        }
+      }
+      // the finished room goes with its last subscriber, the untouched one after the idle timeout
+      assert awaitClosed(in, out, 1);
+      Thread.sleep(1_500);
+      out.println("SUMMARY 2");
+      assert in.readLine().equals("ERR no room 2");
+    }
+  }
+
+  @Test
+  public void testLoadClientReceivesEveryLine() throws Exception {
+    HousieLoadClient client = new HousieLoadClient("localhost", server.getPort(), 200, 4);
+    client.run();
+
+    assert client.getDrawsCalled() > 0;
+    assert client.getLinesReceived() == client.getLinesExpected();
+    assert client.getCallLatency().getCount() == client.getDrawsCalled();
+  }
+
+  /**
+   * @return DRAW lines among the given number of DRAW or ERR lines, or among those read before the
+   *         connection goes quiet
+   */
+  private static int countDraws(BufferedReader in, int expected) {
+    int draws = 0;
+    try {
+      String line;
+      for (int replies = 0; replies < expected && (line = in.readLine()) != null; ) {
+        draws += line.startsWith("DRAW") ? 1 : 0;
+        replies += line.startsWith("DRAW") || line.startsWith("ERR") ? 1 : 0;
+      }
+    } catch (java.io.IOException e) {
+      // counted so far
+    }
+    return draws;
+  }
+
+  /**
+   * @return true once the room is gone, asking for its summary until it is or a few seconds pass
+   */
+  private static boolean awaitClosed(BufferedReader in, PrintWriter out, int room) throws Exception {
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (System.nanoTime() < deadline) {
+      out.println("SUMMARY " + room);
+      String line = in.readLine();
+      if (line.equals("ERR no room " + room)) {
+        return true;
+      }
+      while (!line.startsWith("END")) {
+        line = in.readLine();
+      }
+      Thread.sleep(50);
+    }
+    return false;
+  }
+}
@@ -0,0 +1,57 @@
+package sie;
+
+import org.junit.Test;
+
+public class HousieSimulationTest {
+
+  private static final int GAMES = 200;
+  private static final int RANGE = 90;
+
+  @Test
+  public void testEveryGameAwardsEveryPrize() throws InterruptedException {
+    SimulationResult result = new HousieSimulation(RANGE, 10, 3, 10, 5, GAMES, 3, 1L).run();
+
+    assert result.getGames() == GAMES;
+    assert result.getEarlyFive().getCount() == GAMES;
+    assert result.getTopLine().getCount() == GAMES;
+    assert result.getFullHouse().getCount() == GAMES;
+    // a ticket needs at least five draws for early five and fifteen for a full house
+    assert result.getEarlyFive().getMin() >= 5;
+    assert result.getFullHouse().getMin() >= 15;
+    assert result.getFullHouse().getMax() <= RANGE;
+    assert result.getTopLine().getMean() <= result.getFullHouse().getMean();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHugeRangeIsRejected() {
+    new HousieSimulation(Integer.MAX_VALUE, 10, 3, 10, 5, GAMES, 1, 1L);
+  }
+
+  @Test
+  public void testSameSeedReproducesResults() throws InterruptedException {
+    SimulationResult first = new HousieSimulation(RANGE, 5, 3, 10, 5, GAMES, 2, 9L).run();
+    SimulationResult second = new HousieSimulation(RANGE, 5, 3, 10, 5, GAMES, 2, 9L).run();
+
+    for (int draw = 1; draw <= RANGE; draw++) {
+      assert first.getFullHouse().getCount(draw) == second.getFullHouse().getCount(draw);
+      assert first.getTopLine().getCount(draw) == second.getTopLine().getCount(draw);
+    }
+  }
+
+  @Test
+  public void testHistogramsMerge() {
+    DrawHistogram target = new DrawHistogram(10);
+    DrawHistogram other = new DrawHistogram(10);
+    target.record(2);
+    target.record(4);
+    other.record(6);
+    other.record(10);
+
+    target.merge(other);
+    assert target.getCount() == 4;
+    assert target.getMean() == 5.5;
+    assert target.getMin() == 2 && target.getMax() == 10;
+    assert target.getPercentile(50) == 4;
+    assert target.getProbabilityBy(6) == 0.75;
+  }
+}
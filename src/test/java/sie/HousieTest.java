@@ -1,9 +1,19 @@
 package sie;
 
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.Test;
 
 public class HousieTest {
 
+  private static final int COLUMNS = 10;
+  private static final int NUMBERS_PER_ROW = 5;
+  private static final int PLAYERS = 20_000;
+  private static final int RANGE = 90;
+  private static final int ROWS = 3;
+  private static final long SEED = 42;
+
   // @Test
   public void callNumber() {
 
@@ -12,4 +22,134 @@ public class HousieTest {
   // @Test
   public void printSummary() {
   }
+
+  @Test
+  public void testParallelEvaluationMatchesSequential() {
+    TicketStore sequentialTickets = newTickets();
+    TicketStore parallelTickets = newTickets();
+    Housie sequential = new Housie(sequentialTickets, new ShuffledDrawSequence(RANGE, SEED), false);
+    Housie parallel = new Housie(parallelTickets, new ShuffledDrawSequence(RANGE, SEED), false);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    parallel.setParallelEvaluation(pool, 1);
+
+    boolean over;
+    do {
+      over = sequential.callNumber();
+      assert parallel.callNumber() == over;
+    } while (!over);
+    pool.shutdown();
+
+    for (int ticket = 0; ticket < PLAYERS; ticket++) {
+      for (int prize : new int[] {TicketStore.EARLY_FIVE_PRIZE, TicketStore.TOP_LINE_PRIZE,
+          TicketStore.FULL_HOUSE_PRIZE}) {
+        assert sequentialTickets.hasPrize(ticket, prize) == parallelTickets.hasPrize(ticket, prize);
+      }
+      assert sequentialTickets.hits(ticket) == parallelTickets.hits(ticket);
+    }
+  }
+
+  @Test
+  public void testResetReplaysGameOnSameTickets() {
+    TicketStore tickets = TicketStore.generate(200, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE, new SplittableRandom(1));
+    Housie target = new Housie(tickets, new FixedDrawSequence(RANGE, ShuffledDrawSequence.drawOrder(RANGE, SEED)),
+        false);
+    playToEnd(target);
+    int[] winners = winners(target);
+    int draws = target.getTotalNumbersCalled();
+
+    target.reset();
+    assert !target.isOver() && target.getTotalNumbersCalled() == 0 && target.getCalledNumbers().length == 0;
+    assert target.getPrizeWinner(0) == 0 && tickets.hits(0) == 0;
+    playToEnd(target);
+    assert Arrays.equals(winners(target), winners);
+    assert target.getTotalNumbersCalled() == draws;
+  }
+
+  @Test
+  public void testResetWithNewTicketsPlaysLikeNewGame() {
+    Housie target = new Housie(TicketStore.generate(200, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE, new SplittableRandom(1)),
+        new ShuffledDrawSequence(RANGE, SEED), false);
+    playToEnd(target);
+    target.reset(new SplittableRandom(2));
+    playToEnd(target);
+
+    Housie expected = new Housie(TicketStore.generate(200, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE, new SplittableRandom(2)),
+        new FixedDrawSequence(RANGE, target.getCalledNumbers()), false);
+    playToEnd(expected);
+    assert Arrays.equals(winners(target), winners(expected));
+    assert target.getTotalNumbersCalled() == expected.getTotalNumbersCalled();
+  }
+
+  @Test
+  public void testPoolHandsOutReleasedGames() {
+    HousiePool.Shape target = new HousiePool(2).shape(RANGE, 50, ROWS, COLUMNS, NUMBERS_PER_ROW);
+    SplittableRandom random = new SplittableRandom(3);
+    Housie first = target.acquire(random);
+    playToEnd(first);
+    target.release(first);
+    assert target.getIdle() == 1;
+
+    Housie second = target.acquire(random);
+    assert second == first && target.getCreated() == 1 && target.getIdle() == 0;
+    assert !second.isOver() && second.getTotalNumbersCalled() == 0;
+    playToEnd(second);
+    assert second.getFullHouseDraw() > 0;
+    try {
+      target.release(new Housie(newTickets(), new ShuffledDrawSequence(RANGE, SEED), false));
+      assert false : "game of another shape was pooled";
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      // same players and range, but tickets of a single row
+      TicketStore oneRow = TicketStore.generate(50, 1, COLUMNS, NUMBERS_PER_ROW, RANGE, random);
+      target.release(new Housie(oneRow, new ShuffledDrawSequence(RANGE, SEED), false));
+      assert false : "game with tickets of another shape was pooled";
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testHugeRangeGameMatchesSmallRangeGame() {
+    // the same tickets and draws with every number n spread out to n * spread
+    final int spread = 20_000_003;
+    TicketStore small = TicketStore.generate(500, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE, new SplittableRandom(6));
+    int[][] smallNumbers = new int[small.size()][];
+    int[][] hugeNumbers = new int[small.size()][];
+    for (int ticket = 0; ticket < small.size(); ticket++) {
+      smallNumbers[ticket] = small.numbers(ticket);
+      hugeNumbers[ticket] = Arrays.stream(smallNumbers[ticket]).map(n -> n * spread).toArray();
+    }
+    int[] order = ShuffledDrawSequence.drawOrder(RANGE, SEED);
+    Housie expected = new Housie(TicketStore.of(ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE, smallNumbers),
+        new FixedDrawSequence(RANGE, order), false);
+    Housie target = new Housie(TicketStore.of(ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE * spread, hugeNumbers),
+        new FixedDrawSequence(RANGE * spread, Arrays.stream(order).map(n -> n * spread).toArray()), false);
+    playToEnd(expected);
+    playToEnd(target);
+
+    assert Arrays.equals(winners(target), winners(expected));
+    assert target.getTotalNumbersCalled() == expected.getTotalNumbersCalled();
+    assert target.isCalled(order[0] * spread) && !target.isCalled(order[0]);
+  }
+
+  private static void playToEnd(Housie housie) {
+    while (!housie.callNumber()) {
+      // keep calling
+    }
+  }
+
+  private static int[] winners(Housie housie) {
+    int[] winners = new int[housie.getPrizes().size() * 2];
+    for (int k = 0; k < housie.getPrizes().size(); k++) {
+      winners[2 * k] = housie.getPrizeWinner(k);
+      winners[2 * k + 1] = housie.getPrizeDraw(k);
+    }
+    return winners;
+  }
+
+  private static TicketStore newTickets() {
+    return TicketStore.generate(PLAYERS, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE, new SplittableRandom(SEED));
+  }
 }
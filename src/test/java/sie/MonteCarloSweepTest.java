@@ -0,0 +1,80 @@
+package sie;
+
+import java.io.IOException;
+import java.util.List;
+import org.junit.Test;
+
+public class MonteCarloSweepTest {
+
+  private static final int RANGE = 90;
+
+  @Test
+  public void testConfigurationsStopOnceIntervalsAreNarrow() throws InterruptedException {
+    MonteCarloSweep target = new MonteCarloSweep(new int[] {RANGE}, new int[] {5, 50}, new int[] {3},
+        new int[] {10}, new int[] {5}, 3, 4L);
+    target.setStopping(600, 600, 100_000, 0.08);
+    List<MonteCarloSweep.Configuration> results = target.run();
+
+    assert results.size() == 2;
+    for (MonteCarloSweep.Configuration configuration : results) {
+      assert configuration.isConverged();
+      assert configuration.getProbabilityWidth() <= 0.08;
+      assert configuration.getGames() >= 600 && configuration.getGames() < 100_000;
+      assert configuration.getResult().getMeanFullHouseWinners() >= 1;
+    }
+    // more players finish sooner and share the win more often
+    SimulationResult few = results.get(0).getResult();
+    SimulationResult many = results.get(1).getResult();
+    assert many.getFullHouse().getMean() < few.getFullHouse().getMean();
+    assert many.getMeanEarlyFiveWinners() > few.getMeanEarlyFiveWinners();
+  }
+
+  @Test
+  public void testGamesAreCappedAndReproducible() throws InterruptedException {
+    List<MonteCarloSweep.Configuration> first = cappedSweep().run();
+    List<MonteCarloSweep.Configuration> second = cappedSweep().run();
+
+    assert first.get(0).getGames() == 1_000 && !first.get(0).isConverged();
+    for (int draw = 1; draw <= RANGE; draw++) {
+      assert first.get(0).getResult().getFullHouse().getCount(draw) == second.get(0).getResult().getFullHouse()
+          .getCount(draw);
+    }
+  }
+
+  @Test
+  public void testReportsCoverEveryPrizeAndDraw() throws InterruptedException, IOException {
+    List<MonteCarloSweep.Configuration> results = cappedSweep().run();
+
+    StringBuilder csv = new StringBuilder();
+    MonteCarloSweep.writeCsv(results, csv);
+    String[] lines = csv.toString().split("\n");
+    assert lines.length == 1 + MonteCarloSweep.PRIZES.length * RANGE;
+    assert lines[lines.length - 1].startsWith(RANGE + ",10,3,10,5,1000,false,Full House,90,1.000000,0.000000,");
+
+    StringBuilder json = new StringBuilder();
+    MonteCarloSweep.writeJson(results, json);
+    assert json.toString().contains("\"Full House\": {\"won\": 1000");
+    assert json.toString().trim().startsWith("[") && json.toString().trim().endsWith("]");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnplayableShapeIsRejected() {
+    new MonteCarloSweep(new int[] {10}, new int[] {5}, new int[] {3}, new int[] {10}, new int[] {5}, 1, 1L);
+  }
+
+  @Test
+  public void testHistogramStandardDeviation() {
+    DrawHistogram target = new DrawHistogram(10);
+    for (int draw : new int[] {2, 4, 4, 4, 5, 5, 7, 9}) {
+      target.record(draw);
+    }
+    assert Math.abs(target.getStandardDeviation() - Math.sqrt(32.0 / 7)) < 1e-9;
+  }
+
+  private static MonteCarloSweep cappedSweep() {
+    MonteCarloSweep sweep = new MonteCarloSweep(new int[] {RANGE}, new int[] {10}, new int[] {3}, new int[] {10},
+        new int[] {5}, 2, 8L);
+    sweep.setStopping(300, 0, 1_000, 0.0001);
+    return sweep;
+  }
+}
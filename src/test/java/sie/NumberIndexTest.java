@@ -0,0 +1,88 @@
+package sie;
+
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import org.junit.Test;
+
+public class NumberIndexTest {
+
+  private static final int RANGE = 10;
+
+  @Test
+  public void testPostingsAreGroupedByNumberAndSortedBySlot() {
+    TicketStore store = TicketStore.of(1, 2, 2, RANGE, new int[] {3, 7}, new int[] {1, 3}, new int[] {7, 10});
+    NumberIndex target = new NumberIndex(store);
+
+    // number 3 is held by slot 0 of ticket 0 and slot 1 of ticket 1 in that order
+    assert target.end(3) - target.start(3) == 2;
+    assert target.posting(target.start(3)) == 0;
+    assert target.posting(target.start(3) + 1) == 3;
+
+    // number 10 is the top of the range and only held by the last slot
+    assert target.end(10) - target.start(10) == 1;
+    assert target.posting(target.start(10)) == 5;
+
+    // numbers that nobody holds have an empty posting list
+    assert target.start(5) == target.end(5);
+  }
+
+  @Test
+  public void testHugeRangeIndexOnlyKeepsNumbersInUse() {
+    int range = 2_000_000_000;
+    TicketStore store = TicketStore.of(1, 2, 2, range, new int[] {3, range - 1}, new int[] {70_000, 3},
+        new int[] {range - 1, range});
+    NumberIndex target = new NumberIndex(store);
+    assert target.isSparse();
+    assert !new NumberIndex(TicketStore.of(1, 2, 2, RANGE, new int[] {3, 7})).isSparse();
+
+    assert target.end(3) - target.start(3) == 2;
+    assert target.posting(target.start(3)) == 0;
+    assert target.posting(target.start(3) + 1) == 3;
+    assert target.end(70_000) - target.start(70_000) == 1;
+    assert target.posting(target.start(70_000)) == 2;
+    assert target.end(range - 1) - target.start(range - 1) == 2;
+    assert target.posting(target.start(range)) == 5;
+    for (int number : new int[] {1, 4, 69_999, 70_001, range - 2}) {
+      assert target.start(number) == target.end(number);
+    }
+  }
+
+  @Test
+  public void testCompressedBitmapMatchesSortedSet() {
+    CompressedBitmap target = new CompressedBitmap();
+    TreeSet<Integer> expected = new TreeSet<>();
+    SplittableRandom random = new SplittableRandom(3);
+    // a dense chunk turns into a bitmap, the rest stay sorted arrays
+    for (int i = 0; i < 2 * CompressedBitmap.ARRAY_MAX; i++) {
+      int value = random.nextInt(1 << 16);
+      assert target.add(value) == expected.add(value);
+    }
+    for (int i = 0; i < 5_000; i++) {
+      int value = random.nextInt(Integer.MAX_VALUE);
+      assert target.add(value) == expected.add(value);
+    }
+    assert target.size() == expected.size();
+    for (int i = 0; i < 20_000; i++) {
+      int value = i % 2 == 0 ? random.nextInt(1 << 17) : random.nextInt(Integer.MAX_VALUE);
+      assert target.contains(value) == expected.contains(value);
+      assert target.rank(value) == expected.headSet(value, true).size();
+    }
+    for (int value : expected) {
+      assert target.contains(value);
+    }
+
+    target.clear();
+    assert target.size() == 0 && target.rank(Integer.MAX_VALUE) == 0 && !target.contains(expected.first());
+    assert target.add(expected.first()) && target.rank(Integer.MAX_VALUE) == 1;
+  }
+
+  @Test
+  public void testCompressedBitmapGrowsWithValuesNotRange() {
+    CompressedBitmap target = new CompressedBitmap();
+    for (int value = 1; value <= 1_000; value++) {
+      target.add(value * 2_000_000);
+    }
+    // a flat bitmap of the same range would take 256MB
+    assert target.getSizeInBytes() < 100_000;
+  }
+}
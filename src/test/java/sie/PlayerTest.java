@@ -1,5 +1,8 @@
 package sie;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
 import org.junit.Test;
 
 public class PlayerTest {
@@ -32,4 +35,34 @@ public class PlayerTest {
   // @Test
   public void printPlayerSummary() {
   }
+
+  @Test
+  public void testPlayerWithSeveralTicketsIsToldWhichTicketWon() {
+    TicketStore tickets = TicketStore.of(1, 3, 3, 10, new int[] {1, 2, 3}, new int[] {4, 5, 6}, new int[] {7, 8, 9});
+    List<Prize> prizes = List.of(new Prize(PrizePattern.TOP_LINE), new Prize(PrizePattern.FULL_HOUSE));
+    Housie housie = new Housie(tickets, PlayerTickets.of(1, 2),
+        new FixedDrawSequence(10, new int[] {7, 8, 9, 1, 2, 3, 4, 5, 6, 10}), prizes, GameListener.NONE);
+    while (!housie.callNumber()) {
+      // play until both prizes are won
+    }
+
+    assert housie.getNumberOfPlayers() == 2;
+    assert housie.getPrizeWinner(0) == 2 && housie.getPrizeTicket(0) == 2;
+    assert housie.getPrizeWinner(1) == 2 && housie.getPrizeTicket(1) == 2;
+    Player target = housie.getPlayer(2);
+    assert target.getTicketCount() == 2;
+    assert target.totalTicketHits() == 3;
+    assert target.getTicket(1).fullHouseWinner();
+    assert housie.getPlayer(1).totalTicketHits() == 0;
+
+    ByteArrayOutputStream printed = new ByteArrayOutputStream();
+    PrintStream out = System.out;
+    System.setOut(new PrintStream(printed, true));
+    try {
+      target.printPlayerSummary();
+    } finally {
+      System.setOut(out);
+    }
+    assert printed.toString().trim().equals("Player #2: Top Line (ticket 2) and Full House (ticket 2)") : printed;
+  }
 }
@@ -0,0 +1,62 @@
+package sie;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.Test;
+
+public class PrizePatternTest {
+
+  private static final int RANGE = 90;
+
+  @Test
+  public void testEveryPrizeGoesToATicketCompletingItsPattern() {
+    List<Prize> prizes = List.of(new Prize(PrizePattern.EARLY_FIVE), new Prize(PrizePattern.TOP_LINE),
+        new Prize(PrizePattern.MIDDLE_LINE), new Prize(PrizePattern.BOTTOM_LINE),
+        new Prize(PrizePattern.FOUR_CORNERS), new Prize(PrizePattern.ANY_LINE),
+        new Prize(PrizePattern.FULL_HOUSE), new Prize(PrizePattern.FULL_HOUSE, 2),
+        new Prize(PrizePattern.FULL_HOUSE, 3));
+    TicketStore tickets = TicketStore.generate(50, 3, 10, 5, RANGE, new SplittableRandom(11));
+    Housie housie = new Housie(tickets, new ShuffledDrawSequence(RANGE, 11), prizes, false);
+    while (!housie.callNumber()) {
+      // play the game out
+    }
+
+    for (int k = 0; k < prizes.size(); k++) {
+      assert housie.getPrizeWinner(k) > 0;
+      assert tickets.hasPrize(housie.getPrizeWinner(k) - 1, 1 << k);
+    }
+    assert housie.getPrizes().get(7).getName().equals("Second Full House");
+    // later full houses can not be won before earlier ones and go to different players
+    assert housie.getPrizeDraw(6) <= housie.getPrizeDraw(7) && housie.getPrizeDraw(7) <= housie.getPrizeDraw(8);
+    assert housie.getPrizeWinner(6) != housie.getPrizeWinner(7);
+    // any line is never won after top line
+    assert housie.getPrizeDraw(5) <= housie.getPrizeDraw(1);
+  }
+
+  @Test
+  public void testCountersOnlyCompleteTheirOwnPattern() {
+    // one ticket, rows {1, 2, 3} {4, 5, 6}, so the corners are 1, 3, 4 and 6
+    TicketStore tickets = TicketStore.of(2, 3, 3, 6, new int[] {1, 2, 3, 4, 5, 6});
+    List<Prize> prizes = List.of(new Prize(PrizePattern.FOUR_CORNERS), new Prize(PrizePattern.BOTTOM_LINE));
+    Housie housie = new Housie(tickets, new FixedDrawSequence(6, new int[] {1, 3, 4, 6, 5, 2}), prizes, false);
+
+    assert !housie.callNumber() && !housie.callNumber() && !housie.callNumber();
+    assert !housie.callNumber();
+    assert housie.getPrizeDraw(0) == 4 && housie.getPrizeDraw(1) == 0;
+    assert housie.callNumber();
+    assert housie.getPrizeDraw(1) == 5;
+  }
+
+  @Test
+  public void testPrizesThatCannotBeWonAreLeftOut() {
+    // early five is out of reach with four numbers on a ticket, the game ends with the full house
+    TicketStore tickets = TicketStore.of(2, 2, 2, 4, new int[] {1, 2, 3, 4});
+    Housie housie = new Housie(tickets, new FixedDrawSequence(4, new int[] {1, 2, 3, 4}), false);
+
+    assert !housie.callNumber();
+    assert !housie.callNumber();
+    assert !housie.callNumber();
+    assert housie.callNumber();
+    assert housie.getEarlyFiveDraw() == 0 && housie.getTopLineDraw() == 2 && housie.getFullHouseDraw() == 4;
+  }
+}
@@ -0,0 +1,86 @@
+package sie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class RoomSchedulerTest {
+
+  private static final int RANGE = 90;
+
+  @Test
+  public void testEveryRoomIsPlayedToTheEnd() throws InterruptedException {
+    try (RoomScheduler scheduler = new RoomScheduler(2, 1000)) {
+      List<RoomScheduler.ScheduledRoom> rooms = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        rooms.add(scheduler.schedule(newGame(i), 1, TimeUnit.MILLISECONDS));
+      }
+      for (RoomScheduler.ScheduledRoom room : rooms) {
+        assert room.await(10, TimeUnit.SECONDS);
+        assert room.getFailure() == null;
+        assert room.getDraws() == room.getHousie().getTotalNumbersCalled();
+        assert room.getHousie().getFullHouseDraw() > 0;
+      }
+      assert scheduler.getActiveRooms() == 0;
+    }
+  }
+
+  @Test
+  public void testPausedRoomDoesNotDraw() throws InterruptedException {
+    try (RoomScheduler scheduler = new RoomScheduler(1, 10)) {
+      RoomScheduler.ScheduledRoom room = scheduler.schedule(newGame(1), 1, TimeUnit.MILLISECONDS);
+      room.pause();
+      Thread.sleep(20);
+      long draws = room.getDraws();
+      Thread.sleep(20);
+      assert room.getDraws() == draws;
+      assert !room.isDone();
+
+      room.resume();
+      assert room.await(10, TimeUnit.SECONDS);
+      assert room.getHousie().getFullHouseDraw() > 0;
+    }
+  }
+
+  @Test
+  public void testCancelFreesTheRoom() throws InterruptedException {
+    try (RoomScheduler scheduler = new RoomScheduler(1, 1)) {
+      RoomScheduler.ScheduledRoom room = scheduler.schedule(newGame(1), 1, TimeUnit.HOURS);
+      try {
+        scheduler.schedule(newGame(2), 1, TimeUnit.HOURS);
+        assert false : "room cap was not enforced";
+      } catch (IllegalStateException e) {
+        // expected
+      }
+      room.cancel();
+      assert room.await(1, TimeUnit.SECONDS);
+      assert room.getDraws() == 0;
+      assert scheduler.getActiveRooms() == 0;
+      scheduler.schedule(newGame(2), 1, TimeUnit.HOURS).cancel();
+    }
+  }
+
+  @Test
+  public void testCloseFinishesOutstandingRooms() throws InterruptedException {
+    RoomScheduler scheduler = new RoomScheduler(1, 2);
+    RoomScheduler.ScheduledRoom first = scheduler.schedule(newGame(1), 1, TimeUnit.HOURS);
+    RoomScheduler.ScheduledRoom second = scheduler.schedule(newGame(2), 1, TimeUnit.HOURS);
+    scheduler.close();
+    assert first.await(1, TimeUnit.SECONDS);
+    assert second.await(1, TimeUnit.SECONDS);
+    assert scheduler.getActiveRooms() == 0;
+    try {
+      scheduler.schedule(newGame(3), 1, TimeUnit.HOURS);
+      assert false : "closed scheduler accepted a room";
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  private static Housie newGame(long seed) {
+    return new Housie(TicketStore.generate(10, 3, 10, 5, RANGE, new SplittableRandom(seed)),
+        new ShuffledDrawSequence(RANGE, seed), false);
+  }
+}
@@ -0,0 +1,123 @@
+package sie;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class ShardCoordinatorTest {
+
+  private static final int COLUMNS = 10;
+  private static final int NUMBERS_PER_ROW = 5;
+  private static final int PLAYERS = 3_000;
+  private static final int RANGE = 90;
+  private static final int ROWS = 3;
+  private static final long SEED = 21;
+  private static final List<Prize> PRIZES = List.of(new Prize(PrizePattern.EARLY_FIVE),
+      new Prize(PrizePattern.TOP_LINE), new Prize(PrizePattern.FULL_HOUSE), new Prize(PrizePattern.FULL_HOUSE, 2));
+
+  @Test
+  public void testConsecutiveSeedsDealDifferentTickets() {
+    TicketStore whole = ShardWorker.deal(SEED, 0, 100, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE);
+    TicketStore tail = ShardWorker.deal(SEED, 50, 50, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE);
+    TicketStore next = ShardWorker.deal(SEED + 1, 0, 100, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE);
+    int shared = 0;
+    for (int ticket = 0; ticket < 100; ticket++) {
+      if (ticket >= 50) {
+        assert Arrays.equals(whole.numbers(ticket), tail.numbers(ticket - 50)) : "split dealt ticket " + ticket;
+      }
+      if (ticket > 0 && Arrays.equals(whole.numbers(ticket), next.numbers(ticket - 1))) {
+        shared++;
+      }
+    }
+    assert shared == 0 : shared + " tickets shifted into the next seed's game";
+  }
+
+  @Test
+  public void testShardedGameMatchesSingleGame() throws IOException {
+    int[] order = ShuffledDrawSequence.drawOrder(RANGE, SEED);
+    Housie expected = new Housie(ShardWorker.deal(SEED, 0, PLAYERS, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE),
+        new FixedDrawSequence(RANGE, order), PRIZES, false);
+    while (!expected.callNumber()) {
+      // play to the end
+    }
+
+    List<ShardWorker> workers = new ArrayList<>();
+    List<InetSocketAddress> addresses = new ArrayList<>();
+    try {
+      for (int w = 0; w < 3; w++) {
+        ShardWorker worker = new ShardWorker(0);
+        worker.start();
+        workers.add(worker);
+        addresses.add(new InetSocketAddress("127.0.0.1", worker.getPort()));
+      }
+      // the same workers serve one game after another, however the players are split
+      assertSameGame(expected, addresses, order);
+      assertSameGame(expected, addresses.subList(0, 1), order);
+    } finally {
+      for (ShardWorker worker : workers) {
+        worker.close();
+      }
+    }
+  }
+
+  @Test
+  public void testShardedGameAcrossWorkerProcesses() throws IOException, URISyntaxException, InterruptedException {
+    int[] order = ShuffledDrawSequence.drawOrder(RANGE, SEED);
+    Housie expected = new Housie(ShardWorker.deal(SEED, 0, PLAYERS, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE),
+        new FixedDrawSequence(RANGE, order), PRIZES, false);
+    while (!expected.callNumber()) {
+      // play to the end
+    }
+
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    String classes = Paths.get(ShardWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    List<Process> processes = new ArrayList<>();
+    List<InetSocketAddress> addresses = new ArrayList<>();
+    try {
+      for (int w = 0; w < 2; w++) {
+        Process process = new ProcessBuilder(java, "-cp", classes, "sie.ShardWorker", "0").start();
+        processes.add(process);
+        String line = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))
+            .readLine();
+        assert line != null && line.startsWith("LISTENING ") : line;
+        addresses.add(new InetSocketAddress("127.0.0.1", Integer.parseInt(line.substring(10).trim())));
+      }
+      assertSameGame(expected, addresses, order);
+    } finally {
+      for (Process process : processes) {
+        process.destroy();
+        process.waitFor();
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEveryWorkerNeedsPlayers() throws IOException {
+    new ShardCoordinator(List.of(new InetSocketAddress("127.0.0.1", 1), new InetSocketAddress("127.0.0.1", 2)), 1,
+        ROWS, COLUMNS, NUMBERS_PER_ROW, SEED, new ShuffledDrawSequence(RANGE, SEED), PRIZES, GameListener.NONE);
+  }
+
+  private static void assertSameGame(Housie expected, List<InetSocketAddress> workers, int[] order) throws IOException {
+    try (ShardCoordinator target = new ShardCoordinator(workers, PLAYERS, ROWS, COLUMNS, NUMBERS_PER_ROW, SEED,
+        new FixedDrawSequence(RANGE, order), PRIZES, GameListener.NONE)) {
+      while (!target.callNumber()) {
+        // play to the end
+      }
+      assert target.getTotalNumbersCalled() == expected.getTotalNumbersCalled();
+      for (int k = 0; k < PRIZES.size(); k++) {
+        assert target.getPrizeWinner(k) == expected.getPrizeWinner(k);
+        assert target.getPrizeDraw(k) == expected.getPrizeDraw(k);
+      }
+      assert target.getRoundTripLatency().getCount() == target.getTotalNumbersCalled();
+      assert target.getRoundTripLatency().getMax() >= target.getWorkerLatency().getMax();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package sie;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class TicketBitmapsTest {
+
+  private static final int COLUMNS = 10;
+  private static final int NUMBERS_PER_ROW = 5;
+  private static final int PLAYERS = 50_000;
+  private static final int RANGE = 90;
+  private static final int ROWS = 3;
+  private static final long SEED = 11;
+
+  @Test
+  public void testStatusMatchesMarkedTickets() {
+    TicketStore tickets = TicketStore.generate(PLAYERS, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE, new SplittableRandom(4));
+    Housie housie = new Housie(tickets, new ShuffledDrawSequence(RANGE, SEED), false);
+    TicketBitmaps target = TicketBitmaps.of(tickets);
+    ForkJoinPool pool = new ForkJoinPool(4);
+
+    for (int draws = 0; draws < 60 && !housie.isOver(); draws++) {
+      housie.callNumber();
+    }
+    long[] called = TicketBitmaps.calledBitmap(RANGE, housie.getCalledNumbers());
+    for (ForkJoinPool evaluatedOn : new ForkJoinPool[] {null, pool}) {
+      target.evaluate(called, evaluatedOn);
+      for (int ticket = 0; ticket < PLAYERS; ticket++) {
+        assert target.hits(ticket) == tickets.hits(ticket);
+        for (int row = 0; row < ROWS; row++) {
+          assert target.remainingInRow(ticket, row) == tickets.remainingInRow(ticket, row);
+        }
+        assert target.isComplete(ticket, TicketStore.EARLY_FIVE_PRIZE) == tickets.hits(ticket) >= Housie.EARLY_FIVE;
+        assert target.isComplete(ticket, TicketStore.TOP_LINE_PRIZE) == tickets.topLineComplete(ticket);
+        assert target.isComplete(ticket, TicketStore.FULL_HOUSE_PRIZE) == tickets.fullHouseComplete(ticket);
+      }
+    }
+    pool.shutdown();
+    assert target.countComplete(TicketStore.FULL_HOUSE_PRIZE) > 0;
+  }
+
+  @Test
+  public void testClosestToFullHouseComeFirst() {
+    TicketStore tickets = TicketStore.generate(2_000, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE, new SplittableRandom(5));
+    TicketBitmaps target = TicketBitmaps.of(tickets);
+    int[] order = ShuffledDrawSequence.drawOrder(RANGE, SEED);
+    target.evaluate(TicketBitmaps.calledBitmap(RANGE, Arrays.copyOf(order, 40)));
+
+    int[] expected = IntStream.range(0, tickets.size()).boxed()
+        .sorted(Comparator.comparingInt((Integer ticket) -> -target.hits(ticket)).thenComparingInt(ticket -> ticket))
+        .limit(25).mapToInt(Integer::intValue).toArray();
+    assert Arrays.equals(target.closestToFullHouse(25), expected);
+    assert target.closestToFullHouse(5_000).length == tickets.size();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHugeRangeIsRejected() {
+    TicketBitmaps.of(TicketStore.of(1, 5, 2, Housie.HUGE_RANGE + 1, new int[] {1, 2}));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeCountIsRejected() {
+    TicketBitmaps.of(TicketStore.of(1, 5, 2, 10, new int[] {1, 2})).closestToFullHouse(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCalledBitmapOfAnotherRangeIsRejected() {
+    TicketStore tickets = TicketStore.of(1, 5, 2, 10, new int[] {1, 2});
+    TicketBitmaps.of(tickets).evaluate(TicketBitmaps.calledBitmap(200, 1));
+  }
+}
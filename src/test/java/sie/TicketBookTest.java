@@ -0,0 +1,132 @@
+package sie;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TicketBookTest {
+
+  private static final int COLUMNS = 10;
+  private static final int NUMBERS_PER_ROW = 5;
+  private static final int RANGE = 90;
+  private static final int ROWS = 3;
+  // enough tickets to go through the writer's buffers several times
+  private static final int TICKETS = 5000;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testBookOpensWithTheTicketsAsWritten() throws IOException {
+    TicketStore sold = TicketStore.generate(TICKETS, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE, new SplittableRandom(3));
+    Path path = folder.newFile("book.htb").toPath();
+    TicketBook.write(path, sold);
+
+    TicketStore target = TicketBook.open(path);
+    assert target.size() == TICKETS;
+    assert target.getRows() == ROWS && target.getColumns() == COLUMNS;
+    assert target.getNumbersPerRow() == NUMBERS_PER_ROW && target.getRange() == RANGE;
+    for (int ticket = 0; ticket < TICKETS; ticket++) {
+      assert Arrays.equals(target.numbers(ticket), sold.numbers(ticket));
+      assert Arrays.deepEquals(target.grid(ticket), sold.grid(ticket));
+      assert target.hits(ticket) == 0;
+    }
+  }
+
+  @Test
+  public void testGameOnBookMatchesGameOnGeneratedTickets() throws IOException {
+    TicketStore sold = TicketStore.generate(200, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE, new SplittableRandom(5));
+    Path path = folder.newFile("book.htb").toPath();
+    TicketBook.write(path, sold);
+
+    Housie expected = new Housie(sold, new ShuffledDrawSequence(RANGE, 9), false);
+    Housie target = new Housie(TicketBook.open(path), new ShuffledDrawSequence(RANGE, 9), false);
+    boolean over;
+    do {
+      over = expected.callNumber();
+      assert target.callNumber() == over;
+    } while (!over);
+    for (int k = 0; k < Prize.CLASSIC.size(); k++) {
+      assert target.getPrizeWinner(k) == expected.getPrizeWinner(k);
+      assert target.getPrizeDraw(k) == expected.getPrizeDraw(k);
+    }
+  }
+
+  @Test
+  public void testCorruptNumberIsReportedOnOpen() throws IOException {
+    TicketStore sold = TicketStore.generate(10, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE, new SplittableRandom(7));
+    Path path = folder.newFile("book.htb").toPath();
+    TicketBook.write(path, sold);
+    // the first number of ticket 4, past the header and every layout
+    long position = TicketBook.HEADER_BYTES + 10L * ROWS * Long.BYTES + 4L * ROWS * NUMBERS_PER_ROW * Integer.BYTES;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(0, RANGE + 1), position);
+    }
+
+    try {
+      TicketBook.open(path);
+      assert false : "number out of range was mapped";
+    } catch (IOException e) {
+      assert e.getMessage().contains("ticket 4") : e.getMessage();
+    }
+  }
+
+  @Test
+  public void testStreamedTicketsAreValidated() throws IOException {
+    Path path = folder.newFile("book.htb").toPath();
+    TicketBook.Writer writer = new TicketBook.Writer(path, 1, 4, 2, 10, 2);
+    writer.write(new int[] {3, 7}, new int[] {0, 3});
+    try {
+      writer.write(new int[] {3, 11}, new int[] {0, 1});
+      assert false : "number out of range was accepted";
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      writer.write(new int[] {3, 7}, new int[] {2, 1});
+      assert false : "columns out of order were accepted";
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      writer.write(new int[] {7, 7}, new int[] {0, 1});
+      assert false : "repeated number was accepted";
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      writer.write(TicketStore.generate(1, 1, 4, 2, 200, new SplittableRandom(1)));
+      assert false : "store of another range was accepted";
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      writer.close();
+      assert false : "book missing a ticket was closed";
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    try {
+      TicketBook.open(path);
+      assert false : "book without a header was opened";
+    } catch (IOException e) {
+      // expected
+    }
+
+    try (TicketBook.Writer complete = new TicketBook.Writer(path, 1, 4, 2, 10, 1)) {
+      complete.write(new int[] {3, 7}, new int[] {0, 3});
+    }
+    TicketStore target = TicketBook.open(path);
+    assert Arrays.equals(target.grid(0)[0], new int[] {3, 0, 0, 7});
+    assert Files.size(path) == TicketBook.HEADER_BYTES + Long.BYTES + 2 * Integer.BYTES;
+  }
+}
@@ -0,0 +1,88 @@
+package sie;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.Test;
+
+public class TicketStoreTest {
+
+  private static final int COLUMNS = 10;
+  private static final int NUMBERS_PER_ROW = 5;
+  private static final int RANGE = 90;
+  private static final int ROWS = 3;
+  private static final int TICKETS = 100;
+
+  @Test
+  public void testGeneratedTicketsAreUniqueAndLaidOutInGrid() {
+    for (boolean offHeap : new boolean[] {false, true}) {
+      TicketStore target = TicketStore.generate(TICKETS, ROWS, COLUMNS, NUMBERS_PER_ROW, RANGE,
+          new SplittableRandom(7), offHeap);
+
+      assert target.size() == TICKETS;
+      for (int ticket = 0; ticket < TICKETS; ticket++) {
+        boolean[] seen = new boolean[RANGE + 1];
+        for (int number : target.numbers(ticket)) {
+          assert number >= 1 && number <= RANGE;
+          assert !seen[number];
+          seen[number] = true;
+        }
+        // every number shows up exactly once in the grid, in its own row
+        int[][] grid = target.grid(ticket);
+        for (int i = 0; i < ROWS; i++) {
+          int filled = 0;
+          for (int cell : grid[i]) {
+            if (cell > 0) {
+              assert seen[cell];
+              filled++;
+            }
+          }
+          assert filled == NUMBERS_PER_ROW;
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testGridIsRebuiltFromRowLayouts() {
+    TicketStore target = TicketStore.of(2, 3, 2, 10, new int[] {1, 2, 3, 4});
+    assert target.rowColumns(0, 0) == 0b11;
+    assert Arrays.deepEquals(target.grid(0), new int[][] {{1, 2, 0}, {3, 4, 0}});
+
+    // a wide grid costs no more to generate, each row still holds its numbers in distinct columns
+    TicketStore wide = TicketStore.generate(TICKETS, ROWS, TicketStore.MAX_COLUMNS, NUMBERS_PER_ROW, RANGE,
+        new SplittableRandom(11));
+    for (int ticket = 0; ticket < TICKETS; ticket++) {
+      for (int row = 0; row < ROWS; row++) {
+        assert Long.bitCount(wide.rowColumns(ticket, row)) == NUMBERS_PER_ROW;
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooManyColumnsAreRejected() {
+    TicketStore.generate(1, ROWS, TicketStore.MAX_COLUMNS + 1, NUMBERS_PER_ROW, RANGE, new SplittableRandom(1));
+  }
+
+  @Test
+  public void testMarkingUpdatesRowCountersAndPrizes() {
+    TicketStore target = TicketStore.of(2, 3, 2, 10, new int[] {1, 2, 3, 4}, new int[] {2, 5, 6, 7});
+
+    assert target.mark(0, 2);
+    assert !target.mark(0, 2);
+    assert !target.topLineComplete(0);
+    assert target.mark(0, 1);
+    assert target.topLineComplete(0);
+    assert target.remainingInRow(0, 1) == 2;
+    assert target.hits(0) == 2;
+
+    // the other ticket holding 2 is untouched
+    assert target.hits(1) == 0;
+
+    assert target.mark(0, 3) && target.mark(0, 4);
+    assert target.fullHouseComplete(0);
+
+    target.setPrize(0, TicketStore.FULL_HOUSE_PRIZE, true);
+    assert target.hasPrize(0, TicketStore.FULL_HOUSE_PRIZE);
+    assert !target.hasPrize(0, TicketStore.TOP_LINE_PRIZE);
+  }
+}
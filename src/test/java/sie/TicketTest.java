@@ -69,6 +69,19 @@ public class TicketTest {
     assert minTarget.fullHouseWinner();
   }
 
+  @Test
+  public void testNumberIsOnlyHitOnce() {
+    int[] numbers = defaultTarget.getNumbers();
+
+    // every number on the ticket is hit exactly once, numbers outside the range are never hit
+    assert numbers.length == ROWS_DEFAULT * NUMBERS_PER_ROW_DEFAULT;
+    assert defaultTarget.selectNumber(numbers[0]);
+    assert !defaultTarget.selectNumber(numbers[0]);
+    assert !defaultTarget.selectNumber(0);
+    assert !defaultTarget.selectNumber(RANGE_DEFAULT + 1);
+    assert defaultTarget.getNumberOfHits() == 1;
+  }
+
   /** these tests are stubbed but could easily be implemeted
    @Test public void getNumberOfHits() {
    }
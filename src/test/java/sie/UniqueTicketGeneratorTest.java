@@ -0,0 +1,98 @@
+package sie;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.junit.Test;
+
+public class UniqueTicketGeneratorTest {
+
+  @Test
+  public void testEveryDistinctTicketOfASmallShapeIsHandedOutOnce() {
+    // a single row of 2 numbers up to 6 only has 15 distinct tickets
+    for (boolean bloomFilter : new boolean[] {false, true}) {
+      UniqueTicketGenerator target = new UniqueTicketGenerator(1, 3, 2, 6, bloomFilter);
+      TicketStore tickets = target.generate(15, new SplittableRandom(1), false);
+
+      assert distinct(tickets) == 15;
+      assert target.getGenerated() == 15;
+      assert target.getDuplicates() > 0;
+      assert target.getDuplicateRate() > 0 && target.getDuplicateRate() < 1;
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testShapeWithTooFewDistinctTicketsIsRejected() {
+    new UniqueTicketGenerator(1, 3, 2, 6, false).generate(16, new SplittableRandom(1), false);
+  }
+
+  @Test
+  public void testLargeGameIsUniqueAndReported() {
+    HousieMetrics metrics = new HousieMetrics();
+    UniqueTicketGenerator target = new UniqueTicketGenerator(3, 10, 5, 90, true);
+    target.setMetrics(metrics);
+    TicketStore tickets = target.generate(20_000, new SplittableRandom(2), false);
+
+    assert distinct(tickets) == 20_000;
+    assert target.getRetries() > 0;
+    // a 16 bit per ticket filter rarely needs the set to confirm a new ticket
+    assert target.getBloomFalsePositives() < 100;
+    HousieMetrics.Snapshot snapshot = metrics.snapshot();
+    assert snapshot.getTicketsGenerated() == 20_000;
+    assert snapshot.getGenerationRetries() == target.getRetries();
+    assert snapshot.getDuplicateTickets() == target.getDuplicates();
+  }
+
+  @Test
+  public void testFingerprintIgnoresColumnsButNotRows() {
+    TicketStore tickets = TicketStore.of(2, 5, 2, 10, new int[] {1, 2, 3, 4}, new int[] {2, 1, 4, 3},
+        new int[] {3, 4, 1, 2});
+    assert Fingerprints.of(tickets, 0) == Fingerprints.of(tickets, 1);
+    assert Fingerprints.of(tickets, 0) != Fingerprints.of(tickets, 2);
+  }
+
+  @Test
+  public void testLongHashSetGrowsAndFindsEveryValue() {
+    LongHashSet target = new LongHashSet(4);
+    for (long value = -1000; value < 1000; value++) {
+      assert target.add(value * 7919);
+    }
+    for (long value = -1000; value < 1000; value++) {
+      assert !target.add(value * 7919);
+    }
+    assert target.size() == 2000;
+    target.addAbsent(3);
+    assert !target.add(3) && target.size() == 2001;
+  }
+
+  @Test
+  public void testBloomFilterSparesTheSetComparisons() {
+    UniqueTicketGenerator plain = new UniqueTicketGenerator(3, 10, 5, 90, false);
+    UniqueTicketGenerator filtered = new UniqueTicketGenerator(3, 10, 5, 90, true);
+    TicketStore expected = plain.generate(100_000, new SplittableRandom(4), false);
+    TicketStore target = filtered.generate(100_000, new SplittableRandom(4), false);
+
+    for (int ticket = 0; ticket < target.size(); ticket++) {
+      assert Arrays.equals(target.numbers(ticket), expected.numbers(ticket));
+    }
+    // the plain set compares at least once for most tickets, the filter only for the few it cannot rule out
+    assert plain.getComparisons() > 10_000;
+    assert filtered.getComparisons() < plain.getComparisons() / 10 : filtered.getComparisons();
+  }
+
+  private static int distinct(TicketStore tickets) {
+    Set<String> seen = new HashSet<>();
+    for (int ticket = 0; ticket < tickets.size(); ticket++) {
+      int[] numbers = tickets.numbers(ticket);
+      StringBuilder key = new StringBuilder();
+      for (int row = 0; row < tickets.getRows(); row++) {
+        int[] sorted = Arrays.copyOfRange(numbers, row * tickets.getNumbersPerRow(), (row + 1) * tickets.getNumbersPerRow());
+        Arrays.sort(sorted);
+        key.append(Arrays.toString(sorted));
+      }
+      seen.add(key.toString());
+    }
+    return seen.size();
+  }
+}